@@ -1,5 +1,6 @@
 package tqs.msev.backend.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.security.authentication.AuthenticationManager;
@@ -7,27 +8,31 @@ import org.springframework.security.authentication.AuthenticationProvider;
 import org.springframework.security.authentication.dao.DaoAuthenticationProvider;
 import org.springframework.security.config.annotation.authentication.configuration.AuthenticationConfiguration;
 import org.springframework.security.core.userdetails.UserDetailsService;
-import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
-import tqs.msev.backend.repository.UserRepository;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tqs.msev.backend.service.UserService;
+import tqs.msev.backend.util.BoundedPasswordEncoder;
+
+import java.time.Duration;
 
 @Configuration
 public class ApplicationConfig {
-    private final UserRepository userRepository;
+    private final UserService userService;
 
-    public ApplicationConfig(UserRepository userRepository) {
-        this.userRepository = userRepository;
+    public ApplicationConfig(UserService userService) {
+        this.userService = userService;
     }
 
     @Bean
     UserDetailsService userDetailsService() {
-        return email -> userRepository.findUserByEmail(email)
-                .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        return userService::getUserByEmail;
     }
 
     @Bean
-    BCryptPasswordEncoder passwordEncoder() {
-        return new BCryptPasswordEncoder();
+    BoundedPasswordEncoder passwordEncoder(@Value("${auth.password.max-concurrent:4}") int maxConcurrent,
+                                           @Value("${auth.password.queue-size:64}") int queueSize,
+                                           @Value("${auth.password.timeout:5s}") Duration timeout) {
+        return new BoundedPasswordEncoder(new BCryptPasswordEncoder(), maxConcurrent, queueSize, timeout);
     }
 
 
@@ -37,11 +42,11 @@ public class ApplicationConfig {
     }
 
     @Bean
-    AuthenticationProvider authenticationProvider() {
+    AuthenticationProvider authenticationProvider(PasswordEncoder passwordEncoder) {
         DaoAuthenticationProvider authProvider = new DaoAuthenticationProvider();
 
         authProvider.setUserDetailsService(userDetailsService());
-        authProvider.setPasswordEncoder(passwordEncoder());
+        authProvider.setPasswordEncoder(passwordEncoder);
 
         return authProvider;
     }
@@ -0,0 +1,36 @@
+package tqs.msev.backend.configuration;
+
+import org.springframework.security.core.AuthenticatedPrincipal;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import tqs.msev.backend.entity.User;
+
+import java.util.List;
+import java.util.UUID;
+
+// Principal rebuilt from the verified token, so authenticating a request needs no user lookup
+public record AuthenticatedUser(UUID id, String email, boolean operator) implements AuthenticatedPrincipal {
+    @Override
+    public String getName() {
+        return email;
+    }
+
+    public List<GrantedAuthority> authorities() {
+        return operator ? List.of(User.OPERATOR_AUTHORITY) : List.of();
+    }
+
+    public static AuthenticatedUser of(User user) {
+        return new AuthenticatedUser(user.getId(), user.getEmail(), user.isOperator());
+    }
+
+    public static AuthenticatedUser current() {
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        Object principal = authentication != null ? authentication.getPrincipal() : null;
+
+        if (principal instanceof AuthenticatedUser user) return user;
+        if (principal instanceof User user) return of(user);
+
+        throw new IllegalStateException("No authenticated user");
+    }
+}
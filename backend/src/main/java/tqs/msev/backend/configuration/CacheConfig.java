@@ -0,0 +1,55 @@
+package tqs.msev.backend.configuration;
+
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.CacheManager;
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.cache.caffeine.CaffeineCache;
+import org.springframework.cache.caffeine.CaffeineCacheManager;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@EnableCaching
+public class CacheConfig {
+    public static final String GEOCODING_CACHE = "geocoding";
+    public static final String USERS_CACHE = "users";
+
+    @Bean
+    public CacheManager cacheManager(@Value("${geocoding.cache.maximum-size:10000}") long geocodingMaximumSize,
+                                     @Value("${geocoding.cache.ttl:24h}") Duration geocodingTtl,
+                                     @Value("${users.cache.maximum-size:10000}") long usersMaximumSize,
+                                     @Value("${users.cache.ttl:10m}") Duration usersTtl) {
+        CaffeineCacheManager cacheManager = new CaffeineCacheManager();
+
+        cacheManager.registerCustomCache(GEOCODING_CACHE, Caffeine.newBuilder()
+                .maximumSize(geocodingMaximumSize)
+                .expireAfterWrite(geocodingTtl)
+                .recordStats()
+                .build());
+
+        cacheManager.registerCustomCache(USERS_CACHE, Caffeine.newBuilder()
+                .maximumSize(usersMaximumSize)
+                .expireAfterWrite(usersTtl)
+                .recordStats()
+                .build());
+
+        return cacheManager;
+    }
+
+    @Bean
+    public MeterBinder cacheHitRatio(CacheManager cacheManager) {
+        return registry -> cacheManager.getCacheNames().forEach(name -> {
+            if (cacheManager.getCache(name) instanceof CaffeineCache cache) {
+                Gauge.builder("cache.hit.ratio", cache.getNativeCache(), nativeCache -> nativeCache.stats().hitRate())
+                        .tag("cache", name)
+                        .description("Share of lookups answered from the cache")
+                        .register(registry);
+            }
+        });
+    }
+}
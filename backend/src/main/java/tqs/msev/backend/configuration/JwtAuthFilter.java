@@ -1,5 +1,6 @@
 package tqs.msev.backend.configuration;
 
+import io.jsonwebtoken.Claims;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.Cookie;
@@ -16,6 +17,7 @@ import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 import org.springframework.web.servlet.HandlerExceptionResolver;
 import org.springframework.web.util.WebUtils;
+import tqs.msev.backend.entity.User;
 import tqs.msev.backend.service.JwtService;
 
 import java.io.IOException;
@@ -49,19 +51,27 @@ public class JwtAuthFilter extends OncePerRequestFilter {
         }
 
         try {
-            final String jwt = cookie.getValue();
-            final String username = jwtService.extractUsername(jwt);
+            final Claims claims = jwtService.parseToken(cookie.getValue());
+            final String username = claims.getSubject();
 
             Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
 
             if (username != null && authentication == null) {
-                UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+                AuthenticatedUser principal = jwtService.extractPrincipal(claims);
 
-                if (jwtService.isTokenValid(jwt, userDetails)) {
+                if (principal == null) {
+                    // Older tokens only carry the email, so the user has to be loaded
+                    UserDetails userDetails = this.userDetailsService.loadUserByUsername(username);
+
+                    if (jwtService.isTokenValid(claims, userDetails) && userDetails instanceof User user)
+                        principal = AuthenticatedUser.of(user);
+                }
+
+                if (principal != null) {
                     UsernamePasswordAuthenticationToken authToken = new UsernamePasswordAuthenticationToken(
-                            userDetails,
+                            principal,
                             null,
-                            userDetails.getAuthorities()
+                            principal.authorities()
                     );
 
                     authToken.setDetails(new WebAuthenticationDetailsSource().buildDetails(request));
@@ -0,0 +1,44 @@
+package tqs.msev.backend.configuration;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+// The schema is generated by the entity manager factory, so the table exists once it is up
+@DependsOn("entityManagerFactory")
+public class OpenChargeSessionIndexes {
+    public static final String CHARGER_INDEX = "charge_session_open_per_charger";
+    public static final String USER_INDEX = "charge_session_open_per_user";
+    public static final String UNIQUE_VIOLATION = "23505";
+
+    // Partial indexes only hold the open sessions, so they stay small and the lookup by charger is a single probe
+    private static final String CREATE_CHARGER_INDEX =
+            "CREATE UNIQUE INDEX IF NOT EXISTS " + CHARGER_INDEX + " ON charge_session (charger_id) WHERE end_timestamp IS NULL";
+    private static final String CREATE_USER_INDEX =
+            "CREATE INDEX IF NOT EXISTS " + USER_INDEX + " ON charge_session (user_id, id) WHERE end_timestamp IS NULL";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public OpenChargeSessionIndexes(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void create() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) return;
+
+        try {
+            jdbcTemplate.execute(CREATE_USER_INDEX);
+            jdbcTemplate.execute(CREATE_CHARGER_INDEX);
+        } catch (DataAccessException e) {
+            log.warn("Could not create the open charge session indexes, check for chargers with more than one open session", e);
+        }
+    }
+}
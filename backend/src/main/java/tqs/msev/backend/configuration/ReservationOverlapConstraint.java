@@ -0,0 +1,49 @@
+package tqs.msev.backend.configuration;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+@Slf4j
+@Component
+// The schema is generated by the entity manager factory, so the table exists once it is up
+@DependsOn("entityManagerFactory")
+public class ReservationOverlapConstraint {
+    public static final String NAME = "reservation_no_overlap";
+    public static final String EXCLUSION_VIOLATION = "23P01";
+
+    // Timestamps are stored without a time zone, so the range type is tsrange. The default [) bounds let back to back reservations touch
+    private static final String ADD_CONSTRAINT = """
+            DO $$
+            BEGIN
+                IF NOT EXISTS (SELECT 1 FROM pg_constraint WHERE conname = '%s') THEN
+                    ALTER TABLE reservation ADD CONSTRAINT %s
+                        EXCLUDE USING gist (charger_id WITH =, tsrange(start_timestamp, end_timestamp) WITH &&);
+                END IF;
+            END
+            $$
+            """.formatted(NAME, NAME);
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public ReservationOverlapConstraint(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @PostConstruct
+    public void create() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        if (!"PostgreSQL".equals(database)) return;
+
+        try {
+            jdbcTemplate.execute("CREATE EXTENSION IF NOT EXISTS btree_gist");
+            jdbcTemplate.execute(ADD_CONSTRAINT);
+        } catch (DataAccessException e) {
+            log.warn("Could not add the reservation overlap constraint, overlaps are only checked in memory", e);
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package tqs.msev.backend.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+public class StreamingConfig implements WebMvcConfigurer {
+    // Errors raised before a stream starts are written as JSON to clients that only accept NDJSON or server-sent events
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        for (HttpMessageConverter<?> converter : converters) {
+            if (converter instanceof MappingJackson2HttpMessageConverter jackson) {
+                List<MediaType> mediaTypes = new ArrayList<>(jackson.getSupportedMediaTypes());
+                mediaTypes.add(MediaType.APPLICATION_NDJSON);
+                mediaTypes.add(MediaType.TEXT_EVENT_STREAM);
+                jackson.setSupportedMediaTypes(mediaTypes);
+            }
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package tqs.msev.backend.configuration;
 
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.web.client.RestTemplateBuilder;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.client.RestTemplate;
 
+import java.time.Duration;
+
 @Configuration
 public class WebConfig {
     @Bean
-    public RestTemplate restTemplate() {
-        return new RestTemplate();
+    public RestTemplate restTemplate(RestTemplateBuilder builder,
+                                     @Value("${geocoding.connect-timeout:2s}") Duration connectTimeout,
+                                     @Value("${geocoding.read-timeout:3s}") Duration readTimeout) {
+        return builder
+                .connectTimeout(connectTimeout)
+                .readTimeout(readTimeout)
+                .build();
     }
 }
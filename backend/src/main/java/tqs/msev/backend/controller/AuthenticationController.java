@@ -1,6 +1,7 @@
 package tqs.msev.backend.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.validation.Valid;
 import org.springframework.http.HttpHeaders;
@@ -28,8 +29,8 @@ public class AuthenticationController {
     @PostMapping("/login")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Authenticate an user")
-    public void login(@Valid @RequestBody LoginDTO dto, HttpServletResponse response) {
-        User user = authService.authenticate(dto);
+    public void login(@Valid @RequestBody LoginDTO dto, HttpServletRequest request, HttpServletResponse response) {
+        User user = authService.authenticate(dto, request.getRemoteAddr());
         String jwtToken = jwtService.generateToken(user);
 
         ResponseCookie cookie = ResponseCookie.from("accessToken", jwtToken)
@@ -46,8 +47,8 @@ public class AuthenticationController {
     @PostMapping("/signup")
     @ResponseStatus(HttpStatus.NO_CONTENT)
     @Operation(summary = "Sign up in the application")
-    public void signup(@Valid @RequestBody SignupDTO dto) {
-        authService.createUser(dto);
+    public void signup(@Valid @RequestBody SignupDTO dto, HttpServletRequest request) {
+        authService.createUser(dto, request.getRemoteAddr());
     }
 
     @PostMapping("/logout")
@@ -1,16 +1,21 @@
 package tqs.msev.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tqs.msev.backend.configuration.AuthenticatedUser;
+import tqs.msev.backend.dto.ChargerStatistics;
 import tqs.msev.backend.entity.ChargeSession;
-import tqs.msev.backend.entity.User;
 import tqs.msev.backend.service.ChargerService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.UUID;
 
@@ -18,19 +23,34 @@ import java.util.UUID;
 @RequestMapping("/api/v1/charge-sessions")
 public class ChargeSessionController {
     private final ChargerService chargerService;
+    private final ObjectMapper objectMapper;
 
-    public ChargeSessionController(ChargerService chargerService) {
+    public ChargeSessionController(ChargerService chargerService, ObjectMapper objectMapper) {
         this.chargerService = chargerService;
+        this.objectMapper = objectMapper;
     }
 
-    @GetMapping
-    @Operation(summary = "Get the charge sessions of the current authenticated user")
-    public List<ChargeSession> getSelfChargeSessions(
-            @Parameter(description = "Whether to filter for active sessions or not") @RequestParam(required = false, defaultValue = "false") boolean activeOnly) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = (User) auth.getPrincipal();
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get the charge sessions of the current authenticated user, a page at a time when a cursor or limit is given")
+    public ResponseEntity<List<ChargeSession>> getSelfChargeSessions(
+            @Parameter(description = "Whether to filter for active sessions or not") @RequestParam(required = false, defaultValue = "false") boolean activeOnly,
+            @Parameter(description = "Cursor returned in the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of sessions per page") @RequestParam(required = false) Integer limit) {
+        AuthenticatedUser user = AuthenticatedUser.current();
 
-        return chargerService.getChargeSessions(user.getId(), activeOnly);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(chargerService.getChargeSessions(user.id(), activeOnly));
+        }
+
+        return ListResponses.page(chargerService.getChargeSessions(user.id(), activeOnly, cursor, limit));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream the charge sessions of the current authenticated user as newline delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamSelfChargeSessions() {
+        AuthenticatedUser user = AuthenticatedUser.current();
+
+        return ListResponses.ndjson(objectMapper, action -> chargerService.streamChargeSessions(user.id(), action));
     }
 
     @GetMapping("/{chargerId}/statistics")
@@ -39,11 +59,36 @@ public class ChargeSessionController {
         return chargerService.getChargeSessionByChargerId(chargerId);
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
-    @GetMapping("/stats/{chargerId}")
-    @Operation(summary = "Get operator statistics")
-    public List<ChargeSession> getChargerStats(@PathVariable UUID chargerId) {
+    @PreAuthorize("hasRole('OPERATOR')")
+    @GetMapping(value = "/stats/{chargerId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get operator statistics, a page at a time when a cursor or limit is given")
+    public ResponseEntity<List<ChargeSession>> getChargerStats(@PathVariable UUID chargerId,
+                                                               @Parameter(description = "Cursor returned in the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+                                                               @Parameter(description = "Maximum number of sessions per page") @RequestParam(required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(chargerService.getChargeSessionsByCharger(chargerId));
+        }
+
+        return ListResponses.page(chargerService.getChargeSessionsByCharger(chargerId, cursor, limit));
+    }
+
+    @PreAuthorize("hasRole('OPERATOR')")
+    @GetMapping(value = "/stats/{chargerId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream operator statistics as newline delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamChargerStats(@PathVariable UUID chargerId) {
+        chargerService.getChargerById(chargerId);
+
+        return ListResponses.ndjson(objectMapper, action -> chargerService.streamChargeSessionsByCharger(chargerId, action));
+    }
+
+    @PreAuthorize("hasRole('OPERATOR')")
+    @GetMapping("/stats/{chargerId}/summary")
+    @Operation(summary = "Get aggregated statistics of a charger for a date range")
+    public ChargerStatistics getChargerSummary(@PathVariable UUID chargerId,
+                                               @Parameter(description = "Start of the range, defaults to 30 days before its end") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @Parameter(description = "End of the range, defaults to now") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        chargerService.getChargerById(chargerId);
 
-        return chargerService.getChargeSessionsByCharger(chargerId);
+        return chargerService.getChargerSummary(chargerId, from, to);
     }
 }
@@ -1,21 +1,29 @@
 package tqs.msev.backend.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import jakarta.validation.Valid;
+import tqs.msev.backend.configuration.AuthenticatedUser;
+import tqs.msev.backend.dto.AvailableSlot;
+import tqs.msev.backend.dto.ChargerAvailability;
+import tqs.msev.backend.dto.ChargerReading;
 import tqs.msev.backend.dto.UpdateChargerPriceDTO;
 import tqs.msev.backend.dto.UpdateChargerStatusDTO;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.entity.Reservation;
 
+import java.time.LocalDateTime;
 import java.util.UUID;
 
-import tqs.msev.backend.entity.User;
+import tqs.msev.backend.service.ChargerEventBroadcaster;
 import tqs.msev.backend.service.ChargerService;
 import tqs.msev.backend.service.ReservationService;
 
@@ -26,16 +34,41 @@ import java.util.List;
 public class ChargerController {
     private final ChargerService chargerService;
     private final ReservationService reservationService;
+    private final ChargerEventBroadcaster chargerEvents;
 
-    public ChargerController(ChargerService chargerService, ReservationService reservationService) {
+    public ChargerController(ChargerService chargerService, ReservationService reservationService, ChargerEventBroadcaster chargerEvents) {
         this.chargerService = chargerService;
         this.reservationService = reservationService;
+        this.chargerEvents = chargerEvents;
     }
 
     @GetMapping("/station/{stationId}")
-    @Operation(summary = "Get all the chargers of a station")
-    public List<Charger> getChargersByStation(@PathVariable("stationId") UUID stationId) {
-        return chargerService.getChargersByStation(stationId);
+    @Operation(summary = "Get all the chargers of a station, a page at a time when a cursor or limit is given")
+    public ResponseEntity<List<Charger>> getChargersByStation(@PathVariable("stationId") UUID stationId,
+                                                              @Parameter(description = "Cursor returned in the X-Next-Cursor header of the previous page") @RequestParam(required = false) UUID cursor,
+                                                              @Parameter(description = "Maximum number of chargers per page") @RequestParam(required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(chargerService.getChargersByStation(stationId));
+        }
+
+        return ListResponses.page(chargerService.getChargersByStation(stationId, cursor, limit));
+    }
+
+    @GetMapping(value = "/station/{stationId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream the status of every charger of a station, then each change, as server-sent events")
+    public ResponseEntity<SseEmitter> streamStationEvents(@PathVariable("stationId") UUID stationId) {
+        return ListResponses.events(chargerEvents.subscribeToStation(stationId,
+                () -> chargerService.getStatusEvents(stationId)));
+    }
+
+    @GetMapping("/station/{stationId}/availability")
+    @Operation(summary = "Get the free slots of every usable charger of a station inside a time window")
+    public List<ChargerAvailability> getStationAvailability(@PathVariable("stationId") UUID stationId,
+                                                            @Parameter(description = "Start of the window, defaults to now") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                            @Parameter(description = "End of the window, defaults to a day after its start") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                            @Parameter(description = "Slot alignment in minutes, a multiple of 15") @RequestParam(required = false) Integer granularity,
+                                                            @Parameter(description = "Minimum length of a free slot in minutes, defaults to the granularity") @RequestParam(required = false) Integer duration) {
+        return reservationService.getStationAvailability(stationId, from, to, granularity, duration);
     }
 
     @GetMapping("/{chargerId}")
@@ -44,13 +77,36 @@ public class ChargerController {
         return chargerService.getChargerById(chargerId);
     }
 
+    @GetMapping(value = "/{chargerId}/events", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Stream the status of a charger and its charge session updates as server-sent events")
+    public ResponseEntity<SseEmitter> streamChargerEvents(@PathVariable("chargerId") UUID chargerId) {
+        chargerService.getChargerById(chargerId);
+
+        return ListResponses.events(chargerEvents.subscribeToCharger(chargerId,
+                () -> List.of(chargerService.getStatusEvent(chargerId))));
+    }
+
     @GetMapping("/{chargerId}/reservations")
-    @Operation(summary = "Get all reservations for the specified charger")
-    public List<Reservation> getChargerAvailability(@PathVariable("chargerId") UUID chargerId) {
-        return reservationService.getFutureReservationsOnCharger(chargerId);
+    @Operation(summary = "Get the reservations of the specified charger starting inside a time window")
+    public List<Reservation> getChargerAvailability(@PathVariable("chargerId") UUID chargerId,
+                                                    @Parameter(description = "Start of the window, defaults to now") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                    @Parameter(description = "End of the window, defaults to 5 days after its start") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        return reservationService.getReservationsOnCharger(chargerId, from, to);
+    }
+
+    @GetMapping("/{chargerId}/availability")
+    @Operation(summary = "Get the free slots of the specified charger inside a time window")
+    public List<AvailableSlot> getChargerFreeSlots(@PathVariable("chargerId") UUID chargerId,
+                                                   @Parameter(description = "Start of the window, defaults to now") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                                   @Parameter(description = "End of the window, defaults to a day after its start") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+                                                   @Parameter(description = "Slot alignment in minutes, a multiple of 15") @RequestParam(required = false) Integer granularity,
+                                                   @Parameter(description = "Minimum length of a free slot in minutes, defaults to the granularity") @RequestParam(required = false) Integer duration) {
+        chargerService.getChargerById(chargerId);
+
+        return reservationService.getChargerAvailability(chargerId, from, to, granularity, duration);
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+    @PreAuthorize("hasRole('OPERATOR')")
     @PatchMapping("/{chargerId}/disable")
     @Operation(summary = "Disables a charger")
     public void disableCharger(@PathVariable UUID chargerId) {
@@ -58,7 +114,7 @@ public class ChargerController {
         chargerService.disableCharger(charger);
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+    @PreAuthorize("hasRole('OPERATOR')")
     @PatchMapping("/{chargerId}/enable")
     @Operation(summary = "Enables a charger")
     public void enableCharger(@PathVariable UUID chargerId) {
@@ -66,7 +122,7 @@ public class ChargerController {
         chargerService.enableCharger(charger);
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+    @PreAuthorize("hasRole('OPERATOR')")
     @PatchMapping("/{chargerId}")
     @Operation(summary = "Update a charger status")
     public void updateChargerStatus(@PathVariable UUID chargerId, @Valid @RequestBody UpdateChargerStatusDTO dto) {
@@ -76,22 +132,20 @@ public class ChargerController {
     @PatchMapping("/{chargerId}/unlock")
     @Operation(summary = "Unlocks a charger")
     public void unlockCharger(@PathVariable UUID chargerId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = (User) auth.getPrincipal();
+        AuthenticatedUser user = AuthenticatedUser.current();
 
-        chargerService.unlockCharger(chargerId, user.getId());
+        chargerService.unlockCharger(chargerId, user.id());
     }
 
     @PatchMapping("/{chargerId}/lock")
     @Operation(summary = "Locks a charger")
     public void lockCharger(@PathVariable UUID chargerId) {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        User user = (User) auth.getPrincipal();
+        AuthenticatedUser user = AuthenticatedUser.current();
 
-        chargerService.lockCharger(chargerId, user.getId());
+        chargerService.lockCharger(chargerId, user.id());
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+    @PreAuthorize("hasRole('OPERATOR')")
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Creates a charger")
@@ -99,7 +153,15 @@ public class ChargerController {
         return chargerService.createCharger(charger);
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+    @PreAuthorize("hasRole('OPERATOR')")
+    @PostMapping("/telemetry")
+    @ResponseStatus(HttpStatus.ACCEPTED)
+    @Operation(summary = "Records a batch of meter readings sent by chargers, written to their sessions shortly after")
+    public void recordReadings(@RequestBody List<ChargerReading> readings) {
+        chargerService.recordReadings(readings);
+    }
+
+    @PreAuthorize("hasRole('OPERATOR')")
     @PatchMapping("/{chargerId}/update")
     @Operation(summary = "Updates the charging price of a charger")
     public Charger updateChargerPrice(@PathVariable UUID chargerId, @RequestBody UpdateChargerPriceDTO dto) {
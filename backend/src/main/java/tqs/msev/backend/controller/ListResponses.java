@@ -0,0 +1,64 @@
+package tqs.msev.backend.controller;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import tqs.msev.backend.dto.CursorPage;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.function.Consumer;
+
+final class ListResponses {
+    static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
+    private ListResponses() {
+    }
+
+    static <T> ResponseEntity<List<T>> page(CursorPage<T> page) {
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok();
+
+        if (page.getNextCursor() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.getNextCursor().toString());
+        }
+
+        return response.body(page.getItems());
+    }
+
+    // Writes one JSON document per line as the rows are read, instead of building the whole list first
+    static <T> ResponseEntity<StreamingResponseBody> ndjson(ObjectMapper objectMapper, Consumer<Consumer<T>> source) {
+        ObjectWriter writer = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+
+        StreamingResponseBody body = out -> {
+            try {
+                source.accept(item -> {
+                    try {
+                        writer.writeValue(out, item);
+                        out.write('\n');
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+
+            out.flush();
+        };
+
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_NDJSON).body(body);
+    }
+
+    // nginx would otherwise buffer the stream and hold every event back until the buffer fills
+    static ResponseEntity<SseEmitter> events(SseEmitter emitter) {
+        return ResponseEntity.ok()
+                .header("X-Accel-Buffering", "no")
+                .header("Cache-Control", "no-cache")
+                .body(emitter);
+    }
+}
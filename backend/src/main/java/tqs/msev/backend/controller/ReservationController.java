@@ -1,7 +1,10 @@
 package tqs.msev.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.DeleteMapping;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.PathVariable;
@@ -10,6 +13,7 @@ import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
 import tqs.msev.backend.entity.Reservation;
@@ -23,9 +27,11 @@ import java.util.List;
 @RequestMapping("/api/v1/reservations")
 public class ReservationController {
     private final ReservationService reservationService;
+    private final ObjectMapper objectMapper;
 
-    public ReservationController(ReservationService reservationService) {
+    public ReservationController(ReservationService reservationService, ObjectMapper objectMapper) {
         this.reservationService = reservationService;
+        this.objectMapper = objectMapper;
     }
 
     @PostMapping
@@ -52,20 +58,46 @@ public class ReservationController {
         return reservationService.markReservationAsUsed(reservationId);
     }
 
-    @GetMapping
-    @Operation(summary = "Get all reservations for a user or a for a charger")
-    public List<Reservation> getReservations(
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get all reservations for a user or a for a charger, a page at a time when a cursor or limit is given")
+    public ResponseEntity<List<Reservation>> getReservations(
+            @Parameter(description = "Charger id to filter") @RequestParam(value="chargerId", required= false) UUID chargerId,
+            @Parameter(description = "User id to filter") @RequestParam(value = "userId", required = false) UUID userId,
+            @Parameter(description = "Cursor returned in the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+            @Parameter(description = "Maximum number of reservations per page") @RequestParam(required = false) Integer limit
+    ) {
+        checkFilter(chargerId, userId);
+        boolean paged = cursor != null || limit != null;
+
+        if (chargerId != null) {
+            return paged ? ListResponses.page(reservationService.getChargerReservations(chargerId, cursor, limit))
+                    : ResponseEntity.ok(reservationService.getChargerReservations(chargerId));
+        }
+
+        return paged ? ListResponses.page(reservationService.getUserReservations(userId, cursor, limit))
+                : ResponseEntity.ok(reservationService.getUserReservations(userId));
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all reservations for a user or for a charger as newline delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamReservations(
             @Parameter(description = "Charger id to filter") @RequestParam(value="chargerId", required= false) UUID chargerId,
             @Parameter(description = "User id to filter") @RequestParam(value = "userId", required = false) UUID userId
     ) {
+        checkFilter(chargerId, userId);
+
+        if (chargerId != null) {
+            return ListResponses.ndjson(objectMapper, action -> reservationService.streamChargerReservations(chargerId, action));
+        }
+
+        return ListResponses.ndjson(objectMapper, action -> reservationService.streamUserReservations(userId, action));
+    }
+
+    private static void checkFilter(UUID chargerId, UUID userId) {
         if (chargerId != null && userId != null) {
             throw new IllegalArgumentException("Only one of chargerId or userId should be provided");
         }
-        if (chargerId != null) {
-            return reservationService.getChargerReservations(chargerId);
-        } else if (userId != null) {
-            return reservationService.getUserReservations(userId);
-        } else {
+        if (chargerId == null && userId == null) {
             throw new IllegalArgumentException("Either chargerId or userId must be provided");
         }
     }
@@ -1,17 +1,25 @@
 package tqs.msev.backend.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 import jakarta.validation.Valid;
+import tqs.msev.backend.dto.StationStatistics;
+import tqs.msev.backend.dto.StationViewport;
 import tqs.msev.backend.entity.ChargeSession;
 import tqs.msev.backend.entity.Station;
 import tqs.msev.backend.service.ChargerService;
 import tqs.msev.backend.service.StationService;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
@@ -23,15 +31,29 @@ public class StationController {
 
     private final ChargerService chargerService;
 
-    public StationController(StationService stationService, ChargerService chargerService) {
+    private final ObjectMapper objectMapper;
+
+    public StationController(StationService stationService, ChargerService chargerService, ObjectMapper objectMapper) {
         this.stationService = stationService;
         this.chargerService = chargerService;
+        this.objectMapper = objectMapper;
+    }
+
+    @GetMapping(produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get all registered stations, a page at a time when a cursor or limit is given")
+    public ResponseEntity<List<Station>> getAllStations(@Parameter(description = "Cursor returned in the X-Next-Cursor header of the previous page") @RequestParam(required = false) UUID cursor,
+                                                        @Parameter(description = "Maximum number of stations per page") @RequestParam(required = false) Integer limit) {
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(stationService.getAllStations());
+        }
+
+        return ListResponses.page(stationService.getStations(cursor, limit));
     }
 
-    @GetMapping
-    @Operation(summary = "Get all registered stations")
-    public List<Station> getAllStations() {
-        return stationService.getAllStations();
+    @GetMapping(produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream all registered stations as newline delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamAllStations() {
+        return ListResponses.ndjson(objectMapper, stationService::streamStations);
     }
 
     @GetMapping("/{id}")
@@ -42,29 +64,41 @@ public class StationController {
 
     @GetMapping("/search-by-name")
     @Operation(summary = "Search for a station, by name")
-    public List<Station> searchStationByName(@Parameter(description = "Name to search for") @RequestParam String name) {
-        return stationService.searchByName(name);
+    public List<Station> searchStationByName(@Parameter(description = "Name to search for") @RequestParam String name,
+                                             @Parameter(description = "Maximum number of stations to return") @RequestParam(required = false) Integer limit) {
+        return stationService.searchByName(name, limit);
     }
 
     @GetMapping("/search-by-address")
     @Operation(summary = "Get the stations ordered by distance from the specified address")
-    public List<Station> searchStationByAddress(@Parameter(description = "Address to search for") @RequestParam String address) {
-        return stationService.searchByAddress(address);
+    public List<Station> searchStationByAddress(@Parameter(description = "Address to search for") @RequestParam String address,
+                                                @Parameter(description = "Maximum number of stations to return") @RequestParam(required = false) Integer limit,
+                                                @Parameter(description = "Maximum distance from the address, in km") @RequestParam(required = false) Double maxDistanceKm) {
+        return stationService.searchByAddress(address, limit, maxDistanceKm);
+    }
+
+    @GetMapping("/viewport")
+    @Operation(summary = "Get the stations inside a map viewport, clustering dense areas at low zoom levels")
+    public StationViewport getStationsInViewport(@RequestParam double minLat, @RequestParam double minLon,
+                                                 @RequestParam double maxLat, @RequestParam double maxLon,
+                                                 @Parameter(description = "Map zoom level, between 0 and 22") @RequestParam int zoom) {
+        return stationService.getStationsInViewport(minLat, minLon, maxLat, maxLon, zoom);
     }
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+
+    @PreAuthorize("hasRole('OPERATOR')")
     @PatchMapping("/{id}/disable")
     public void disableStation(@PathVariable UUID id) {
         Station s = stationService.getStationById(id);
         stationService.disableStation(s);
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+    @PreAuthorize("hasRole('OPERATOR')")
     @PatchMapping("/{id}/enable")
     public void enableStation(@PathVariable UUID id) {
         Station s = stationService.getStationById(id);
         stationService.enableStation(s);
     }
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
+    @PreAuthorize("hasRole('OPERATOR')")
     @PostMapping
     @ResponseStatus(HttpStatus.CREATED)
     @Operation(summary = "Create a station")
@@ -72,16 +106,42 @@ public class StationController {
         return stationService.createStation(station);
     }
 
-    @PreAuthorize("@userService.getCurrentUser(authentication).isOperator()")
-    @GetMapping("/stats/{stationId}")
-    @Operation(summary = "Get statistics of a station by id")
-    public List<ChargeSession> getStationStats(@PathVariable UUID stationId) {
+    @PreAuthorize("hasRole('OPERATOR')")
+    @GetMapping(value = "/stats/{stationId}", produces = MediaType.APPLICATION_JSON_VALUE)
+    @Operation(summary = "Get statistics of a station by id, a page at a time when a cursor or limit is given")
+    public ResponseEntity<List<ChargeSession>> getStationStats(@PathVariable UUID stationId,
+                                                               @Parameter(description = "Cursor returned in the X-Next-Cursor header of the previous page") @RequestParam(required = false) String cursor,
+                                                               @Parameter(description = "Maximum number of sessions per page") @RequestParam(required = false) Integer limit) {
         if (stationId == null) {
             throw new IllegalArgumentException("Station ID cannot be null");
         }
         if (stationService.getStationById(stationId) == null) {
             throw new NoSuchElementException("Invalid station id");
         }
-        return chargerService.getStationStats(stationId);
+        if (cursor == null && limit == null) {
+            return ResponseEntity.ok(chargerService.getStationStats(stationId));
+        }
+
+        return ListResponses.page(chargerService.getStationStats(stationId, cursor, limit));
+    }
+
+    @PreAuthorize("hasRole('OPERATOR')")
+    @GetMapping(value = "/stats/{stationId}", produces = MediaType.APPLICATION_NDJSON_VALUE)
+    @Operation(summary = "Stream the statistics of a station as newline delimited JSON")
+    public ResponseEntity<StreamingResponseBody> streamStationStats(@PathVariable UUID stationId) {
+        stationService.getStationById(stationId);
+
+        return ListResponses.ndjson(objectMapper, action -> chargerService.streamStationStats(stationId, action));
+    }
+
+    @PreAuthorize("hasRole('OPERATOR')")
+    @GetMapping("/stats/{stationId}/summary")
+    @Operation(summary = "Get aggregated statistics of a station for a date range, by id")
+    public StationStatistics getStationSummary(@PathVariable UUID stationId,
+                                               @Parameter(description = "Start of the range, defaults to 30 days before its end") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+                                               @Parameter(description = "End of the range, defaults to now") @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+        stationService.getStationById(stationId);
+
+        return chargerService.getStationSummary(stationId, from, to);
     }
 }
@@ -1,20 +1,26 @@
 package tqs.msev.backend.controller;
 
 import io.swagger.v3.oas.annotations.Operation;
-import org.springframework.security.core.Authentication;
-import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.web.bind.annotation.GetMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
+import tqs.msev.backend.configuration.AuthenticatedUser;
 import tqs.msev.backend.entity.User;
+import tqs.msev.backend.service.UserService;
 
 @RestController
 @RequestMapping("/api/v1/users")
 public class UserController {
+    private final UserService userService;
+
+    public UserController(UserService userService) {
+        this.userService = userService;
+    }
+
+    // The token only carries the id, email and role, so the full user is loaded here
     @GetMapping("/self")
     @Operation(summary = "Get the authenticated user details")
     public User getSelfUser() {
-        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
-        return (User) auth.getPrincipal();
+        return userService.getUserByEmail(AuthenticatedUser.current().email());
     }
 }
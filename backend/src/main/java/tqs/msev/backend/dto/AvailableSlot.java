@@ -0,0 +1,15 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class AvailableSlot {
+    private LocalDateTime start;
+    private LocalDateTime end;
+}
@@ -0,0 +1,27 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tqs.msev.backend.entity.ChargeSession;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// Pushed to everyone watching the charger, so it leaves out who the session belongs to
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargeSessionEvent {
+    private UUID sessionId;
+    private UUID chargerId;
+    private LocalDateTime startTimestamp;
+    private LocalDateTime endTimestamp;
+    private double consumption;
+    private double chargingSpeed;
+
+    public static ChargeSessionEvent of(UUID chargerId, ChargeSession session) {
+        return new ChargeSessionEvent(session.getId(), chargerId, session.getStartTimestamp(), session.getEndTimestamp(),
+                session.getConsumption(), session.getChargingSpeed());
+    }
+}
@@ -0,0 +1,16 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargerAvailability {
+    private UUID chargerId;
+    private List<AvailableSlot> slots;
+}
@@ -0,0 +1,19 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+// A meter reading sent by a charger: energy delivered so far in its session and the power it is charging at
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargerReading {
+    private UUID chargerId;
+    private LocalDateTime timestamp;
+    private double consumption;
+    private double chargingSpeed;
+}
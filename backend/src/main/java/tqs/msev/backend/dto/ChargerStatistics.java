@@ -0,0 +1,24 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargerStatistics {
+    private UUID chargerId;
+    private LocalDateTime from;
+    private LocalDateTime to;
+    private long sessions;
+    private double energy;
+    private double averageDurationMinutes;
+    private double utilisation;
+    private double revenue;
+}
@@ -0,0 +1,21 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tqs.msev.backend.entity.Charger;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class ChargerStatusEvent {
+    private UUID chargerId;
+    private UUID stationId;
+    private Charger.ChargerStatus status;
+    // Grows with each change of the charger status, so a client drops a frame older than the one it has
+    private long sequence;
+    private LocalDateTime timestamp;
+}
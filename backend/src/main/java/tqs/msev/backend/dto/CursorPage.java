@@ -0,0 +1,45 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPage<T> {
+    public static final int DEFAULT_LIMIT = 100;
+    public static final int MAX_LIMIT = 1000;
+
+    // Sorts before every other id, both in Postgres and in H2
+    private static final UUID START = new UUID(0, 0);
+
+    private List<T> items;
+    private String nextCursor;
+
+    public static UUID after(UUID cursor) {
+        return cursor == null ? START : cursor;
+    }
+
+    public static int checkLimit(Integer limit) {
+        if (limit == null) return DEFAULT_LIMIT;
+
+        if (limit <= 0 || limit > MAX_LIMIT) {
+            throw new IllegalArgumentException("Limit must be between 1 and " + MAX_LIMIT);
+        }
+
+        return limit;
+    }
+
+    // Expects one row more than the limit, whose presence tells there is another page
+    public static <T> CursorPage<T> of(List<T> rows, int limit, Function<T, ?> cursor) {
+        if (rows.size() <= limit) return new CursorPage<>(rows, null);
+
+        List<T> items = rows.subList(0, limit);
+        return new CursorPage<>(items, cursor.apply(items.get(limit - 1)).toString());
+    }
+}
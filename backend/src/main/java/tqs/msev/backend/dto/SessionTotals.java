@@ -0,0 +1,20 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class SessionTotals {
+    private long sessions;
+    private double energy;
+    private double revenue;
+    private long busySeconds;
+
+    public SessionTotals plus(SessionTotals other) {
+        return new SessionTotals(sessions + other.sessions, energy + other.energy,
+                revenue + other.revenue, busySeconds + other.busySeconds);
+    }
+}
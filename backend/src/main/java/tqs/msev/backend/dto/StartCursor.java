@@ -0,0 +1,28 @@
+package tqs.msev.backend.dto;
+
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.UUID;
+
+// Position in rows ordered by start time, the id orders the rows that start at the same time
+public record StartCursor(LocalDateTime startTimestamp, UUID id) {
+    // Sorts before every session and reservation
+    private static final StartCursor START = new StartCursor(LocalDateTime.of(1970, 1, 1, 0, 0), new UUID(0, 0));
+
+    public static StartCursor after(String cursor) {
+        if (cursor == null) return START;
+
+        int separator = cursor.lastIndexOf('_');
+
+        try {
+            return new StartCursor(LocalDateTime.parse(cursor.substring(0, separator)), UUID.fromString(cursor.substring(separator + 1)));
+        } catch (IndexOutOfBoundsException | DateTimeParseException | IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+
+    @Override
+    public String toString() {
+        return startTimestamp + "_" + id;
+    }
+}
@@ -0,0 +1,14 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StationCluster {
+    private double latitude;
+    private double longitude;
+    private int count;
+}
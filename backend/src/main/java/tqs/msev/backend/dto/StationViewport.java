@@ -0,0 +1,16 @@
+package tqs.msev.backend.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import tqs.msev.backend.entity.Station;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class StationViewport {
+    private List<Station> stations;
+    private List<StationCluster> clusters;
+}
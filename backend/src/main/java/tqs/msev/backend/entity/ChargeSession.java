@@ -1,10 +1,12 @@
 package tqs.msev.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
 
 import java.time.LocalDateTime;
 import java.util.UUID;
@@ -40,4 +42,10 @@ public class ChargeSession {
     @ManyToOne
     @JoinColumn(name = "charger_id", nullable = false)
     private Charger charger;
+
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;
 }
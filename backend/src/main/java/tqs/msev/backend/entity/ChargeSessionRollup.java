@@ -0,0 +1,53 @@
+package tqs.msev.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(
+        uniqueConstraints = @UniqueConstraint(columnNames = {"charger_id", "granularity", "bucket_start"}),
+        indexes = @Index(columnList = "station_id, granularity, bucket_start")
+)
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ChargeSessionRollup {
+    @Id
+    @GeneratedValue(strategy = GenerationType.UUID)
+    private UUID id;
+
+    @Column(name = "charger_id", nullable = false)
+    private UUID chargerId;
+
+    @Column(name = "station_id", nullable = false)
+    private UUID stationId;
+
+    @Column(name = "granularity", nullable = false)
+    private Granularity granularity;
+
+    @Column(name = "bucket_start", nullable = false)
+    private LocalDateTime bucketStart;
+
+    @Column(nullable = false)
+    private long sessions;
+
+    @Column(nullable = false)
+    private double energy;
+
+    @Column(nullable = false)
+    private double revenue;
+
+    @Column(nullable = false)
+    private long busySeconds;
+
+    public enum Granularity {
+        HOURLY, DAILY
+    }
+}
@@ -1,5 +1,6 @@
 package tqs.msev.backend.entity;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import jakarta.persistence.*;
 import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.Min;
@@ -8,6 +9,8 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.ColumnDefault;
+import tqs.msev.backend.index.ChargerStatusListener;
 
 import java.util.UUID;
 
@@ -16,6 +19,7 @@ import java.util.UUID;
 @NoArgsConstructor
 @Builder
 @Data
+@EntityListeners(ChargerStatusListener.class)
 public class Charger {
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
@@ -37,10 +41,18 @@ public class Charger {
     @Column(nullable = false)
     private double chargingSpeed;
 
-    @Column(nullable = false)
+    // Owned by the charger status table, which writes it behind; saving the charger never overwrites it
+    @Column(nullable = false, updatable = false)
     @Builder.Default
     private ChargerStatus status = ChargerStatus.AVAILABLE;
 
+    // Defaults to 0 so existing rows get a version when the column is added
+    @Version
+    @ColumnDefault("0")
+    @Column(nullable = false)
+    @JsonIgnore
+    private long version;
+
     public enum ChargerStatus {
         AVAILABLE, IN_USE, OUT_OF_ORDER, TEMPORARILY_DISABLED
     }
@@ -10,6 +10,7 @@ import java.time.LocalDateTime;
 import java.util.UUID;
 
 @Entity
+@Table(indexes = {@Index(columnList = "charger_id, start_timestamp"), @Index(columnList = "user_id, start_timestamp")})
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
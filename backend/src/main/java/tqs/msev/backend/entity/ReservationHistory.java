@@ -0,0 +1,55 @@
+package tqs.msev.backend.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Entity
+@Table(indexes = {
+        @Index(columnList = "user_id"),
+        @Index(columnList = "charger_id, start_timestamp")
+})
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+@Data
+public class ReservationHistory {
+    // Same id the reservation had while it was live
+    @Id
+    private UUID id;
+
+    @Column(name = "user_id", nullable = false)
+    private UUID userId;
+
+    @Column(name = "charger_id", nullable = false)
+    private UUID chargerId;
+
+    @Column(name = "start_timestamp", nullable = false)
+    private LocalDateTime startTimestamp;
+
+    @Column(name = "end_timestamp", nullable = false)
+    private LocalDateTime endTimestamp;
+
+    @Column(nullable = false)
+    private boolean used;
+
+    @Column(nullable = false)
+    private LocalDateTime archivedAt;
+
+    public static ReservationHistory of(Reservation reservation, LocalDateTime archivedAt) {
+        return ReservationHistory.builder()
+                .id(reservation.getId())
+                .userId(reservation.getUser().getId())
+                .chargerId(reservation.getCharger().getId())
+                .startTimestamp(reservation.getStartTimestamp())
+                .endTimestamp(reservation.getEndTimestamp())
+                .used(reservation.isUsed())
+                .archivedAt(archivedAt)
+                .build();
+    }
+}
@@ -9,11 +9,13 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import tqs.msev.backend.index.StationCatalogListener;
 
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(StationCatalogListener.class)
 @AllArgsConstructor
 @NoArgsConstructor
 @Data
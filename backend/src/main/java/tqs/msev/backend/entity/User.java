@@ -7,20 +7,25 @@ import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
+import tqs.msev.backend.service.UserCacheListener;
 
 import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Entity
+@EntityListeners(UserCacheListener.class)
 @AllArgsConstructor
 @NoArgsConstructor
 @Builder
 @Data
 @Table(name = "app_user")
 public class User implements UserDetails {
-    
+    public static final String OPERATOR_ROLE = "OPERATOR";
+    public static final GrantedAuthority OPERATOR_AUTHORITY = new SimpleGrantedAuthority("ROLE_" + OPERATOR_ROLE);
+
     @Id
     @GeneratedValue(strategy = GenerationType.UUID)
     private UUID id;
@@ -41,7 +46,7 @@ public class User implements UserDetails {
 
     @Override
     public Collection<? extends GrantedAuthority> getAuthorities() {
-        return List.of();
+        return isOperator ? List.of(OPERATOR_AUTHORITY) : List.of();
     }
 
     @Override
@@ -0,0 +1,48 @@
+package tqs.msev.backend.geocoding;
+
+import lombok.extern.slf4j.Slf4j;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+import org.springframework.web.util.UriComponentsBuilder;
+import tqs.msev.backend.dto.Coordinates;
+
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "geocoding.provider", havingValue = "geoapify", matchIfMissing = true)
+public class GeoapifyGeocodingClient implements GeocodingClient {
+    private static final String API_URL = "https://api.geoapify.com/v1/geocode/search";
+    private final RestTemplate restTemplate;
+    private final String apiKey;
+
+    public GeoapifyGeocodingClient(RestTemplate restTemplate, @Value("${geocoding.apikey}") String apiKey) {
+        this.restTemplate = restTemplate;
+        this.apiKey = apiKey;
+    }
+
+    @Override
+    public Coordinates geocode(String address) {
+        String url = UriComponentsBuilder.fromUriString(API_URL)
+                .queryParam("text", address)
+                .queryParam("format", "json")
+                .queryParam("apiKey", apiKey)
+                .encode()
+                .toUriString();
+
+        log.info("Making an HTTP request to geocoding API for address {}", address);
+        JSONObject json = new JSONObject(restTemplate.getForEntity(url, String.class).getBody());
+        JSONArray resultsArray = json.getJSONArray("results");
+
+        if (resultsArray.isEmpty()) return null;
+
+        JSONObject results = resultsArray.getJSONObject(0);
+
+        double lat = results.getDouble("lat");
+        double lon = results.getDouble("lon");
+
+        return new Coordinates(lat, lon);
+    }
+}
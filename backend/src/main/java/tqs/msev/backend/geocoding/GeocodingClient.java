@@ -0,0 +1,7 @@
+package tqs.msev.backend.geocoding;
+
+import tqs.msev.backend.dto.Coordinates;
+
+public interface GeocodingClient {
+    Coordinates geocode(String address);
+}
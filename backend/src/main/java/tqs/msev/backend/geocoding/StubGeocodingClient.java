@@ -0,0 +1,44 @@
+package tqs.msev.backend.geocoding;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import tqs.msev.backend.dto.Coordinates;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+
+@Component
+@ConditionalOnProperty(name = "geocoding.provider", havingValue = "stub")
+public class StubGeocodingClient implements GeocodingClient {
+    private final Duration latency;
+    private final double failureRate;
+
+    public StubGeocodingClient(@Value("${geocoding.stub.latency:0ms}") Duration latency,
+                               @Value("${geocoding.stub.failure-rate:0}") double failureRate) {
+        this.latency = latency;
+        this.failureRate = failureRate;
+    }
+
+    @Override
+    public Coordinates geocode(String address) {
+        try {
+            Thread.sleep(latency.toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Stub geocoding interrupted", e);
+        }
+
+        if (ThreadLocalRandom.current().nextDouble() < failureRate)
+            throw new IllegalStateException("Stub geocoding failure");
+
+        if (address.isBlank()) return null;
+
+        // Same address always resolves to the same point, spread over mainland Portugal
+        int hash = address.hashCode() & Integer.MAX_VALUE;
+        double lat = 37.0 + (hash % 5000) / 1000.0;
+        double lon = -9.0 + ((hash / 5000) % 2500) / 1000.0;
+
+        return new Coordinates(lat, lon);
+    }
+}
@@ -0,0 +1,33 @@
+package tqs.msev.backend.index;
+
+import jakarta.persistence.PostLoad;
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import org.springframework.beans.factory.ObjectProvider;
+import tqs.msev.backend.entity.Charger;
+
+public class ChargerStatusListener {
+    private final ObjectProvider<ChargerStatusTable> chargerStatusTable;
+    private final ObjectProvider<TelemetryBuffer> telemetryBuffer;
+
+    public ChargerStatusListener(ObjectProvider<ChargerStatusTable> chargerStatusTable, ObjectProvider<TelemetryBuffer> telemetryBuffer) {
+        this.chargerStatusTable = chargerStatusTable;
+        this.telemetryBuffer = telemetryBuffer;
+    }
+
+    @PostLoad
+    public void onLoad(Charger charger) {
+        chargerStatusTable.ifAvailable(table -> table.overlay(charger));
+    }
+
+    @PostPersist
+    public void onPersist(Charger charger) {
+        chargerStatusTable.ifAvailable(table -> table.track(charger));
+    }
+
+    @PostRemove
+    public void onRemove(Charger charger) {
+        chargerStatusTable.ifAvailable(table -> table.forget(charger.getId()));
+        telemetryBuffer.ifAvailable(buffer -> buffer.forget(charger.getId()));
+    }
+}
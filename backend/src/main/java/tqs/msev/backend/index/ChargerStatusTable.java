@@ -0,0 +1,237 @@
+package tqs.msev.backend.index;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.msev.backend.dto.ChargerStatusEvent;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Charger.ChargerStatus;
+import tqs.msev.backend.repository.ChargerRepository;
+
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.UnaryOperator;
+
+@Slf4j
+@Component
+public class ChargerStatusTable {
+    // A status-only move never puts a charger out of service in use; only a claimed transition, which writes the session behind it, does
+    private static final Map<ChargerStatus, Set<ChargerStatus>> TRANSITIONS = new EnumMap<>(Map.of(
+            ChargerStatus.AVAILABLE, EnumSet.allOf(ChargerStatus.class),
+            ChargerStatus.IN_USE, EnumSet.allOf(ChargerStatus.class),
+            ChargerStatus.OUT_OF_ORDER, EnumSet.of(ChargerStatus.OUT_OF_ORDER, ChargerStatus.AVAILABLE, ChargerStatus.TEMPORARILY_DISABLED),
+            ChargerStatus.TEMPORARILY_DISABLED, EnumSet.of(ChargerStatus.TEMPORARILY_DISABLED, ChargerStatus.AVAILABLE, ChargerStatus.OUT_OF_ORDER)));
+
+    private final ChargerRepository chargerRepository;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final Map<UUID, AtomicReference<State>> states = new ConcurrentHashMap<>();
+    // A charger never moves to another station, so its station is kept apart from the state that changes
+    private final Map<UUID, UUID> stations = new ConcurrentHashMap<>();
+    // Chargers whose status changed since the last flush; the status written is the one current at flush time
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    public ChargerStatusTable(ChargerRepository chargerRepository, TransactionTemplate transactionTemplate,
+                              ApplicationEventPublisher eventPublisher) {
+        this.chargerRepository = chargerRepository;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+    }
+
+    // Statuses are seeded from the database, so it is first made to agree with the sessions still open
+    @PostConstruct
+    public void reconcile() {
+        try {
+            Integer repaired = transactionTemplate.execute(tx -> chargerRepository.markInUseWithOpenSession());
+            if (repaired != null && repaired > 0)
+                log.warn("Marked {} chargers with an open charge session as in use", repaired);
+        } catch (DataAccessException e) {
+            log.warn("Could not check charger statuses against open charge sessions", e);
+        }
+    }
+
+    public ChargerStatus statusOf(UUID chargerId) {
+        return stateOf(chargerId).get().status();
+    }
+
+    // The status with the sequence it was reached at, which orders it against the changes pushed for the charger
+    public ChargerStatusEvent eventOf(UUID chargerId) {
+        State state = stateOf(chargerId).get();
+        return new ChargerStatusEvent(chargerId, stations.get(chargerId), state.status(), state.sequence(), LocalDateTime.now());
+    }
+
+    // Known once the charger has been loaded; null for a charger this instance has not seen
+    public UUID stationOf(UUID chargerId) {
+        return stations.get(chargerId);
+    }
+
+    // The ids among these that are not chargers; those not seen yet are looked up in a single query
+    public Set<UUID> unknownOf(Collection<UUID> chargerIds) {
+        Set<UUID> unknown = new HashSet<>();
+        for (UUID chargerId : chargerIds)
+            if (!states.containsKey(chargerId)) unknown.add(chargerId);
+
+        if (unknown.isEmpty()) return unknown;
+
+        chargerRepository.findAllById(unknown).forEach(this::overlay);
+        unknown.removeIf(states::containsKey);
+        return unknown;
+    }
+
+    // Changes only the status, in a single compare-and-set; false when another transition got there first
+    public boolean tryMove(UUID chargerId, UnaryOperator<ChargerStatus> target) {
+        AtomicReference<State> state = stateOf(chargerId);
+        State current = state.get();
+        if (current.claimed()) return false;
+
+        ChargerStatus next = target.apply(current.status());
+        checkTransition(current.status(), next);
+
+        State moved = current.moveTo(next);
+        if (!state.compareAndSet(current, moved)) return false;
+
+        if (next != current.status()) changed(chargerId, moved);
+        return true;
+    }
+
+    // Holds the charger while a transition writes the rows its status depends on; null when another transition holds it
+    public Claim tryClaim(UUID chargerId) {
+        AtomicReference<State> state = stateOf(chargerId);
+        State current = state.get();
+        if (current.claimed()) return null;
+
+        State claimed = new State(current.status(), true, current.sequence());
+        return state.compareAndSet(current, claimed) ? new Claim(chargerId, current.status(), claimed) : null;
+    }
+
+    public void settle(Claim claim, ChargerStatus next) {
+        AtomicReference<State> state = states.get(claim.chargerId);
+        State settled = claim.state.moveTo(next);
+        if (state == null || !state.compareAndSet(claim.state, settled)) return;
+
+        if (next != claim.from()) changed(claim.chargerId, settled);
+    }
+
+    // Gives the charger back unchanged, unless the claim was settled already
+    public void release(Claim claim) {
+        AtomicReference<State> state = states.get(claim.chargerId);
+        if (state != null) state.compareAndSet(claim.state, new State(claim.from(), false, claim.state.sequence()));
+    }
+
+    // A charger read from the database shows the status held here, which may not have been written yet
+    public void overlay(Charger charger) {
+        if (charger.getId() == null) return;
+
+        rememberStation(charger);
+        charger.setStatus(states.computeIfAbsent(charger.getId(), id -> new AtomicReference<>(State.of(charger.getStatus())))
+                .get().status());
+    }
+
+    public void track(Charger charger) {
+        if (charger.getId() == null) return;
+
+        rememberStation(charger);
+        states.put(charger.getId(), new AtomicReference<>(State.of(charger.getStatus())));
+    }
+
+    public void forget(UUID chargerId) {
+        states.remove(chargerId);
+        stations.remove(chargerId);
+        dirty.remove(chargerId);
+    }
+
+    // Statuses are written in one update per status, so a burst of transitions costs a handful of statements
+    @Scheduled(fixedDelayString = "${chargers.status.flush-interval:1s}")
+    public int flush() {
+        if (dirty.isEmpty()) return 0;
+
+        Map<ChargerStatus, List<UUID>> byStatus = new EnumMap<>(ChargerStatus.class);
+        for (Iterator<UUID> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            UUID chargerId = iterator.next();
+            iterator.remove();
+
+            AtomicReference<State> state = states.get(chargerId);
+            if (state != null) byStatus.computeIfAbsent(state.get().status(), status -> new ArrayList<>()).add(chargerId);
+        }
+
+        int written = byStatus.values().stream().mapToInt(List::size).sum();
+
+        try {
+            transactionTemplate.executeWithoutResult(tx -> byStatus.forEach((status, ids) -> chargerRepository.updateStatus(ids, status)));
+        } catch (DataAccessException e) {
+            // Written again on the next flush, with whatever status the charger has by then
+            byStatus.values().forEach(dirty::addAll);
+            log.warn("Could not write the status of {} chargers", written, e);
+            return 0;
+        }
+
+        return written;
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private AtomicReference<State> stateOf(UUID chargerId) {
+        AtomicReference<State> state = states.get(chargerId);
+        if (state != null) return state;
+
+        // Loaded outside computeIfAbsent, since loading the charger comes back here through its entity listener
+        Charger charger = chargerRepository.findById(chargerId)
+                .orElseThrow(() -> new NoSuchElementException("Invalid charger id"));
+        rememberStation(charger);
+
+        return states.computeIfAbsent(chargerId, id -> new AtomicReference<>(State.of(charger.getStatus())));
+    }
+
+    private void changed(UUID chargerId, State state) {
+        dirty.add(chargerId);
+        eventPublisher.publishEvent(new ChargerStatusEvent(chargerId, stations.get(chargerId), state.status(), state.sequence(), LocalDateTime.now()));
+    }
+
+    private void rememberStation(Charger charger) {
+        if (charger.getStation() != null && charger.getStation().getId() != null)
+            stations.putIfAbsent(charger.getId(), charger.getStation().getId());
+    }
+
+    private static void checkTransition(ChargerStatus from, ChargerStatus to) {
+        if (!TRANSITIONS.get(from).contains(to))
+            throw new IllegalStateException("A charger cannot go from " + from + " to " + to);
+    }
+
+    public static final class Claim {
+        private final UUID chargerId;
+        private final ChargerStatus from;
+        private final State state;
+
+        private Claim(UUID chargerId, ChargerStatus from, State state) {
+            this.chargerId = chargerId;
+            this.from = from;
+            this.state = state;
+        }
+
+        public ChargerStatus from() {
+            return from;
+        }
+    }
+
+    // Replaced on every change, so a compare-and-set on the reference also tells two changes to the same status apart
+    private record State(ChargerStatus status, boolean claimed, long sequence) {
+        private static State of(ChargerStatus status) {
+            return new State(status, false, 0);
+        }
+
+        // Only a change of status counts, so the sequence orders the events published for the charger
+        private State moveTo(ChargerStatus next) {
+            return new State(next, false, next != status ? sequence + 1 : sequence);
+        }
+    }
+}
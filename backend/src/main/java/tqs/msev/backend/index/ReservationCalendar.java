@@ -0,0 +1,299 @@
+package tqs.msev.backend.index;
+
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import tqs.msev.backend.dto.AvailableSlot;
+import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.repository.ReservationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.UnaryOperator;
+import java.util.stream.Collectors;
+
+@Component
+public class ReservationCalendar {
+    public static final String OVERLAP_MESSAGE = "Reservation overlaps with an existing reservation";
+    public static final Duration QUARTER = Duration.ofMinutes(15);
+
+    private static final long QUARTER_SECONDS = QUARTER.toSeconds();
+    // Drop the occupancy bits of the past once they amount to a week
+    private static final long REBASE_QUARTERS = Duration.ofDays(7).toSeconds() / QUARTER_SECONDS;
+    private static final UUID MIN_ID = new UUID(Long.MIN_VALUE, Long.MIN_VALUE);
+    private static final Comparator<Slot> ORDER = Comparator.comparing(Slot::start).thenComparing(Slot::id);
+
+    private final ReservationRepository reservationRepository;
+    private final Map<UUID, ChargerCalendar> calendars = new ConcurrentHashMap<>();
+
+    public ReservationCalendar(ReservationRepository reservationRepository) {
+        this.reservationRepository = reservationRepository;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void warmUp() {
+        LocalDateTime now = LocalDateTime.now();
+        Map<UUID, List<Reservation>> byCharger = reservationRepository.findByEndTimestampAfter(now).stream()
+                .collect(Collectors.groupingBy(reservation -> reservation.getCharger().getId()));
+
+        byCharger.forEach((chargerId, reservations) -> calendars.computeIfAbsent(chargerId, id -> new ChargerCalendar(reservations, now)));
+    }
+
+    public boolean overlaps(UUID chargerId, LocalDateTime start, LocalDateTime end) {
+        ChargerCalendar calendar = calendarOf(chargerId);
+
+        synchronized (calendar) {
+            calendar.prune(LocalDateTime.now());
+            return overlapsStored(chargerId, calendar, start, end);
+        }
+    }
+
+    // The check and the insert happen under the charger lock, so two requests for the same slot cannot both pass on this instance;
+    // across instances the database constraint decides
+    public Reservation reserve(Reservation reservation, UnaryOperator<Reservation> save) {
+        UUID chargerId = reservation.getCharger().getId();
+        LocalDateTime start = reservation.getStartTimestamp();
+        LocalDateTime end = reservation.getEndTimestamp();
+        ChargerCalendar calendar = calendarOf(chargerId);
+
+        synchronized (calendar) {
+            calendar.prune(LocalDateTime.now());
+
+            if (overlapsStored(chargerId, calendar, start, end)) {
+                throw new IllegalArgumentException(OVERLAP_MESSAGE);
+            }
+
+            Reservation saved;
+            try {
+                saved = save.apply(reservation);
+            } catch (IllegalArgumentException e) {
+                // Refused by the database, for a reservation made on another instance that this calendar has not seen
+                calendar.replace(start, end, reservationRepository.findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(chargerId, end, start));
+                throw e;
+            }
+
+            calendar.add(saved);
+            return saved;
+        }
+    }
+
+    public void release(Reservation reservation) {
+        if (reservation.getCharger() == null || reservation.getId() == null) return;
+
+        ChargerCalendar calendar = calendars.get(reservation.getCharger().getId());
+        if (calendar == null) return;
+
+        synchronized (calendar) {
+            calendar.remove(reservation);
+        }
+    }
+
+    // Free ranges of at least the given length, aligned to the step, which must be a whole number of quarters of an hour
+    public List<AvailableSlot> freeSlots(UUID chargerId, LocalDateTime from, LocalDateTime to, Duration step, Duration minLength) {
+        return freeSlots(List.of(chargerId), from, to, step, minLength).get(chargerId);
+    }
+
+    // The reservations in the window are read again in a single query first, so bookings and cancellations made on other instances show up
+    public Map<UUID, List<AvailableSlot>> freeSlots(Collection<UUID> chargerIds, LocalDateTime from, LocalDateTime to,
+                                                    Duration step, Duration minLength) {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime start = from.isAfter(now) ? from : now;
+        Map<UUID, ChargerCalendar> calendars = new LinkedHashMap<>();
+        Map<UUID, Long> additions = new HashMap<>();
+
+        for (UUID chargerId : chargerIds) {
+            ChargerCalendar calendar = calendarOf(chargerId);
+            calendars.put(chargerId, calendar);
+            synchronized (calendar) {
+                additions.put(chargerId, calendar.additions);
+            }
+        }
+
+        Map<UUID, List<Reservation>> stored = chargerIds.isEmpty() ? Map.of()
+                : reservationRepository.findByChargerIdInAndStartTimestampBeforeAndEndTimestampAfter(chargerIds, to, start).stream()
+                        .collect(Collectors.groupingBy(reservation -> reservation.getCharger().getId()));
+        Map<UUID, List<AvailableSlot>> free = new LinkedHashMap<>();
+
+        calendars.forEach((chargerId, calendar) -> {
+            List<Reservation> reservations = stored.getOrDefault(chargerId, List.of());
+
+            synchronized (calendar) {
+                calendar.prune(now);
+                // A reservation made here after the query is not in its result, so nothing is dropped on its account
+                if (calendar.additions == additions.get(chargerId)) {
+                    calendar.replace(start, to, reservations);
+                } else {
+                    reservations.forEach(calendar::add);
+                }
+
+                free.put(chargerId, calendar.freeSlots(start, to, step.toSeconds() / QUARTER_SECONDS, ceilQuarter(minLength.toSeconds())));
+            }
+        });
+
+        return free;
+    }
+
+    private ChargerCalendar calendarOf(UUID chargerId) {
+        ChargerCalendar calendar = calendars.get(chargerId);
+        if (calendar != null) return calendar;
+
+        // Loaded outside computeIfAbsent, so a slow query does not hold up the other chargers sharing the map bin.
+        // A reservation cancelled while it loads stays in it until an overlap with it is checked against the database
+        LocalDateTime now = LocalDateTime.now();
+        ChargerCalendar loaded = new ChargerCalendar(reservationRepository.findByChargerIdAndEndTimestampAfter(chargerId, now), now);
+        ChargerCalendar existing = calendars.putIfAbsent(chargerId, loaded);
+
+        return existing != null ? existing : loaded;
+    }
+
+    // The calendar misses cancellations and expiries on other instances, so an overlap it reports is confirmed by the database,
+    // whose reservations in the range then replace the ones held here
+    private boolean overlapsStored(UUID chargerId, ChargerCalendar calendar, LocalDateTime start, LocalDateTime end) {
+        if (!calendar.overlaps(start, end)) return false;
+
+        List<Reservation> stored = reservationRepository.findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(chargerId, end, start);
+        calendar.replace(start, end, stored);
+        return !stored.isEmpty();
+    }
+
+    private static long floorQuarter(LocalDateTime time) {
+        return Math.floorDiv(time.toEpochSecond(ZoneOffset.UTC), QUARTER_SECONDS);
+    }
+
+    private static long ceilQuarter(LocalDateTime time) {
+        return ceilQuarter(time.toEpochSecond(ZoneOffset.UTC) + (time.getNano() > 0 ? 1 : 0));
+    }
+
+    private static long ceilQuarter(long seconds) {
+        return -Math.floorDiv(-seconds, QUARTER_SECONDS);
+    }
+
+    private static LocalDateTime timeOf(long quarter) {
+        return LocalDateTime.ofEpochSecond(quarter * QUARTER_SECONDS, 0, ZoneOffset.UTC);
+    }
+
+    private static final class ChargerCalendar {
+        private final TreeSet<Slot> slots = new TreeSet<>(ORDER);
+        private Duration longest = Duration.ZERO;
+        // Slots added so far, which tells whether one was added while the database was being read
+        private long additions;
+        // Bit i is set when any reservation touches the quarter of an hour number origin + i
+        private BitSet occupied = new BitSet();
+        private long origin;
+
+        ChargerCalendar(Collection<Reservation> reservations, LocalDateTime now) {
+            origin = floorQuarter(now);
+            reservations.forEach(this::add);
+        }
+
+        void add(Reservation reservation) {
+            if (reservation.getId() == null) return;
+
+            Slot slot = Slot.of(reservation);
+            if (!slots.add(slot)) return;
+
+            additions++;
+            mark(slot);
+
+            Duration duration = Duration.between(slot.start(), slot.end());
+            if (duration.compareTo(longest) > 0) longest = duration;
+        }
+
+        void remove(Reservation reservation) {
+            remove(Slot.of(reservation));
+        }
+
+        // Slots overlapping the range that are not among the stored reservations are dropped, and those missing are added
+        void replace(LocalDateTime start, LocalDateTime end, Collection<Reservation> stored) {
+            Set<UUID> ids = stored.stream().map(Reservation::getId).collect(Collectors.toSet());
+
+            for (Slot slot : List.copyOf(touching(start, end))) {
+                if (slot.end().isAfter(start) && !ids.contains(slot.id())) remove(slot);
+            }
+
+            stored.forEach(this::add);
+        }
+
+        private void remove(Slot removed) {
+            if (!slots.remove(removed)) return;
+
+            // Neighbours may share the edge quarters, so rebuild the range from the slots still touching it
+            int from = bitIndex(floorQuarter(removed.start()));
+            int to = bitIndex(ceilQuarter(removed.end()));
+            if (to > from) occupied.clear(from, to);
+
+            LocalDateTime rangeStart = timeOf(floorQuarter(removed.start()));
+            LocalDateTime rangeEnd = timeOf(ceilQuarter(removed.end()));
+            touching(rangeStart, rangeEnd).forEach(this::mark);
+        }
+
+        // Slots of the past are dropped, and so are their occupancy bits once they amount to a week
+        void prune(LocalDateTime now) {
+            slots.headSet(new Slot(MIN_ID, now.minus(longest), now)).clear();
+
+            long shift = floorQuarter(now) - origin;
+            if (shift >= REBASE_QUARTERS) {
+                occupied = occupied.get((int) shift, Math.max((int) shift, occupied.length()));
+                origin += shift;
+            }
+        }
+
+        boolean overlaps(LocalDateTime start, LocalDateTime end) {
+            for (Slot slot : touching(start, end)) {
+                if (slot.end().isAfter(start)) return true;
+            }
+
+            return false;
+        }
+
+        List<AvailableSlot> freeSlots(LocalDateTime from, LocalDateTime to, long step, long minQuarters) {
+            int end = bitIndex(floorQuarter(to));
+            int index = bitIndex(ceilQuarter(from));
+            List<AvailableSlot> free = new ArrayList<>();
+
+            while (index < end) {
+                int runStart = occupied.nextClearBit(index);
+                if (runStart >= end) break;
+
+                int nextBusy = occupied.nextSetBit(runStart);
+                int runEnd = nextBusy < 0 || nextBusy > end ? end : nextBusy;
+
+                long alignedStart = -Math.floorDiv(-(origin + runStart), step) * step;
+                long alignedEnd = Math.floorDiv(origin + runEnd, step) * step;
+
+                if (alignedEnd - alignedStart >= Math.max(minQuarters, 1)) {
+                    free.add(new AvailableSlot(timeOf(alignedStart), timeOf(alignedEnd)));
+                }
+
+                index = runEnd;
+            }
+
+            return free;
+        }
+
+        // Only slots starting less than the longest reservation before the start can reach into the range
+        private NavigableSet<Slot> touching(LocalDateTime start, LocalDateTime end) {
+            return slots.subSet(new Slot(MIN_ID, start.minus(longest), start), true, new Slot(MIN_ID, end, end), false);
+        }
+
+        private void mark(Slot slot) {
+            int from = bitIndex(floorQuarter(slot.start()));
+            int to = bitIndex(ceilQuarter(slot.end()));
+
+            if (to > from) occupied.set(from, to);
+        }
+
+        private int bitIndex(long quarter) {
+            return (int) Math.max(0, quarter - origin);
+        }
+    }
+
+    private record Slot(UUID id, LocalDateTime start, LocalDateTime end) {
+        static Slot of(Reservation reservation) {
+            return new Slot(reservation.getId(), reservation.getStartTimestamp(), reservation.getEndTimestamp());
+        }
+    }
+}
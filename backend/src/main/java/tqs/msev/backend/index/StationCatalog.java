@@ -0,0 +1,61 @@
+package tqs.msev.backend.index;
+
+import org.springframework.stereotype.Component;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.repository.StationRepository;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Component
+public class StationCatalog {
+    private final StationRepository stationRepository;
+    private final Map<UUID, Station> stations = new ConcurrentHashMap<>();
+    private final AtomicLong version = new AtomicLong();
+    private volatile boolean loaded = false;
+
+    public StationCatalog(StationRepository stationRepository) {
+        this.stationRepository = stationRepository;
+    }
+
+    public Collection<Station> getStations() {
+        ensureLoaded();
+        return Collections.unmodifiableCollection(stations.values());
+    }
+
+    public long getVersion() {
+        ensureLoaded();
+        return version.get();
+    }
+
+    public void put(Station station) {
+        if (station.getId() == null) return;
+
+        stations.put(station.getId(), station);
+        version.incrementAndGet();
+    }
+
+    public void remove(Station station) {
+        if (station.getId() == null) return;
+
+        stations.remove(station.getId());
+        version.incrementAndGet();
+    }
+
+    private void ensureLoaded() {
+        if (loaded) return;
+
+        synchronized (this) {
+            if (loaded) return;
+
+            // Stations written through the listener before the first load are newer than what we read here
+            stationRepository.findAll().forEach(station -> stations.putIfAbsent(station.getId(), station));
+            version.incrementAndGet();
+            loaded = true;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package tqs.msev.backend.index;
+
+import jakarta.persistence.PostPersist;
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tqs.msev.backend.entity.Station;
+
+import java.util.function.Consumer;
+
+public class StationCatalogListener {
+    private final ObjectProvider<StationCatalog> stationCatalog;
+
+    public StationCatalogListener(ObjectProvider<StationCatalog> stationCatalog) {
+        this.stationCatalog = stationCatalog;
+    }
+
+    @PostPersist
+    @PostUpdate
+    public void onSave(Station station) {
+        afterCommit(catalog -> catalog.put(station));
+    }
+
+    @PostRemove
+    public void onRemove(Station station) {
+        afterCommit(catalog -> catalog.remove(station));
+    }
+
+    // These callbacks run at flush, so a change that is rolled back never reaches the catalog
+    private void afterCommit(Consumer<StationCatalog> change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            stationCatalog.ifAvailable(change);
+            return;
+        }
+
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                stationCatalog.ifAvailable(change);
+            }
+        });
+    }
+}
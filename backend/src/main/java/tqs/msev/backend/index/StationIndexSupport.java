@@ -0,0 +1,45 @@
+package tqs.msev.backend.index;
+
+import tqs.msev.backend.entity.Station;
+
+import java.text.Normalizer;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.regex.Pattern;
+
+public abstract class StationIndexSupport<T> {
+    private static final Pattern DIACRITICS = Pattern.compile("\\p{M}+");
+
+    private final StationCatalog stationCatalog;
+    private volatile Snapshot<T> snapshot;
+
+    protected StationIndexSupport(StationCatalog stationCatalog) {
+        this.stationCatalog = stationCatalog;
+    }
+
+    protected T snapshot() {
+        long version = stationCatalog.getVersion();
+        Snapshot<T> current = snapshot;
+
+        if (current != null && current.version() == version)
+            return current.value();
+
+        synchronized (this) {
+            current = snapshot;
+            if (current != null && current.version() == version)
+                return current.value();
+
+            T value = build(stationCatalog.getStations());
+            snapshot = new Snapshot<>(version, value);
+            return value;
+        }
+    }
+
+    protected abstract T build(Collection<Station> stations);
+
+    static String normalize(String text) {
+        return DIACRITICS.matcher(Normalizer.normalize(text, Normalizer.Form.NFD)).replaceAll("").toLowerCase(Locale.ROOT);
+    }
+
+    private record Snapshot<T>(long version, T value) {}
+}
@@ -0,0 +1,58 @@
+package tqs.msev.backend.index;
+
+import org.springframework.stereotype.Component;
+import tqs.msev.backend.entity.Station;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+
+@Component
+public class StationNameIndex extends StationIndexSupport<StationNameIndex.Entry[]> {
+    public StationNameIndex(StationCatalog stationCatalog) {
+        super(stationCatalog);
+    }
+
+    public List<Station> findByPrefix(String prefix, int limit) {
+        Entry[] entries = snapshot();
+        String normalized = normalize(prefix);
+        List<Station> result = new ArrayList<>();
+
+        for (int i = lowerBound(entries, normalized); i < entries.length && result.size() < limit; i++) {
+            if (!entries[i].name().startsWith(normalized)) break;
+
+            result.add(entries[i].station());
+        }
+
+        return result;
+    }
+
+    @Override
+    protected Entry[] build(Collection<Station> stations) {
+        Entry[] entries = stations.stream()
+                .map(station -> new Entry(normalize(station.getName()), station))
+                .toArray(Entry[]::new);
+
+        Arrays.sort(entries, Comparator.comparing(Entry::name));
+
+        return entries;
+    }
+
+    private static int lowerBound(Entry[] entries, String key) {
+        int low = 0;
+        int high = entries.length;
+
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+
+            if (entries[mid].name().compareTo(key) < 0) low = mid + 1;
+            else high = mid;
+        }
+
+        return low;
+    }
+
+    record Entry(String name, Station station) {}
+}
@@ -0,0 +1,242 @@
+package tqs.msev.backend.index;
+
+import org.springframework.stereotype.Component;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.util.Util;
+
+import java.util.*;
+
+@Component
+public class StationSpatialIndex extends StationIndexSupport<StationSpatialIndex.Grid> {
+    static final double CELL_SIZE_DEGREES = 0.25;
+    private static final int LAT_CELLS = (int) Math.round(180 / CELL_SIZE_DEGREES);
+    private static final int LON_CELLS = (int) Math.round(360 / CELL_SIZE_DEGREES);
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    public StationSpatialIndex(StationCatalog stationCatalog) {
+        super(stationCatalog);
+    }
+
+    public List<Station> nearest(double lat, double lon, int limit) {
+        return nearest(lat, lon, limit, Double.POSITIVE_INFINITY);
+    }
+
+    public List<Station> withinRadius(double lat, double lon, double radiusKm) {
+        return nearest(lat, lon, Integer.MAX_VALUE, radiusKm);
+    }
+
+    public List<Station> nearest(double lat, double lon, int limit, double maxDistanceKm) {
+        Grid grid = snapshot();
+
+        if (limit <= 0 || grid.size == 0) return List.of();
+        if (limit >= grid.size && maxDistanceKm == Double.POSITIVE_INFINITY)
+            return sortByDistance(grid.cells.values(), lat, lon);
+
+        int capacity = Math.min(limit, grid.size);
+        PriorityQueue<Candidate> heap = new PriorityQueue<>(capacity, Comparator.comparingDouble(Candidate::distance).reversed());
+        int centerLat = latIndex(lat);
+        int centerLon = lonIndex(lon);
+
+        for (int ring = 0; ; ring++) {
+            int blockCells = (2 * ring + 1) * (2 * ring + 1);
+
+            if (blockCells > 2 * grid.cells.size() || 2 * ring + 1 >= LON_CELLS) {
+                // The rings now cover more cells than actually hold stations, so checking every occupied cell is cheaper
+                heap.clear();
+                scanAllCells(grid, lat, lon, capacity, maxDistanceKm, heap);
+                break;
+            }
+
+            visitRing(grid, centerLat, centerLon, ring, lat, lon, capacity, maxDistanceKm, heap);
+
+            double outside = distanceOutsideBlock(lat, lon, centerLat, centerLon, ring);
+
+            if (outside > maxDistanceKm || (heap.size() == capacity && heap.peek().distance() <= outside))
+                break;
+        }
+
+        return drain(heap);
+    }
+
+    public List<Station> withinBounds(double minLat, double minLon, double maxLat, double maxLon) {
+        Grid grid = snapshot();
+        boolean wraps = minLon > maxLon;
+
+        int southIdx = latIndex(minLat);
+        int northIdx = latIndex(maxLat);
+        int westIdx = boundLonIndex(minLon);
+        int eastIdx = boundLonIndex(maxLon);
+        int lonCount = wraps ? LON_CELLS - westIdx + eastIdx + 1 : eastIdx - westIdx + 1;
+
+        List<Station> result = new ArrayList<>();
+
+        if ((long) (northIdx - southIdx + 1) * lonCount > grid.cells.size()) {
+            for (Station[] cell : grid.cells.values())
+                addInsideBounds(cell, minLat, minLon, maxLat, maxLon, result);
+
+            return result;
+        }
+
+        for (int latIdx = southIdx; latIdx <= northIdx; latIdx++) {
+            for (int i = 0; i < lonCount; i++) {
+                Station[] cell = grid.cells.get(cellKey(latIdx, (westIdx + i) % LON_CELLS));
+
+                if (cell != null) addInsideBounds(cell, minLat, minLon, maxLat, maxLon, result);
+            }
+        }
+
+        return result;
+    }
+
+    @Override
+    protected Grid build(Collection<Station> stations) {
+        Map<Long, List<Station>> cells = new HashMap<>();
+
+        for (Station station : stations) {
+            cells.computeIfAbsent(cellKey(latIndex(station.getLatitude()), lonIndex(station.getLongitude())),
+                    key -> new ArrayList<>()).add(station);
+        }
+
+        Map<Long, Station[]> grid = new HashMap<>(cells.size() * 2);
+        cells.forEach((key, list) -> grid.put(key, list.toArray(Station[]::new)));
+
+        return new Grid(grid, stations.size());
+    }
+
+    private void visitRing(Grid grid, int centerLat, int centerLon, int ring, double lat, double lon, int limit,
+                           double maxDistanceKm, PriorityQueue<Candidate> heap) {
+        for (int dLat = -ring; dLat <= ring; dLat++) {
+            int latIdx = centerLat + dLat;
+            if (latIdx < 0 || latIdx >= LAT_CELLS) continue;
+
+            // Only the border of the block is new in this ring
+            int step = Math.abs(dLat) == ring ? 1 : 2 * ring;
+
+            for (int dLon = -ring; dLon <= ring; dLon += step) {
+                Station[] cell = grid.cells.get(cellKey(latIdx, Math.floorMod(centerLon + dLon, LON_CELLS)));
+
+                if (cell != null) offerAll(cell, lat, lon, limit, maxDistanceKm, heap);
+            }
+        }
+    }
+
+    private void scanAllCells(Grid grid, double lat, double lon, int limit, double maxDistanceKm, PriorityQueue<Candidate> heap) {
+        for (Map.Entry<Long, Station[]> entry : grid.cells.entrySet()) {
+            int latIdx = (int) (entry.getKey() / LON_CELLS);
+            int lonIdx = (int) (entry.getKey() % LON_CELLS);
+            double cellDistance = distanceToCell(lat, lon, latIdx, lonIdx);
+
+            if (cellDistance > maxDistanceKm || (heap.size() == limit && heap.peek().distance() <= cellDistance))
+                continue;
+
+            offerAll(entry.getValue(), lat, lon, limit, maxDistanceKm, heap);
+        }
+    }
+
+    private static void offerAll(Station[] stations, double lat, double lon, int limit, double maxDistanceKm,
+                                 PriorityQueue<Candidate> heap) {
+        for (Station station : stations) {
+            double distance = Util.distanceBetweenCoordinates(lat, lon, station.getLatitude(), station.getLongitude());
+
+            if (distance > maxDistanceKm) continue;
+
+            if (heap.size() < limit) {
+                heap.add(new Candidate(station, distance));
+            } else if (distance < heap.peek().distance()) {
+                heap.poll();
+                heap.add(new Candidate(station, distance));
+            }
+        }
+    }
+
+    private static void addInsideBounds(Station[] stations, double minLat, double minLon, double maxLat, double maxLon,
+                                        List<Station> result) {
+        for (Station station : stations) {
+            double lat = station.getLatitude();
+            double lon = station.getLongitude();
+            boolean insideLon = minLon <= maxLon ? lon >= minLon && lon <= maxLon : lon >= minLon || lon <= maxLon;
+
+            if (lat >= minLat && lat <= maxLat && insideLon) result.add(station);
+        }
+    }
+
+    private static List<Station> drain(PriorityQueue<Candidate> heap) {
+        Candidate[] candidates = heap.toArray(Candidate[]::new);
+        Arrays.sort(candidates, Comparator.comparingDouble(Candidate::distance));
+
+        return Arrays.stream(candidates).map(Candidate::station).toList();
+    }
+
+    private static List<Station> sortByDistance(Collection<Station[]> cells, double lat, double lon) {
+        return cells.stream()
+                .flatMap(Arrays::stream)
+                .map(station -> new Candidate(station,
+                        Util.distanceBetweenCoordinates(lat, lon, station.getLatitude(), station.getLongitude())))
+                .sorted(Comparator.comparingDouble(Candidate::distance))
+                .map(Candidate::station)
+                .toList();
+    }
+
+    // Lower bound for the distance between the point and any point outside the block of cells covered so far
+    private static double distanceOutsideBlock(double lat, double lon, int centerLat, int centerLon, int ring) {
+        double south = (centerLat - ring) * CELL_SIZE_DEGREES - 90;
+        double north = (centerLat + ring + 1) * CELL_SIZE_DEGREES - 90;
+        double west = (centerLon - ring) * CELL_SIZE_DEGREES - 180;
+        double east = (centerLon + ring + 1) * CELL_SIZE_DEGREES - 180;
+
+        double bound = Double.POSITIVE_INFINITY;
+
+        if (south > -90) bound = Math.min(bound, latitudeDistance(lat - south));
+        if (north < 90) bound = Math.min(bound, latitudeDistance(north - lat));
+        bound = Math.min(bound, longitudeDistance(lat, Math.min(lon - west, east - lon)));
+
+        return bound;
+    }
+
+    // Lower bound for the distance between the point and any point inside the cell
+    private static double distanceToCell(double lat, double lon, int latIdx, int lonIdx) {
+        double south = latIdx * CELL_SIZE_DEGREES - 90;
+        double north = south + CELL_SIZE_DEGREES;
+        double center = lonIdx * CELL_SIZE_DEGREES - 180 + CELL_SIZE_DEGREES / 2;
+
+        double latGap = lat < south ? south - lat : Math.max(0, lat - north);
+        double lonDiff = Math.abs(((lon - center) % 360 + 540) % 360 - 180);
+        double lonGap = Math.max(0, lonDiff - CELL_SIZE_DEGREES / 2);
+
+        return Math.max(latitudeDistance(latGap), longitudeDistance(lat, lonGap));
+    }
+
+    private static double latitudeDistance(double degrees) {
+        return EARTH_RADIUS_KM * Math.toRadians(Math.max(0, degrees));
+    }
+
+    // Distance from the point to the meridian that is the given number of degrees away, which is monotonic up to 90 degrees
+    private static double longitudeDistance(double lat, double degrees) {
+        if (degrees >= 180) return Double.POSITIVE_INFINITY;
+
+        double delta = Math.toRadians(Math.min(Math.max(0, degrees), 90));
+        return EARTH_RADIUS_KM * Math.asin(Math.cos(Math.toRadians(lat)) * Math.sin(delta));
+    }
+
+    private static int latIndex(double lat) {
+        int index = (int) Math.floor((lat + 90) / CELL_SIZE_DEGREES);
+        return Math.min(Math.max(index, 0), LAT_CELLS - 1);
+    }
+
+    private static int lonIndex(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / CELL_SIZE_DEGREES), LON_CELLS);
+    }
+
+    private static int boundLonIndex(double lon) {
+        int index = (int) Math.floor((lon + 180) / CELL_SIZE_DEGREES);
+        return Math.min(Math.max(index, 0), LON_CELLS - 1);
+    }
+
+    private static long cellKey(int latIdx, int lonIdx) {
+        return (long) latIdx * LON_CELLS + lonIdx;
+    }
+
+    record Grid(Map<Long, Station[]> cells, int size) {}
+
+    private record Candidate(Station station, double distance) {}
+}
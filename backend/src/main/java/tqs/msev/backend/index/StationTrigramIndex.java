@@ -0,0 +1,109 @@
+package tqs.msev.backend.index;
+
+import org.springframework.stereotype.Component;
+import tqs.msev.backend.entity.Station;
+
+import java.util.*;
+
+@Component
+public class StationTrigramIndex extends StationIndexSupport<StationTrigramIndex.Trigrams> {
+    static final double MIN_SIMILARITY = 0.3;
+    // An address hit is weaker evidence than a name hit
+    private static final double ADDRESS_WEIGHT = 0.8;
+    private static final int MAX_QUERY_TRIGRAMS = 32;
+    private static final int[] NO_POSTINGS = new int[0];
+
+    public StationTrigramIndex(StationCatalog stationCatalog) {
+        super(stationCatalog);
+    }
+
+    public List<Station> search(String query, int limit) {
+        Trigrams index = snapshot();
+        List<String> queryTrigrams = trigrams(normalize(query)).stream().limit(MAX_QUERY_TRIGRAMS).toList();
+
+        if (limit <= 0 || queryTrigrams.isEmpty() || index.stations.length == 0) return List.of();
+
+        int[] nameHits = new int[index.stations.length];
+        int[] addressHits = new int[index.stations.length];
+        int[] touched = new int[index.stations.length];
+        int touchedCount = 0;
+
+        for (String trigram : queryTrigrams) {
+            for (int doc : index.name.getOrDefault(trigram, NO_POSTINGS)) {
+                if (nameHits[doc]++ == 0 && addressHits[doc] == 0) touched[touchedCount++] = doc;
+            }
+
+            for (int doc : index.address.getOrDefault(trigram, NO_POSTINGS)) {
+                if (addressHits[doc]++ == 0 && nameHits[doc] == 0) touched[touchedCount++] = doc;
+            }
+        }
+
+        Comparator<Match> ranking = Comparator.comparingDouble(Match::score)
+                .thenComparing(match -> match.station().getName(), Comparator.reverseOrder());
+        PriorityQueue<Match> heap = new PriorityQueue<>(ranking);
+
+        for (int i = 0; i < touchedCount; i++) {
+            int doc = touched[i];
+            double nameScore = (double) nameHits[doc] / (queryTrigrams.size() + index.nameSizes[doc] - nameHits[doc]);
+            double addressScore = ADDRESS_WEIGHT * addressHits[doc] / queryTrigrams.size();
+            double score = Math.max(nameScore, addressScore);
+
+            if (score < MIN_SIMILARITY) continue;
+
+            heap.add(new Match(index.stations[doc], score));
+            if (heap.size() > limit) heap.poll();
+        }
+
+        Match[] matches = heap.toArray(Match[]::new);
+        Arrays.sort(matches, ranking.reversed());
+
+        return Arrays.stream(matches).map(Match::station).toList();
+    }
+
+    @Override
+    protected Trigrams build(Collection<Station> stations) {
+        Station[] docs = stations.toArray(Station[]::new);
+        int[] nameSizes = new int[docs.length];
+        Map<String, List<Integer>> name = new HashMap<>();
+        Map<String, List<Integer>> address = new HashMap<>();
+
+        for (int doc = 0; doc < docs.length; doc++) {
+            Set<String> nameTrigrams = trigrams(normalize(docs[doc].getName()));
+            nameSizes[doc] = nameTrigrams.size();
+
+            for (String trigram : nameTrigrams)
+                name.computeIfAbsent(trigram, key -> new ArrayList<>()).add(doc);
+
+            for (String trigram : trigrams(normalize(docs[doc].getAddress())))
+                address.computeIfAbsent(trigram, key -> new ArrayList<>()).add(doc);
+        }
+
+        return new Trigrams(docs, nameSizes, toPostings(name), toPostings(address));
+    }
+
+    // Same padding as pg_trgm, so word starts weigh more than word middles
+    static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+
+        for (String word : text.split("[^\\p{L}\\p{N}]+")) {
+            if (word.isEmpty()) continue;
+
+            String padded = "  " + word + " ";
+            for (int i = 0; i + 3 <= padded.length(); i++)
+                trigrams.add(padded.substring(i, i + 3));
+        }
+
+        return trigrams;
+    }
+
+    private static Map<String, int[]> toPostings(Map<String, List<Integer>> lists) {
+        Map<String, int[]> postings = new HashMap<>(lists.size() * 2);
+        lists.forEach((trigram, docs) -> postings.put(trigram, docs.stream().mapToInt(Integer::intValue).toArray()));
+
+        return postings;
+    }
+
+    record Trigrams(Station[] stations, int[] nameSizes, Map<String, int[]> name, Map<String, int[]> address) {}
+
+    private record Match(Station station, double score) {}
+}
@@ -0,0 +1,174 @@
+package tqs.msev.backend.index;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataAccessException;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.msev.backend.dto.ChargeSessionEvent;
+import tqs.msev.backend.dto.ChargerReading;
+import tqs.msev.backend.entity.ChargeSession;
+import tqs.msev.backend.repository.ChargeSessionRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+@Slf4j
+@Component
+public class TelemetryBuffer implements MeterBinder {
+    private final ChargeSessionRepository chargeSessionRepository;
+    private final ChargerStatusTable chargerStatusTable;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final int batchSize;
+    private final int maxReadings;
+    private final Duration maxClockSkew;
+    // Newest reading per known charger; a session only keeps its latest figures, so this is what gets read and written
+    private final Map<UUID, ChargerReading> latest = new ConcurrentHashMap<>();
+    // Chargers with a reading newer than the last flush, so the buffer is never larger than the number of chargers
+    private final Set<UUID> dirty = ConcurrentHashMap.newKeySet();
+
+    private volatile Counter rejectedCounter;
+
+    public TelemetryBuffer(ChargeSessionRepository chargeSessionRepository, ChargerStatusTable chargerStatusTable,
+                           TransactionTemplate transactionTemplate, ApplicationEventPublisher eventPublisher,
+                           @Value("${telemetry.batch-size:1000}") int batchSize,
+                           @Value("${telemetry.max-readings:1000}") int maxReadings,
+                           @Value("${telemetry.max-clock-skew:5s}") Duration maxClockSkew) {
+        this.chargeSessionRepository = chargeSessionRepository;
+        this.chargerStatusTable = chargerStatusTable;
+        this.transactionTemplate = transactionTemplate;
+        this.eventPublisher = eventPublisher;
+        this.batchSize = batchSize;
+        this.maxReadings = maxReadings;
+        this.maxClockSkew = maxClockSkew;
+    }
+
+    // Readings are cumulative, so only the newest per charger is kept until the next flush
+    public void ingest(Collection<ChargerReading> readings) {
+        if (readings.size() > maxReadings)
+            throw rejected(readings.size(), "At most " + maxReadings + " readings can be sent at once");
+
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime latestAllowed = now.plus(maxClockSkew);
+
+        for (ChargerReading reading : readings) {
+            check(reading, now);
+
+            if (reading.getTimestamp().isAfter(latestAllowed))
+                throw rejected(readings.size(), "Reading timestamps cannot be in the future");
+        }
+
+        Set<UUID> unknown = chargerStatusTable.unknownOf(readings.stream().map(ChargerReading::getChargerId).toList());
+        if (!unknown.isEmpty())
+            throw rejected(readings.size(), "Unknown charger ids: " + unknown);
+
+        for (ChargerReading reading : readings) {
+            latest.merge(reading.getChargerId(), reading,
+                    (current, next) -> next.getTimestamp().isBefore(current.getTimestamp()) ? current : next);
+            dirty.add(reading.getChargerId());
+        }
+    }
+
+    public void forget(UUID chargerId) {
+        latest.remove(chargerId);
+        dirty.remove(chargerId);
+    }
+
+    // Copies the newest reading taken during the session onto it; false when there is none or nothing changed
+    public boolean apply(UUID chargerId, ChargeSession session) {
+        ChargerReading reading = latest.get(chargerId);
+        if (reading == null || reading.getTimestamp().isBefore(session.getStartTimestamp())) return false;
+
+        if (reading.getConsumption() == session.getConsumption() && reading.getChargingSpeed() == session.getChargingSpeed())
+            return false;
+
+        session.setConsumption(reading.getConsumption());
+        session.setChargingSpeed(reading.getChargingSpeed());
+        return true;
+    }
+
+    // Each batch of chargers is one select and one batched update, however many readings they sent since the last flush
+    @Scheduled(fixedDelayString = "${telemetry.flush-interval:1s}")
+    public int flush() {
+        if (dirty.isEmpty()) return 0;
+
+        List<UUID> chargerIds = new ArrayList<>();
+        for (Iterator<UUID> iterator = dirty.iterator(); iterator.hasNext(); ) {
+            chargerIds.add(iterator.next());
+            iterator.remove();
+        }
+
+        int written = 0;
+        for (int from = 0; from < chargerIds.size(); from += batchSize) {
+            List<UUID> batch = chargerIds.subList(from, Math.min(from + batchSize, chargerIds.size()));
+
+            try {
+                Integer count = transactionTemplate.execute(tx -> write(batch));
+                written += count != null ? count : 0;
+            } catch (DataAccessException e) {
+                // Written again on the next flush, with whatever reading is newest by then
+                dirty.addAll(batch);
+                log.warn("Could not write the readings of {} chargers", batch.size(), e);
+            }
+        }
+
+        return written;
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        rejectedCounter = Counter.builder("telemetry.readings.rejected")
+                .description("Charger readings turned away as invalid").register(registry);
+        Gauge.builder("telemetry.readings.pending", dirty, Collection::size)
+                .description("Chargers with a reading waiting to be written").register(registry);
+    }
+
+    @PreDestroy
+    public void close() {
+        flush();
+    }
+
+    private int write(List<UUID> chargerIds) {
+        int written = 0;
+
+        for (ChargeSession session : chargeSessionRepository.findOpenByChargerIds(chargerIds)) {
+            UUID chargerId = session.getCharger().getId();
+
+            if (apply(chargerId, session)) {
+                written++;
+                eventPublisher.publishEvent(ChargeSessionEvent.of(chargerId, session));
+            }
+        }
+
+        return written;
+    }
+
+    private IllegalArgumentException rejected(int readings, String message) {
+        Counter counter = rejectedCounter;
+        if (counter != null) counter.increment(readings);
+
+        return new IllegalArgumentException(message);
+    }
+
+    private void check(ChargerReading reading, LocalDateTime now) {
+        if (reading.getChargerId() == null)
+            throw new IllegalArgumentException("Every reading needs a charger id");
+
+        if (reading.getConsumption() < 0 || reading.getChargingSpeed() < 0)
+            throw new IllegalArgumentException("Consumption and charging speed must be non-negative");
+
+        if (reading.getTimestamp() == null)
+            reading.setTimestamp(now);
+    }
+}
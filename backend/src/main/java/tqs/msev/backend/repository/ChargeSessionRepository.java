@@ -1,16 +1,77 @@
 package tqs.msev.backend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import tqs.msev.backend.entity.ChargeSession;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface ChargeSessionRepository extends JpaRepository<ChargeSession, UUID> {
     ChargeSession findByChargerIdAndEndTimestamp(UUID chargerId, LocalDateTime endTimestamp);
+    boolean existsByChargerIdAndEndTimestampIsNull(UUID chargerId);
     List<ChargeSession> findAllByUserId(UUID userId);
     List<ChargeSession> findAllByChargerId(UUID chargerId);
+    List<ChargeSession> findAllByChargerStationIdAndEndTimestampIsNotNull(UUID stationId);
+    long countByEndTimestampIsNotNull();
+
+    // Pages are keyed on the start time and the id, so they come in chronological order
+    @Query("""
+            SELECT s FROM ChargeSession s
+            WHERE s.user.id = :userId
+                AND (s.startTimestamp > :afterStart OR (s.startTimestamp = :afterStart AND s.id > :afterId))
+            ORDER BY s.startTimestamp, s.id
+            """)
+    List<ChargeSession> findPageByUserId(UUID userId, LocalDateTime afterStart, UUID afterId, Limit limit);
+
+    @Query("""
+            SELECT s FROM ChargeSession s
+            WHERE s.user.id = :userId AND s.endTimestamp IS NULL
+                AND (s.startTimestamp > :afterStart OR (s.startTimestamp = :afterStart AND s.id > :afterId))
+            ORDER BY s.startTimestamp, s.id
+            """)
+    List<ChargeSession> findOpenPageByUserId(UUID userId, LocalDateTime afterStart, UUID afterId, Limit limit);
+
+    @Query("""
+            SELECT s FROM ChargeSession s
+            WHERE s.charger.id = :chargerId AND s.endTimestamp IS NOT NULL
+                AND (s.startTimestamp > :afterStart OR (s.startTimestamp = :afterStart AND s.id > :afterId))
+            ORDER BY s.startTimestamp, s.id
+            """)
+    List<ChargeSession> findClosedPageByChargerId(UUID chargerId, LocalDateTime afterStart, UUID afterId, Limit limit);
+
+    @Query("""
+            SELECT s FROM ChargeSession s
+            WHERE s.charger.station.id = :stationId AND s.endTimestamp IS NOT NULL
+                AND (s.startTimestamp > :afterStart OR (s.startTimestamp = :afterStart AND s.id > :afterId))
+            ORDER BY s.startTimestamp, s.id
+            """)
+    List<ChargeSession> findClosedPageByStationId(UUID stationId, LocalDateTime afterStart, UUID afterId, Limit limit);
+
+    // Fetched in one statement, rather than a select per session for its charger and user
+    @Query("SELECT s FROM ChargeSession s JOIN FETCH s.charger JOIN FETCH s.user WHERE s.charger.id IN :chargerIds AND s.endTimestamp IS NULL")
+    List<ChargeSession> findOpenByChargerIds(Collection<UUID> chargerIds);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    Stream<ChargeSession> streamByUserId(UUID userId);
+
+    // The charger and its station are fetched with the session, the rollups need the price and the station id
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    @Query("SELECT s FROM ChargeSession s JOIN FETCH s.charger c JOIN FETCH c.station WHERE s.endTimestamp IS NOT NULL")
+    Stream<ChargeSession> streamClosed();
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    Stream<ChargeSession> streamByChargerIdAndEndTimestampIsNotNull(UUID chargerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    Stream<ChargeSession> streamByChargerStationIdAndEndTimestampIsNotNull(UUID stationId);
 }
@@ -0,0 +1,42 @@
+package tqs.msev.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import tqs.msev.backend.dto.SessionTotals;
+import tqs.msev.backend.entity.ChargeSessionRollup;
+
+import java.time.LocalDateTime;
+import java.util.UUID;
+
+@Repository
+public interface ChargeSessionRollupRepository extends JpaRepository<ChargeSessionRollup, UUID> {
+    @Query("SELECT COALESCE(SUM(r.sessions), 0) FROM ChargeSessionRollup r WHERE r.granularity = :granularity")
+    long sumSessions(ChargeSessionRollup.Granularity granularity);
+
+    @Query("""
+            SELECT new tqs.msev.backend.dto.SessionTotals(
+                COALESCE(SUM(r.sessions), 0),
+                COALESCE(SUM(r.energy), 0),
+                COALESCE(SUM(r.revenue), 0),
+                COALESCE(SUM(r.busySeconds), 0))
+            FROM ChargeSessionRollup r
+            WHERE r.stationId = :stationId
+                AND r.granularity = :granularity
+                AND r.bucketStart >= :from AND r.bucketStart < :to
+            """)
+    SessionTotals sumByStation(UUID stationId, ChargeSessionRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
+
+    @Query("""
+            SELECT new tqs.msev.backend.dto.SessionTotals(
+                COALESCE(SUM(r.sessions), 0),
+                COALESCE(SUM(r.energy), 0),
+                COALESCE(SUM(r.revenue), 0),
+                COALESCE(SUM(r.busySeconds), 0))
+            FROM ChargeSessionRollup r
+            WHERE r.chargerId = :chargerId
+                AND r.granularity = :granularity
+                AND r.bucketStart >= :from AND r.bucketStart < :to
+            """)
+    SessionTotals sumByCharger(UUID chargerId, ChargeSessionRollup.Granularity granularity, LocalDateTime from, LocalDateTime to);
+}
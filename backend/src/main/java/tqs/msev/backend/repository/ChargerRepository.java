@@ -1,12 +1,32 @@
 package tqs.msev.backend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import tqs.msev.backend.entity.Charger;
+import java.util.Collection;
 import java.util.List;
 import java.util.UUID;
 
 @Repository
 public interface ChargerRepository extends JpaRepository<Charger, UUID> {
     List<Charger> findByStationId(UUID stationId);
+    List<Charger> findByStationIdAndIdGreaterThanOrderByIdAsc(UUID stationId, UUID after, Limit limit);
+    long countByStationId(UUID stationId);
+
+    @Modifying
+    @Query("UPDATE Charger c SET c.status = :status WHERE c.id IN :ids")
+    int updateStatus(Collection<UUID> ids, Charger.ChargerStatus status);
+
+    // Repairs chargers left available by a status write lost after their session had been committed
+    @Modifying
+    @Query("UPDATE Charger c SET c.status = tqs.msev.backend.entity.Charger.ChargerStatus.IN_USE " +
+            "WHERE c.status = tqs.msev.backend.entity.Charger.ChargerStatus.AVAILABLE " +
+            "AND EXISTS (SELECT s.id FROM ChargeSession s WHERE s.charger = c AND s.endTimestamp IS NULL)")
+    int markInUseWithOpenSession();
 }
\ No newline at end of file
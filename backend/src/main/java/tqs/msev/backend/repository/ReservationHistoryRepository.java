@@ -0,0 +1,25 @@
+package tqs.msev.backend.repository;
+
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+import tqs.msev.backend.entity.ReservationHistory;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+@Repository
+public interface ReservationHistoryRepository extends JpaRepository<ReservationHistory, UUID> {
+    List<ReservationHistory> findByUserId(UUID userId);
+
+    @Modifying
+    @Query("""
+            INSERT INTO ReservationHistory (id, userId, chargerId, startTimestamp, endTimestamp, used, archivedAt)
+            SELECT r.id, r.user.id, r.charger.id, r.startTimestamp, r.endTimestamp, r.used, :archivedAt
+            FROM Reservation r
+            WHERE r.endTimestamp < :cutoff
+            """)
+    int copyEndedBefore(LocalDateTime cutoff, LocalDateTime archivedAt);
+}
@@ -1,16 +1,66 @@
 package tqs.msev.backend.repository;
 
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import tqs.msev.backend.entity.Reservation;
 
 import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.UUID;
 import java.util.List;
+import java.util.stream.Stream;
 
 @Repository
 public interface ReservationRepository extends JpaRepository<Reservation, UUID> {
     List<Reservation> findByChargerId(UUID chargerId);
     List<Reservation> findByUserId(UUID userId);
+    List<Reservation> findByChargerIdAndStartTimestampAfterAndStartTimestampBeforeOrderByStartTimestampAsc(UUID chargerId, LocalDateTime from, LocalDateTime to);
+    List<Reservation> findByChargerIdAndEndTimestampAfter(UUID chargerId, LocalDateTime endTimestamp);
+    // Served by the (charger_id, start_timestamp) index, as the reservations overlapping a range on a charger
+    List<Reservation> findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(UUID chargerId, LocalDateTime end, LocalDateTime start);
+    List<Reservation> findByChargerIdInAndStartTimestampBeforeAndEndTimestampAfter(Collection<UUID> chargerIds, LocalDateTime end, LocalDateTime start);
+    List<Reservation> findByEndTimestampAfter(LocalDateTime endTimestamp);
+    List<Reservation> findByUsedFalseAndEndTimestampAfter(LocalDateTime endTimestamp);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<Reservation> findLockedByIdInAndUsedFalse(Collection<UUID> ids);
+
+    @Modifying
+    @Query("DELETE FROM Reservation r WHERE r.endTimestamp < :cutoff")
+    int deleteEndedBefore(LocalDateTime cutoff);
     Reservation findByUserIdAndStartTimestampBeforeAndEndTimestampAfter(UUID userId, LocalDateTime startTimestampBefore, LocalDateTime endTimestampAfter);
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Reservation findLockedByUserIdAndStartTimestampBeforeAndEndTimestampAfter(UUID userId, LocalDateTime startTimestampBefore, LocalDateTime endTimestampAfter);
+
+    // Pages are keyed on the start time and the id, so they come in chronological order
+    @Query("""
+            SELECT r FROM Reservation r
+            WHERE r.charger.id = :chargerId
+                AND (r.startTimestamp > :afterStart OR (r.startTimestamp = :afterStart AND r.id > :afterId))
+            ORDER BY r.startTimestamp, r.id
+            """)
+    List<Reservation> findPageByChargerId(UUID chargerId, LocalDateTime afterStart, UUID afterId, Limit limit);
+
+    @Query("""
+            SELECT r FROM Reservation r
+            WHERE r.user.id = :userId
+                AND (r.startTimestamp > :afterStart OR (r.startTimestamp = :afterStart AND r.id > :afterId))
+            ORDER BY r.startTimestamp, r.id
+            """)
+    List<Reservation> findPageByUserId(UUID userId, LocalDateTime afterStart, UUID afterId, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    Stream<Reservation> streamByChargerId(UUID chargerId);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    Stream<Reservation> streamByUserId(UUID userId);
 }
\ No newline at end of file
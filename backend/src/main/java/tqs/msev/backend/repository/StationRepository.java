@@ -1,11 +1,21 @@
 package tqs.msev.backend.repository;
 
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 import tqs.msev.backend.entity.Station;
 
+import java.util.List;
 import java.util.UUID;
+import java.util.stream.Stream;
 
 @Repository
 public interface StationRepository extends JpaRepository<Station, UUID> {
+    List<Station> findByIdGreaterThanOrderByIdAsc(UUID after, Limit limit);
+
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "256"))
+    Stream<Station> streamAllBy();
 }
@@ -2,7 +2,7 @@ package tqs.msev.backend.seed;
 
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Component;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.entity.Station;
@@ -18,16 +18,16 @@ public class Init implements CommandLineRunner {
     private final StationRepository stationRepository;
     private final ChargerRepository chargerRepository;
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder bCryptPasswordEncoder;
+    private final PasswordEncoder passwordEncoder;
 
     @Value("${operator.password}")
     private String operatorPassword;
 
-    public Init(StationRepository stationRepository, ChargerRepository chargerRepository, UserRepository userRepository, BCryptPasswordEncoder bCryptPasswordEncoder) {
+    public Init(StationRepository stationRepository, ChargerRepository chargerRepository, UserRepository userRepository, PasswordEncoder passwordEncoder) {
         this.stationRepository = stationRepository;
         this.chargerRepository = chargerRepository;
         this.userRepository = userRepository;
-        this.bCryptPasswordEncoder = bCryptPasswordEncoder;
+        this.passwordEncoder = passwordEncoder;
     }
 
     @Override
@@ -36,7 +36,7 @@ public class Init implements CommandLineRunner {
             User user = User.builder()
                     .name("Mr. Operator")
                     .email("operator@gmail.com")
-                    .password(bCryptPasswordEncoder.encode(operatorPassword))
+                    .password(passwordEncoder.encode(operatorPassword))
                     .isOperator(true)
                     .build();
 
@@ -47,7 +47,7 @@ public class Init implements CommandLineRunner {
             User user = User.builder()
                     .name("Test User")
                     .email("test_user@gmail.com")
-                    .password(bCryptPasswordEncoder.encode(operatorPassword))
+                    .password(passwordEncoder.encode(operatorPassword))
                     .isOperator(false)
                     .build();
 
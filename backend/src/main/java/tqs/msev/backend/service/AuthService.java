@@ -1,8 +1,9 @@
 package tqs.msev.backend.service;
 
 import org.springframework.security.authentication.AuthenticationManager;
+import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
 import tqs.msev.backend.dto.LoginDTO;
 import tqs.msev.backend.dto.SignupDTO;
@@ -12,16 +13,21 @@ import tqs.msev.backend.repository.UserRepository;
 @Service
 public class AuthService {
     private final UserRepository userRepository;
-    private final BCryptPasswordEncoder passwordEncoder;
+    private final PasswordEncoder passwordEncoder;
     private final AuthenticationManager authenticationManager;
+    private final LoginThrottle loginThrottle;
 
-    public AuthService(UserRepository userRepository, BCryptPasswordEncoder passwordEncoder, AuthenticationManager authenticationManager) {
+    public AuthService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthenticationManager authenticationManager,
+                       LoginThrottle loginThrottle) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authenticationManager = authenticationManager;
+        this.loginThrottle = loginThrottle;
     }
 
-    public void createUser(SignupDTO dto) {
+    public void createUser(SignupDTO dto, String clientAddress) {
+        loginThrottle.checkAddress(clientAddress);
+
         String email = dto.getEmail();
         if (userRepository.existsUserByEmail(email)) {
             throw new IllegalArgumentException("A user with that email already exists!");
@@ -39,10 +45,17 @@ public class AuthService {
         userRepository.save(user);
     }
 
-    public User authenticate(LoginDTO dto){
-        authenticationManager.authenticate(
-                new UsernamePasswordAuthenticationToken(dto.getEmail(), dto.getPassword())
-        );
+    public User authenticate(LoginDTO dto, String clientAddress) {
+        loginThrottle.checkLogin(dto.getEmail(), clientAddress);
+
+        try {
+            authenticationManager.authenticate(
+                    new UsernamePasswordAuthenticationToken(dto.getEmail(), dto.getPassword())
+            );
+        } catch (BadCredentialsException e) {
+            loginThrottle.recordFailure(dto.getEmail());
+            throw e;
+        }
         return userRepository.findUserByEmail(dto.getEmail()).orElseThrow();
     }
 }
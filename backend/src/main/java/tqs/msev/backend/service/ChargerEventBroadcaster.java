@@ -0,0 +1,274 @@
+package tqs.msev.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.MediaType;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tqs.msev.backend.dto.ChargeSessionEvent;
+import tqs.msev.backend.dto.ChargerStatusEvent;
+import tqs.msev.backend.index.ChargerStatusTable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+@Slf4j
+@Service
+public class ChargerEventBroadcaster implements MeterBinder {
+    public static final String STATUS_EVENT = "status";
+    public static final String SESSION_EVENT = "session";
+
+    private final ObjectMapper objectMapper;
+    private final ChargerStatusTable chargerStatusTable;
+    private final long timeoutMillis;
+    private final int bufferSize;
+    private final Map<UUID, Set<Subscriber>> stationSubscribers = new ConcurrentHashMap<>();
+    private final Map<UUID, Set<Subscriber>> chargerSubscribers = new ConcurrentHashMap<>();
+    private final AtomicLong eventIds = new AtomicLong();
+    // Each subscriber is drained by at most one of these threads at a time, so its events stay in order
+    private final ThreadPoolExecutor dispatcher;
+
+    private volatile Counter evictedCounter;
+
+    public ChargerEventBroadcaster(ObjectMapper objectMapper, ChargerStatusTable chargerStatusTable,
+                                   @Value("${chargers.events.timeout:30m}") Duration timeout,
+                                   @Value("${chargers.events.threads:4}") int threads,
+                                   @Value("${chargers.events.queue-size:1024}") int queueSize,
+                                   @Value("${chargers.events.subscriber-buffer:64}") int bufferSize) {
+        this.objectMapper = objectMapper;
+        this.chargerStatusTable = chargerStatusTable;
+        this.timeoutMillis = timeout.toMillis();
+        this.bufferSize = bufferSize;
+        this.dispatcher = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "charger-events");
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    // The snapshot is taken after subscribing, so a change made in between is either in it or pushed afterwards;
+    // a change pushed afterwards that the snapshot already holds carries a lower sequence, for the client to drop
+    public SseEmitter subscribeToStation(UUID stationId, Supplier<Collection<ChargerStatusEvent>> snapshot) {
+        return subscribe(stationSubscribers, stationId, snapshot);
+    }
+
+    public SseEmitter subscribeToCharger(UUID chargerId, Supplier<Collection<ChargerStatusEvent>> snapshot) {
+        return subscribe(chargerSubscribers, chargerId, snapshot);
+    }
+
+    public int subscriberCount() {
+        return count(stationSubscribers) + count(chargerSubscribers);
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onStatusChange(ChargerStatusEvent event) {
+        dispatch(STATUS_EVENT, event, subscribersOf(chargerSubscribers, event.getChargerId()),
+                subscribersOf(stationSubscribers, event.getStationId()));
+    }
+
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onSessionUpdate(ChargeSessionEvent event) {
+        dispatch(SESSION_EVENT, event, subscribersOf(chargerSubscribers, event.getChargerId()),
+                subscribersOf(stationSubscribers, chargerStatusTable.stationOf(event.getChargerId())));
+    }
+
+    // Keeps idle streams open through proxies and finds the clients that went away without closing
+    @Scheduled(fixedDelayString = "${chargers.events.heartbeat-interval:15s}")
+    public void heartbeat() {
+        if (subscriberCount() == 0) return;
+
+        Set<ResponseBodyEmitter.DataWithMediaType> comment = SseEmitter.event().comment("heartbeat").build();
+        stationSubscribers.values().forEach(subscribers -> publish(subscribers, comment));
+        chargerSubscribers.values().forEach(subscribers -> publish(subscribers, comment));
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        evictedCounter = Counter.builder("chargers.events.evicted")
+                .description("Charger event subscribers dropped for falling behind").register(registry);
+        Gauge.builder("chargers.events.subscribers", this, ChargerEventBroadcaster::subscriberCount)
+                .description("Open charger and station event streams").register(registry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        dispatcher.shutdownNow();
+        stationSubscribers.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+        chargerSubscribers.values().forEach(subscribers -> subscribers.forEach(subscriber -> subscriber.emitter.complete()));
+    }
+
+    SseEmitter newEmitter() {
+        return new SseEmitter(timeoutMillis);
+    }
+
+    private SseEmitter subscribe(Map<UUID, Set<Subscriber>> subscribers, UUID key, Supplier<Collection<ChargerStatusEvent>> snapshot) {
+        Subscriber subscriber = new Subscriber(newEmitter(), bufferSize);
+        // Held until the snapshot is out, so nothing pushed meanwhile is sent before it
+        subscriber.draining.set(true);
+
+        subscribers.compute(key, (id, current) -> {
+            Set<Subscriber> set = current != null ? current : ConcurrentHashMap.newKeySet();
+            set.add(subscriber);
+            return set;
+        });
+
+        Runnable unsubscribe = () -> subscribers.computeIfPresent(key, (id, current) -> {
+            current.remove(subscriber);
+            return current.isEmpty() ? null : current;
+        });
+        subscriber.emitter.onCompletion(unsubscribe);
+        subscriber.emitter.onError(e -> unsubscribe.run());
+        subscriber.unsubscribe = unsubscribe;
+
+        try {
+            // Sent before the response starts, so these only fill the emitter's own buffer and never block
+            for (ChargerStatusEvent event : snapshot.get())
+                send(subscriber, build(STATUS_EVENT, event));
+        } catch (RuntimeException e) {
+            subscriber.close();
+            throw e;
+        }
+
+        subscriber.draining.set(false);
+        if (!subscriber.outbox.isEmpty() || subscriber.evicted.get()) schedule(subscriber);
+
+        return subscriber.emitter;
+    }
+
+    private void dispatch(String name, Object payload, Set<Subscriber> first, Set<Subscriber> second) {
+        if (first.isEmpty() && second.isEmpty()) return;
+
+        // Serialised and framed once, however many subscribers receive it
+        Set<ResponseBodyEmitter.DataWithMediaType> event = build(name, payload);
+
+        publish(first, event);
+        publish(second, event);
+    }
+
+    private void publish(Set<Subscriber> subscribers, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        for (Subscriber subscriber : subscribers) {
+            if (subscriber.outbox.offer(event)) {
+                schedule(subscriber);
+            } else {
+                evict(subscriber);
+            }
+        }
+    }
+
+    // A drain already running picks up what was just queued, so a subscriber never has two threads sending to it
+    private void schedule(Subscriber subscriber) {
+        if (!subscriber.draining.compareAndSet(false, true)) return;
+
+        try {
+            dispatcher.execute(() -> drain(subscriber));
+        } catch (RejectedExecutionException e) {
+            // An evicted subscriber gets no further event to schedule it again, and nothing is sending to it while this drain is held
+            if (subscriber.evicted.get()) {
+                subscriber.emitter.complete();
+                return;
+            }
+
+            // Left in the outbox for the next event or heartbeat to schedule again
+            subscriber.draining.set(false);
+            log.warn("Charger event dispatch queue is full, delaying events for a subscriber");
+        }
+    }
+
+    private void drain(Subscriber subscriber) {
+        do {
+            Set<ResponseBodyEmitter.DataWithMediaType> event;
+            while (!subscriber.evicted.get() && (event = subscriber.outbox.poll()) != null) {
+                if (!send(subscriber, event)) return;
+            }
+
+            // Completed here, since the emitter is locked while a send to it is stuck
+            if (subscriber.evicted.get()) {
+                subscriber.emitter.complete();
+                return;
+            }
+
+            subscriber.draining.set(false);
+        } while ((!subscriber.outbox.isEmpty() || subscriber.evicted.get()) && subscriber.draining.compareAndSet(false, true));
+    }
+
+    // A client too slow to keep up is dropped, rather than holding back what the others receive
+    private void evict(Subscriber subscriber) {
+        if (!subscriber.evicted.compareAndSet(false, true)) return;
+
+        Counter counter = evictedCounter;
+        if (counter != null) counter.increment();
+
+        subscriber.close();
+        schedule(subscriber);
+    }
+
+    private Set<ResponseBodyEmitter.DataWithMediaType> build(String name, Object payload) {
+        try {
+            return SseEmitter.event()
+                    .id(Long.toString(eventIds.incrementAndGet()))
+                    .name(name)
+                    .data(objectMapper.writeValueAsString(payload), MediaType.APPLICATION_JSON)
+                    .build();
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    // A client that went away is dropped at once, rather than when the container notices
+    private static boolean send(Subscriber subscriber, Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        try {
+            subscriber.emitter.send(event);
+            return true;
+        } catch (IOException | IllegalStateException e) {
+            log.debug("Could not push a charger event to a subscriber", e);
+            subscriber.close();
+            return false;
+        }
+    }
+
+    private static Set<Subscriber> subscribersOf(Map<UUID, Set<Subscriber>> subscribers, UUID key) {
+        return key == null ? Set.of() : subscribers.getOrDefault(key, Set.of());
+    }
+
+    private static int count(Map<UUID, Set<Subscriber>> subscribers) {
+        return subscribers.values().stream().mapToInt(Set::size).sum();
+    }
+
+    private static final class Subscriber {
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<ResponseBodyEmitter.DataWithMediaType>> outbox;
+        private final AtomicBoolean draining = new AtomicBoolean();
+        private final AtomicBoolean evicted = new AtomicBoolean();
+        private volatile Runnable unsubscribe = () -> { };
+
+        private Subscriber(SseEmitter emitter, int bufferSize) {
+            this.emitter = emitter;
+            this.outbox = new ArrayBlockingQueue<>(bufferSize);
+        }
+
+        private void close() {
+            outbox.clear();
+            unsubscribe.run();
+        }
+    }
+}
@@ -1,113 +1,186 @@
 package tqs.msev.backend.service;
 
 import lombok.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.msev.backend.configuration.OpenChargeSessionIndexes;
+import tqs.msev.backend.dto.ChargeSessionEvent;
+import tqs.msev.backend.dto.ChargerReading;
+import tqs.msev.backend.dto.ChargerStatistics;
+import tqs.msev.backend.dto.ChargerStatusEvent;
+import tqs.msev.backend.dto.CursorPage;
+import tqs.msev.backend.dto.SessionTotals;
+import tqs.msev.backend.dto.StartCursor;
+import tqs.msev.backend.dto.StationStatistics;
 import tqs.msev.backend.entity.ChargeSession;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.entity.Reservation;
 import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.index.ChargerStatusTable;
+import tqs.msev.backend.index.TelemetryBuffer;
 import tqs.msev.backend.repository.ChargeSessionRepository;
 import tqs.msev.backend.repository.ChargerRepository;
 import tqs.msev.backend.repository.ReservationRepository;
 import tqs.msev.backend.repository.UserRepository;
 import tqs.msev.backend.repository.StationRepository;
+import tqs.msev.backend.util.EntityStreams;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
 import java.util.*;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 
 @Service
 public class ChargerService {
+    private static final int DEFAULT_STATS_DAYS = 30;
+    private static final int MAX_TRANSITION_ATTEMPTS = 5;
+    private static final Duration CLAIM_TIMEOUT = Duration.ofSeconds(2);
+    private static final long CLAIM_POLL_NANOS = 100_000;
+    private static final String BUSY_MESSAGE = "The charger is being updated by another request, please try again";
+
     private final ChargerRepository chargerRepository;
     private final ReservationRepository reservationRepository;
     private final ChargeSessionRepository chargeSessionRepository;
     private final UserRepository userRepository;
     private final StationRepository stationRepository;
-
-    private Random random = new Random();
-    private int decimalPlaces = 2;
-    private double multiplier = Math.pow(10, decimalPlaces);
-    public ChargerService(ChargerRepository chargerRepository, ReservationRepository reservationRepository, ChargeSessionRepository chargeSessionRepository, UserRepository userRepository, StationRepository stationRepository) {
+    private final SessionRollupService sessionRollupService;
+    private final EntityStreams entityStreams;
+    private final TransactionTemplate transactionTemplate;
+    private final ChargerStatusTable chargerStatusTable;
+    private final ApplicationEventPublisher eventPublisher;
+    private final TelemetryBuffer telemetryBuffer;
+
+    public ChargerService(ChargerRepository chargerRepository, ReservationRepository reservationRepository, ChargeSessionRepository chargeSessionRepository, UserRepository userRepository, StationRepository stationRepository, SessionRollupService sessionRollupService, EntityStreams entityStreams, TransactionTemplate transactionTemplate, ChargerStatusTable chargerStatusTable, ApplicationEventPublisher eventPublisher, TelemetryBuffer telemetryBuffer) {
         this.chargerRepository = chargerRepository;
         this.reservationRepository = reservationRepository;
         this.chargeSessionRepository = chargeSessionRepository;
         this.userRepository = userRepository;
         this.stationRepository = stationRepository;
+        this.sessionRollupService = sessionRollupService;
+        this.entityStreams = entityStreams;
+        this.transactionTemplate = transactionTemplate;
+        this.chargerStatusTable = chargerStatusTable;
+        this.eventPublisher = eventPublisher;
+        this.telemetryBuffer = telemetryBuffer;
     }
 
     public List<Charger> getChargersByStation(UUID stationId) {
         return chargerRepository.findByStationId(stationId);
     }
 
+    public CursorPage<Charger> getChargersByStation(UUID stationId, UUID cursor, Integer limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+
+        return CursorPage.of(chargerRepository.findByStationIdAndIdGreaterThanOrderByIdAsc(stationId, CursorPage.after(cursor), Limit.of(pageSize + 1)),
+                pageSize, Charger::getId);
+    }
+
+    public List<ChargerStatusEvent> getStatusEvents(UUID stationId) {
+        return getChargersByStation(stationId).stream().map(charger -> chargerStatusTable.eventOf(charger.getId())).toList();
+    }
+
+    public ChargerStatusEvent getStatusEvent(UUID chargerId) {
+        return chargerStatusTable.eventOf(chargerId);
+    }
+
     public Charger getChargerById(UUID chargerId) {
         return chargerRepository.findById(chargerId)
                 .orElseThrow(() -> new NoSuchElementException("Charger not found"));
     }
     public void disableCharger(Charger charger) {
-        charger.setStatus(Charger.ChargerStatus.TEMPORARILY_DISABLED);
-        chargerRepository.save(charger);
+        charger.setStatus(moveByOperator(charger.getId(), Charger.ChargerStatus.TEMPORARILY_DISABLED));
     }
 
     public void outOfOrderCharger(Charger charger) {
-        charger.setStatus(Charger.ChargerStatus.OUT_OF_ORDER);
-        chargerRepository.save(charger);
+        charger.setStatus(moveByOperator(charger.getId(), Charger.ChargerStatus.OUT_OF_ORDER));
     }
 
     public void enableCharger(Charger charger) {
-        charger.setStatus(Charger.ChargerStatus.AVAILABLE);
-        chargerRepository.save(charger);
+        charger.setStatus(moveByOperator(charger.getId(), Charger.ChargerStatus.AVAILABLE));
     }
 
     public void unlockCharger(UUID chargerId, UUID userId) {
-        Charger charger = chargerRepository.findById(chargerId)
-                .orElseThrow(() -> new NoSuchElementException("Invalid charger id"));
-
-        if (charger.getStatus() == Charger.ChargerStatus.OUT_OF_ORDER) {
-            throw new IllegalStateException("Charger is out of order");
-        }
-
-        if (charger.getStatus() == Charger.ChargerStatus.TEMPORARILY_DISABLED) {
-            throw new IllegalStateException("Charger is temporarily disabled");
-        }
+        // Most refusals need no claim, so requests that cannot succeed do not hold up the one that can
+        checkUnlockable(chargerStatusTable.statusOf(chargerId), userId);
 
-        if (charger.getStatus() == Charger.ChargerStatus.IN_USE) {
-            // If the charger is in use, let's check if the user has a valid reservation for this charger...
-            LocalDateTime now = LocalDateTime.now();
-            Reservation reservation = reservationRepository
-                    .findByUserIdAndStartTimestampBeforeAndEndTimestampAfter(userId, now, now);
+        transition(chargerId, status -> unlock(chargerId, userId, status));
+    }
 
-            if (reservation == null) {
-                throw new IllegalStateException("Charger is in use");
-            }
+    private Charger.ChargerStatus unlock(UUID chargerId, UUID userId, Charger.ChargerStatus status) {
+        checkUnlockable(status, userId);
 
+        if (status == Charger.ChargerStatus.IN_USE) {
             ChargeSession oldSession = chargeSessionRepository.findByChargerIdAndEndTimestamp(chargerId, null);
-            oldSession.setEndTimestamp(LocalDateTime.now());
 
-            chargeSessionRepository.save(oldSession);
+            if (oldSession != null) {
+                telemetryBuffer.apply(chargerId, oldSession);
+                oldSession.setEndTimestamp(LocalDateTime.now());
+
+                chargeSessionRepository.save(oldSession);
+                sessionRollupService.record(oldSession);
+                eventPublisher.publishEvent(ChargeSessionEvent.of(chargerId, oldSession));
+            }
         }
 
         ChargeSession newSession = ChargeSession.builder()
                 .user(userRepository.getReferenceById(userId))
-                .charger(charger)
+                .charger(chargerRepository.getReferenceById(chargerId))
                 .startTimestamp(LocalDateTime.now())
                 .build();
 
         chargeSessionRepository.save(newSession);
+        eventPublisher.publishEvent(ChargeSessionEvent.of(chargerId, newSession));
 
+        // Locked like the expiry locks it, so a reservation being archived as a no-show is either still unused or already gone
         LocalDateTime now = LocalDateTime.now();
         Reservation reservation = reservationRepository
-                .findByUserIdAndStartTimestampBeforeAndEndTimestampAfter(userId, now, now);
+                .findLockedByUserIdAndStartTimestampBeforeAndEndTimestampAfter(userId, now, now);
 
         if (reservation != null) {
             reservation.setUsed(true);
             reservationRepository.save(reservation);
         }
 
-        charger.setStatus(Charger.ChargerStatus.IN_USE);
-        chargerRepository.save(charger);
+        return Charger.ChargerStatus.IN_USE;
+    }
+
+    private void checkUnlockable(Charger.ChargerStatus status, UUID userId) {
+        if (status == Charger.ChargerStatus.OUT_OF_ORDER) {
+            throw new IllegalStateException("Charger is out of order");
+        }
+
+        if (status == Charger.ChargerStatus.TEMPORARILY_DISABLED) {
+            throw new IllegalStateException("Charger is temporarily disabled");
+        }
+
+        if (status == Charger.ChargerStatus.IN_USE) {
+            // If the charger is in use, let's check if the user has a valid reservation for this charger...
+            LocalDateTime now = LocalDateTime.now();
+            Reservation reservation = reservationRepository
+                    .findByUserIdAndStartTimestampBeforeAndEndTimestampAfter(userId, now, now);
+
+            if (reservation == null) {
+                throw new IllegalStateException("Charger is in use");
+            }
+        }
     }
 
     public void lockCharger(UUID chargerId, UUID userId) {
+        transition(chargerId, status -> lock(chargerId, userId, status));
+    }
+
+    private Charger.ChargerStatus lock(UUID chargerId, UUID userId, Charger.ChargerStatus status) {
         ChargeSession session = chargeSessionRepository.findByChargerIdAndEndTimestamp(chargerId, null);
 
         if (session == null)
@@ -116,13 +189,83 @@ public class ChargerService {
         if (!session.getUser().getId().equals(userId))
             throw new IllegalStateException("You cannot lock a charger that is already being used by another user");
 
+        // The readings not yet written are the ones the session is billed for
+        telemetryBuffer.apply(chargerId, session);
         session.setEndTimestamp(LocalDateTime.now());
         chargeSessionRepository.save(session);
+        sessionRollupService.record(session);
+        eventPublisher.publishEvent(ChargeSessionEvent.of(chargerId, session));
+
+        // A charger taken out of service while it was charging stays out of service
+        return status == Charger.ChargerStatus.IN_USE ? Charger.ChargerStatus.AVAILABLE : status;
+    }
+
+    // Operators take chargers in and out of service; only unlocking and locking move a charger in and out of use
+    private Charger.ChargerStatus moveByOperator(UUID chargerId, Charger.ChargerStatus requested) {
+        if (requested == Charger.ChargerStatus.IN_USE) {
+            throw new IllegalArgumentException("A charger is only put in use by unlocking it");
+        }
+
+        // Enabled with a session still open, a charger is back in use until that session is locked
+        if (requested == Charger.ChargerStatus.AVAILABLE) {
+            return transition(chargerId, status -> chargeSessionRepository.existsByChargerIdAndEndTimestampIsNull(chargerId)
+                    ? Charger.ChargerStatus.IN_USE : Charger.ChargerStatus.AVAILABLE);
+        }
+
+        long deadline = System.nanoTime() + CLAIM_TIMEOUT.toNanos();
 
-        Charger charger = session.getCharger();
-        charger.setStatus(Charger.ChargerStatus.AVAILABLE);
-        chargerRepository.save(charger);
+        while (!chargerStatusTable.tryMove(chargerId, status -> requested))
+            awaitTurn(deadline);
+
+        return chargerStatusTable.statusOf(chargerId);
+    }
+
+    // The status changes in memory once the sessions and reservations behind it are committed, while the charger is claimed
+    private Charger.ChargerStatus transition(UUID chargerId, UnaryOperator<Charger.ChargerStatus> action) {
+        long deadline = System.nanoTime() + CLAIM_TIMEOUT.toNanos();
+
+        for (int attempt = 1; ; ) {
+            ChargerStatusTable.Claim claim = chargerStatusTable.tryClaim(chargerId);
+
+            if (claim == null) {
+                awaitTurn(deadline);
+                continue;
+            }
+
+            try {
+                Charger.ChargerStatus next = transactionTemplate.execute(tx -> action.apply(claim.from()));
+                chargerStatusTable.settle(claim, next);
+                return next;
+            } catch (OptimisticLockingFailureException e) {
+                // Each attempt reads the open session again, so a request that lost the race sees the new state
+                if (attempt++ == MAX_TRANSITION_ATTEMPTS)
+                    throw new IllegalStateException(BUSY_MESSAGE, e);
+            } catch (DataIntegrityViolationException e) {
+                if (!isOpenSessionConflict(e)) throw e;
+
+                // Transitions on a charger are serialised by the claim, so this is a session the status did not know about
+                chargerStatusTable.settle(claim, Charger.ChargerStatus.IN_USE);
+                throw new IllegalStateException("Charger is in use", e);
+            } finally {
+                chargerStatusTable.release(claim);
+            }
+        }
+    }
+
+    private static void awaitTurn(long deadline) {
+        if (System.nanoTime() - deadline > 0)
+            throw new IllegalStateException(BUSY_MESSAGE);
+
+        LockSupport.parkNanos(CLAIM_POLL_NANOS);
+    }
+
+    // The database refuses a second open session on a charger whatever the status held in memory says
+    private static boolean isOpenSessionConflict(DataIntegrityViolationException e) {
+        return NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+                && OpenChargeSessionIndexes.UNIQUE_VIOLATION.equals(sqlException.getSQLState())
+                && String.valueOf(sqlException.getMessage()).contains(OpenChargeSessionIndexes.CHARGER_INDEX);
     }
+
     public Charger createCharger(Charger charger) {
         if (charger.getStation() == null || stationRepository.findById(charger.getStation().getId()).isEmpty()) {
             throw new IllegalArgumentException("Charger must be associated with a valid station");
@@ -144,22 +287,34 @@ public class ChargerService {
         return sessions;
     }
 
+    public CursorPage<ChargeSession> getChargeSessions(UUID userId, boolean activeOnly, String cursor, Integer limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        StartCursor after = StartCursor.after(cursor);
+        Limit rows = Limit.of(pageSize + 1);
+
+        List<ChargeSession> sessions = activeOnly
+                ? chargeSessionRepository.findOpenPageByUserId(userId, after.startTimestamp(), after.id(), rows)
+                : chargeSessionRepository.findPageByUserId(userId, after.startTimestamp(), after.id(), rows);
+
+        return CursorPage.of(sessions, pageSize, ChargerService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamChargeSessions(UUID userId, Consumer<? super ChargeSession> action) {
+        entityStreams.forEach(chargeSessionRepository.streamByUserId(userId), action);
+    }
+
+    // The newest reading is shown from memory, before it is written with the next flush
     public ChargeSession getChargeSessionByChargerId(UUID chargerId) {
         ChargeSession chargeSession = chargeSessionRepository.findByChargerIdAndEndTimestamp(chargerId, null);
-        if (chargeSession != null && chargeSession.getCharger() != null) {
-            double randomDouble = random.nextDouble();
-            double consumption= 14.3;
-            int toAdd= randomDouble < 0.5 ? -1 : 1;
-            double newConsumption= toAdd*(consumption)*randomDouble + consumption;
-            chargeSession.setConsumption(Math.round(newConsumption*multiplier)/multiplier);
-            double speedRounded=(Math.round(randomDouble + chargeSession.getCharger().getChargingSpeed() - 0.5) * multiplier ) / multiplier;
-            chargeSession.setChargingSpeed(speedRounded);
+        if (chargeSession != null)
+            telemetryBuffer.apply(chargerId, chargeSession);
 
-            chargeSessionRepository.saveAndFlush(chargeSession);
-            return chargeSession;
-        }
+        return chargeSession;
+    }
 
-        return null;
+    public void recordReadings(List<ChargerReading> readings) {
+        telemetryBuffer.ingest(readings);
     }
 
     public Charger updateChargerPrice(UUID chargerId, double price) {
@@ -182,6 +337,19 @@ public class ChargerService {
                 .toList();
     }
 
+    public CursorPage<ChargeSession> getChargeSessionsByCharger(UUID chargerId, String cursor, Integer limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        StartCursor after = StartCursor.after(cursor);
+
+        return CursorPage.of(chargeSessionRepository.findClosedPageByChargerId(chargerId, after.startTimestamp(), after.id(), Limit.of(pageSize + 1)),
+                pageSize, ChargerService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamChargeSessionsByCharger(UUID chargerId, Consumer<? super ChargeSession> action) {
+        entityStreams.forEach(chargeSessionRepository.streamByChargerIdAndEndTimestampIsNotNull(chargerId), action);
+    }
+
 
     public List<ChargeSession> getStationStats(UUID stationId) {
         List<Charger> chargers = chargerRepository.findByStationId(stationId);
@@ -189,25 +357,92 @@ public class ChargerService {
             throw new NoSuchElementException("No chargers found for this station");
         }
 
-        List<ChargeSession> sessions = new ArrayList<>();
-        for (Charger charger : chargers) {
-            List<ChargeSession> chargerSessions = chargeSessionRepository.findAllByChargerId(charger.getId());
-            sessions.addAll(chargerSessions.stream()
-                    .filter(session -> session.getEndTimestamp() != null)
-                    .toList());
-        }
+        List<ChargeSession> sessions = chargeSessionRepository.findAllByChargerStationIdAndEndTimestampIsNotNull(stationId);
         if (sessions.isEmpty()) {
             throw new NoSuchElementException("No charge sessions found for this station");
         }
         return sessions;
     }
 
+    public CursorPage<ChargeSession> getStationStats(UUID stationId, String cursor, Integer limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        StartCursor after = StartCursor.after(cursor);
+
+        return CursorPage.of(chargeSessionRepository.findClosedPageByStationId(stationId, after.startTimestamp(), after.id(), Limit.of(pageSize + 1)),
+                pageSize, ChargerService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamStationStats(UUID stationId, Consumer<? super ChargeSession> action) {
+        entityStreams.forEach(chargeSessionRepository.streamByChargerStationIdAndEndTimestampIsNotNull(stationId), action);
+    }
+
+    public StationStatistics getStationSummary(UUID stationId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime[] range = statsRange(from, to);
+        long chargers = chargerRepository.countByStationId(stationId);
+        SessionTotals totals = sessionRollupService.sumByStation(stationId, range[0], range[1]);
+        long windowSeconds = Duration.between(range[0], range[1]).toSeconds();
+
+        return StationStatistics.builder()
+                .stationId(stationId)
+                .from(range[0])
+                .to(range[1])
+                .chargers(chargers)
+                .sessions(totals.getSessions())
+                .energy(totals.getEnergy())
+                .revenue(totals.getRevenue())
+                .averageDurationMinutes(averageDurationMinutes(totals))
+                .utilisation(chargers == 0 ? 0 : Math.min(1, (double) totals.getBusySeconds() / (chargers * windowSeconds)))
+                .build();
+    }
+
+    public ChargerStatistics getChargerSummary(UUID chargerId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime[] range = statsRange(from, to);
+        SessionTotals totals = sessionRollupService.sumByCharger(chargerId, range[0], range[1]);
+        long windowSeconds = Duration.between(range[0], range[1]).toSeconds();
+
+        return ChargerStatistics.builder()
+                .chargerId(chargerId)
+                .from(range[0])
+                .to(range[1])
+                .sessions(totals.getSessions())
+                .energy(totals.getEnergy())
+                .revenue(totals.getRevenue())
+                .averageDurationMinutes(averageDurationMinutes(totals))
+                .utilisation(Math.min(1, (double) totals.getBusySeconds() / windowSeconds))
+                .build();
+    }
+
+    // Statistics are served from hourly buckets, so the range is widened to whole hours
+    private static LocalDateTime[] statsRange(LocalDateTime from, LocalDateTime to) {
+        LocalDateTime end = ceilToHour(to != null ? to : LocalDateTime.now());
+        LocalDateTime start = from != null ? from.truncatedTo(ChronoUnit.HOURS) : end.minusDays(DEFAULT_STATS_DAYS);
+
+        if (!start.isBefore(end)) {
+            throw new IllegalArgumentException("The start of the range must be before its end");
+        }
+
+        return new LocalDateTime[]{start, end};
+    }
+
+    private static LocalDateTime ceilToHour(LocalDateTime timestamp) {
+        LocalDateTime hour = timestamp.truncatedTo(ChronoUnit.HOURS);
+        return hour.isBefore(timestamp) ? hour.plusHours(1) : hour;
+    }
+
+    private static double averageDurationMinutes(SessionTotals totals) {
+        return totals.getSessions() == 0 ? 0 : totals.getBusySeconds() / 60.0 / totals.getSessions();
+    }
+
+    private static StartCursor cursorOf(ChargeSession session) {
+        return new StartCursor(session.getStartTimestamp(), session.getId());
+    }
+
     public void updateChargerStatus(UUID chargerId, Charger.ChargerStatus status) {
         Charger charger = chargerRepository.findById(chargerId).orElseThrow(() -> new NoSuchElementException("Invalid charger id"));
         if (charger.getStation().getStatus() == Station.StationStatus.DISABLED && (status == Charger.ChargerStatus.AVAILABLE ||status == Charger.ChargerStatus.IN_USE) ) {
             throw new IllegalStateException("Station is disabled");
         }
-        charger.setStatus(status);
-        chargerRepository.save(charger);
+        charger.setStatus(moveByOperator(chargerId, status));
     }
 }
@@ -1,46 +1,128 @@
 package tqs.msev.backend.service;
 
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
-import org.json.JSONArray;
-import org.json.JSONObject;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.stereotype.Service;
-import org.springframework.web.client.RestTemplate;
-import org.springframework.web.util.UriComponentsBuilder;
+import tqs.msev.backend.configuration.CacheConfig;
 import tqs.msev.backend.dto.Coordinates;
+import tqs.msev.backend.geocoding.GeocodingClient;
+import tqs.msev.backend.util.CircuitBreaker;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 @Slf4j
 @Service
 public class GeocodingService {
-    private static final String API_URL = "https://api.geoapify.com/v1/geocode/search";
-    private final RestTemplate restTemplate;
+    private static final int MIN_FALLBACK_PREFIX = 5;
+
+    private final GeocodingClient geocodingClient;
+    private final Cache cache;
+    private final ThreadPoolExecutor executor;
+    private final CircuitBreaker circuitBreaker;
+    private final Duration timeout;
 
-    @Value("${geocoding.apikey}")
-    private String apiKey;
+    public GeocodingService(GeocodingClient geocodingClient, CacheManager cacheManager,
+                            @Value("${geocoding.timeout:4s}") Duration timeout,
+                            @Value("${geocoding.bulkhead.max-concurrent:8}") int maxConcurrent,
+                            @Value("${geocoding.bulkhead.queue-size:32}") int queueSize,
+                            @Value("${geocoding.circuit-breaker.failure-threshold:5}") int failureThreshold,
+                            @Value("${geocoding.circuit-breaker.open-duration:30s}") Duration openDuration) {
+        this.geocodingClient = geocodingClient;
+        this.cache = Objects.requireNonNull(cacheManager.getCache(CacheConfig.GEOCODING_CACHE));
+        this.timeout = timeout;
+        this.circuitBreaker = new CircuitBreaker(failureThreshold, openDuration, Clock.systemUTC());
 
-    public GeocodingService(RestTemplate restTemplate) {
-        this.restTemplate = restTemplate;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "geocoding-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
     }
 
     public Coordinates getCoordinatesForAddress(String address) {
-        String url = UriComponentsBuilder.fromUriString(API_URL)
-                .queryParam("text", address)
-                .queryParam("format", "json")
-                .queryParam("apiKey", apiKey)
-                .encode()
-                .toUriString();
+        String key = normalize(address);
 
-        log.info("Making an HTTP request to geocoding API for address {}", address);
-        JSONObject json = new JSONObject(restTemplate.getForEntity(url, String.class).getBody());
-        JSONArray resultsArray = json.getJSONArray("results");
+        try {
+            // Concurrent lookups of the same address wait for a single upstream call
+            return cache.get(key, () -> fetchCoordinates(key));
+        } catch (Cache.ValueRetrievalException e) {
+            log.warn("Geocoding unavailable for address {}, using fallback: {}", key, e.getCause().getMessage());
+            return fallback(key);
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private Coordinates fetchCoordinates(String address) {
+        if (!circuitBreaker.tryAcquire())
+            throw new IllegalStateException("Geocoding circuit breaker is open");
+
+        try {
+            Coordinates coordinates = CompletableFuture.supplyAsync(() -> geocodingClient.geocode(address), executor)
+                    .orTimeout(timeout.toMillis(), TimeUnit.MILLISECONDS)
+                    .join();
+
+            circuitBreaker.recordSuccess();
+            return coordinates;
+        } catch (RejectedExecutionException e) {
+            // Our own bulkhead being full says nothing about the upstream
+            circuitBreaker.release();
+            throw new IllegalStateException("Geocoding bulkhead is full", e);
+        } catch (CompletionException e) {
+            circuitBreaker.recordFailure();
+            throw e.getCause() instanceof RuntimeException cause ? cause : e;
+        }
+    }
 
-        if (resultsArray.isEmpty()) return null;
+    // Best effort answer from the addresses already resolved, never written back to the cache
+    private Coordinates fallback(String key) {
+        if (!(cache.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache))
+            return null;
 
-        JSONObject results = resultsArray.getJSONObject(0);
+        Coordinates best = null;
+        int bestLength = MIN_FALLBACK_PREFIX - 1;
 
-        double lat = results.getDouble("lat");
-        double lon = results.getDouble("lon");
+        for (Map.Entry<?, ?> entry : nativeCache.asMap().entrySet()) {
+            if (!(entry.getKey() instanceof String cached) || !(entry.getValue() instanceof Coordinates coordinates))
+                continue;
+
+            int length = commonPrefixLength(key, cached);
+
+            if (length > bestLength && (length == key.length() || length == cached.length())) {
+                best = coordinates;
+                bestLength = length;
+            }
+        }
+
+        return best;
+    }
+
+    private static int commonPrefixLength(String a, String b) {
+        int max = Math.min(a.length(), b.length());
+        int i = 0;
+
+        while (i < max && a.charAt(i) == b.charAt(i)) i++;
+
+        return i;
+    }
 
-        return new Coordinates(lat, lon);
+    static String normalize(String address) {
+        return address.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
     }
 }
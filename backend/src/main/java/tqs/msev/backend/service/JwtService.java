@@ -1,17 +1,29 @@
 package tqs.msev.backend.service;
 
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Expiry;
 import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.JwtParser;
 import io.jsonwebtoken.Jwts;
 import io.jsonwebtoken.io.Decoders;
 import io.jsonwebtoken.security.Keys;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.stereotype.Service;
+import tqs.msev.backend.configuration.AuthenticatedUser;
+import tqs.msev.backend.entity.User;
 
 import javax.crypto.SecretKey;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.HexFormat;
 import java.util.Map;
+import java.util.UUID;
 import java.util.function.Function;
 
 @Service
@@ -22,17 +34,54 @@ public class JwtService {
     @Value("${security.jwt.expiration-time}")
     private long jwtExpiration;
 
+    public static final String USER_ID_CLAIM = "uid";
+    public static final String OPERATOR_CLAIM = "operator";
+
+    private static final long MAX_VERIFIED_TOKENS = 10_000;
+    private static final Duration MAX_VERIFIED_AGE = Duration.ofMinutes(5);
+
+    // Built once from the secret instead of on every parse
+    private volatile SecretKey signInKey;
+    private volatile JwtParser parser;
+
+    // Tokens whose signature was already checked, keyed by their SHA-256 so raw tokens are not kept around
+    private final Cache<String, Claims> verifiedTokens = Caffeine.newBuilder()
+            .maximumSize(MAX_VERIFIED_TOKENS)
+            .expireAfter(new UntilTokenExpires())
+            .recordStats()
+            .build();
+
     public String extractUsername(String token) {
         return extractClaim(token, Claims::getSubject);
     }
 
     public <T> T extractClaim(String token, Function<Claims, T> claimsResolver) {
-        final Claims claims = extractAllClaims(token);
+        final Claims claims = parseToken(token);
         return claimsResolver.apply(claims);
     }
 
+    // Verifies the token at most once while it stays cached, throwing like the parser does when it is invalid or expired
+    public Claims parseToken(String token) {
+        String key = hash(token);
+        Claims claims = verifiedTokens.getIfPresent(key);
+
+        if (claims != null && !isExpired(claims))
+            return claims;
+
+        claims = extractAllClaims(token);
+        verifiedTokens.put(key, claims);
+        return claims;
+    }
+
     public String generateToken(UserDetails userDetails) {
-        return generateToken(new HashMap<>(), userDetails);
+        Map<String, Object> claims = new HashMap<>();
+
+        if (userDetails instanceof User user) {
+            if (user.getId() != null) claims.put(USER_ID_CLAIM, user.getId().toString());
+            claims.put(OPERATOR_CLAIM, user.isOperator());
+        }
+
+        return generateToken(claims, userDetails);
     }
 
     public String generateToken(Map<String, Object> extraClaims, UserDetails userDetails) {
@@ -59,29 +108,77 @@ public class JwtService {
     }
 
     public boolean isTokenValid(String token, UserDetails userDetails) {
-        final String username = extractUsername(token);
-        return (username.equals(userDetails.getUsername())) && !isTokenExpired(token);
+        return isTokenValid(parseToken(token), userDetails);
     }
 
-    private boolean isTokenExpired(String token) {
-        return extractExpiration(token).before(new Date());
+    public boolean isTokenValid(Claims claims, UserDetails userDetails) {
+        return claims.getSubject().equals(userDetails.getUsername()) && !isExpired(claims);
+    }
+
+    // Null for tokens issued before the id and role were carried in them
+    public AuthenticatedUser extractPrincipal(Claims claims) {
+        String userId = claims.get(USER_ID_CLAIM, String.class);
+        Boolean operator = claims.get(OPERATOR_CLAIM, Boolean.class);
+
+        if (userId == null || operator == null) return null;
+
+        return new AuthenticatedUser(UUID.fromString(userId), claims.getSubject(), operator);
     }
 
-    private Date extractExpiration(String token) {
-        return extractClaim(token, Claims::getExpiration);
+    private static boolean isExpired(Claims claims) {
+        return claims.getExpiration() != null && claims.getExpiration().before(new Date());
     }
 
     private Claims extractAllClaims(String token) {
-        return Jwts
-                .parser()
-                .verifyWith(getSignInKey())
-                .build()
-                .parseSignedClaims(token)
-                .getPayload();
+        JwtParser current = parser;
+
+        if (current == null) {
+            current = Jwts.parser().verifyWith(getSignInKey()).build();
+            parser = current;
+        }
+
+        return current.parseSignedClaims(token).getPayload();
     }
 
     private SecretKey getSignInKey() {
-        byte[] keyBytes = Decoders.BASE64.decode(secretKey);
-        return Keys.hmacShaKeyFor(keyBytes);
+        SecretKey key = signInKey;
+
+        if (key == null) {
+            byte[] keyBytes = Decoders.BASE64.decode(secretKey);
+            key = Keys.hmacShaKeyFor(keyBytes);
+            signInKey = key;
+        }
+
+        return key;
+    }
+
+    private static String hash(String token) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(token.getBytes(StandardCharsets.UTF_8)));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Entries never outlive the token itself
+    private static final class UntilTokenExpires implements Expiry<String, Claims> {
+        @Override
+        public long expireAfterCreate(String key, Claims claims, long currentTime) {
+            Date expiration = claims.getExpiration();
+            if (expiration == null) return MAX_VERIFIED_AGE.toNanos();
+
+            long remaining = Duration.ofMillis(expiration.getTime() - System.currentTimeMillis()).toNanos();
+            return Math.max(0, Math.min(remaining, MAX_VERIFIED_AGE.toNanos()));
+        }
+
+        @Override
+        public long expireAfterUpdate(String key, Claims claims, long currentTime, long currentDuration) {
+            return expireAfterCreate(key, claims, currentTime);
+        }
+
+        @Override
+        public long expireAfterRead(String key, Claims claims, long currentTime, long currentDuration) {
+            return currentDuration;
+        }
     }
 }
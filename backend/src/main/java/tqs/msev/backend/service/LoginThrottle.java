@@ -0,0 +1,74 @@
+package tqs.msev.backend.service;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import tqs.msev.backend.exception.TooManyRequestsException;
+import tqs.msev.backend.util.TokenBucket;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.Locale;
+
+@Component
+public class LoginThrottle {
+    private static final long MAX_TRACKED_KEYS = 100_000;
+    private static final Duration IDLE_EXPIRY = Duration.ofMinutes(30);
+
+    private final Cache<String, TokenBucket> accounts;
+    private final Cache<String, TokenBucket> addresses;
+    private final int accountCapacity;
+    private final Duration accountRefillPeriod;
+    private final int addressCapacity;
+    private final Duration addressRefillPeriod;
+    private final Clock clock;
+
+    public LoginThrottle(@Value("${auth.throttle.account.capacity:5}") int accountCapacity,
+                         @Value("${auth.throttle.account.refill-period:1m}") Duration accountRefillPeriod,
+                         @Value("${auth.throttle.address.capacity:20}") int addressCapacity,
+                         @Value("${auth.throttle.address.refill-period:3s}") Duration addressRefillPeriod) {
+        this(accountCapacity, accountRefillPeriod, addressCapacity, addressRefillPeriod, Clock.systemUTC());
+    }
+
+    LoginThrottle(int accountCapacity, Duration accountRefillPeriod, int addressCapacity, Duration addressRefillPeriod, Clock clock) {
+        this.accountCapacity = accountCapacity;
+        this.accountRefillPeriod = accountRefillPeriod;
+        this.addressCapacity = addressCapacity;
+        this.addressRefillPeriod = addressRefillPeriod;
+        this.clock = clock;
+        this.accounts = Caffeine.newBuilder().maximumSize(MAX_TRACKED_KEYS).expireAfterAccess(IDLE_EXPIRY).build();
+        this.addresses = Caffeine.newBuilder().maximumSize(MAX_TRACKED_KEYS).expireAfterAccess(IDLE_EXPIRY).build();
+    }
+
+    // The address is checked first so a single client spraying many accounts is stopped without touching their buckets.
+    // The account bucket is only read here, so its owner signing in successfully never drains it
+    public void checkLogin(String email, String address) {
+        checkAddress(address);
+
+        TokenBucket account = accounts.getIfPresent(accountKey(email));
+        if (account == null) return;
+
+        Duration wait = account.timeUntilNextToken();
+        if (!wait.isZero())
+            throw new TooManyRequestsException("Too many sign in attempts for this account, please try again later", wait);
+    }
+
+    public void recordFailure(String email) {
+        accounts.get(accountKey(email), key -> new TokenBucket(accountCapacity, accountRefillPeriod, clock)).tryConsume();
+    }
+
+    public void checkAddress(String address) {
+        if (address == null) return;
+
+        TokenBucket bucket = addresses.get(address, key -> new TokenBucket(addressCapacity, addressRefillPeriod, clock));
+
+        if (!bucket.tryConsume())
+            throw new TooManyRequestsException("Too many requests from this address, please try again later",
+                    bucket.timeUntilNextToken());
+    }
+
+    private static String accountKey(String email) {
+        return email.trim().toLowerCase(Locale.ROOT);
+    }
+}
@@ -0,0 +1,137 @@
+package tqs.msev.backend.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.entity.ReservationHistory;
+import tqs.msev.backend.index.ReservationCalendar;
+import tqs.msev.backend.repository.ReservationHistoryRepository;
+import tqs.msev.backend.repository.ReservationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+
+@Slf4j
+@Service
+public class ReservationExpiryService {
+    private final ReservationRepository reservationRepository;
+    private final ReservationHistoryRepository historyRepository;
+    private final ReservationCalendar reservationCalendar;
+    private final TransactionTemplate transactionTemplate;
+    private final Duration noShowGrace;
+    private final Duration retention;
+    private final DelayQueue<PendingExpiry> pending = new DelayQueue<>();
+
+    public ReservationExpiryService(ReservationRepository reservationRepository,
+                                    ReservationHistoryRepository historyRepository,
+                                    ReservationCalendar reservationCalendar,
+                                    TransactionTemplate transactionTemplate,
+                                    @Value("${reservations.no-show-grace:15m}") Duration noShowGrace,
+                                    @Value("${reservations.history.retention:7d}") Duration retention) {
+        this.reservationRepository = reservationRepository;
+        this.historyRepository = historyRepository;
+        this.reservationCalendar = reservationCalendar;
+        this.transactionTemplate = transactionTemplate;
+        this.noShowGrace = noShowGrace;
+        this.retention = retention;
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        reservationRepository.findByUsedFalseAndEndTimestampAfter(LocalDateTime.now()).forEach(this::schedule);
+    }
+
+    // A reservation that is still unused once the grace period after its start has passed is a no-show
+    public void schedule(Reservation reservation) {
+        if (reservation.getId() == null || reservation.isUsed()) return;
+
+        pending.add(new PendingExpiry(reservation.getId(), reservation.getStartTimestamp().plus(noShowGrace)));
+    }
+
+    public int pendingCount() {
+        return pending.size();
+    }
+
+    @Scheduled(fixedDelayString = "${reservations.expiry.poll-interval:30s}")
+    public int expireNoShows() {
+        // Only entries whose delay has elapsed come out of the queue
+        List<PendingExpiry> due = new ArrayList<>();
+        pending.drainTo(due);
+
+        if (due.isEmpty()) return 0;
+
+        try {
+            Integer expired = transactionTemplate.execute(tx -> expire(due.stream().map(PendingExpiry::reservationId).toList()));
+            return expired != null ? expired : 0;
+        } catch (RuntimeException e) {
+            // Queued again with their original expiry, so the next poll retries them
+            pending.addAll(due);
+            throw e;
+        }
+    }
+
+    private int expire(List<UUID> due) {
+        // Rows are locked, and the unlock locks the reservation it marks as used, so one waits for the other:
+        // an unlock that got there first leaves a used row this query skips, and one that comes after finds the row gone
+        List<Reservation> expired = reservationRepository.findLockedByIdInAndUsedFalse(due);
+        if (expired.isEmpty()) return 0;
+
+        LocalDateTime now = LocalDateTime.now();
+        historyRepository.saveAll(expired.stream().map(reservation -> ReservationHistory.of(reservation, now)).toList());
+        reservationRepository.deleteAll(expired);
+        reservationRepository.flush();
+
+        // A rollback keeps the rows, so their slots stay taken until the deletes are committed
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                expired.forEach(reservationCalendar::release);
+            }
+        });
+
+        log.info("Expired {} unused reservations", expired.size());
+        return expired.size();
+    }
+
+    // Ended reservations never change again, so they are moved in bulk without loading them
+    @Scheduled(cron = "${reservations.history.archive-cron:0 0 3 * * *}")
+    @Transactional
+    public int archiveEnded() {
+        LocalDateTime now = LocalDateTime.now();
+        LocalDateTime cutoff = now.minus(retention);
+
+        int archived = historyRepository.copyEndedBefore(cutoff, now);
+        if (archived == 0) return 0;
+
+        reservationRepository.deleteEndedBefore(cutoff);
+
+        log.info("Archived {} reservations that ended before {}", archived, cutoff);
+        return archived;
+    }
+
+    private record PendingExpiry(UUID reservationId, LocalDateTime expiresAt) implements Delayed {
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(Duration.between(LocalDateTime.now(), expiresAt));
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            return expiresAt.compareTo(((PendingExpiry) other).expiresAt);
+        }
+    }
+}
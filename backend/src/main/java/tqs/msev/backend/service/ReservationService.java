@@ -1,36 +1,113 @@
 package tqs.msev.backend.service;
 
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tqs.msev.backend.configuration.ReservationOverlapConstraint;
+import tqs.msev.backend.dto.AvailableSlot;
+import tqs.msev.backend.dto.ChargerAvailability;
+import tqs.msev.backend.dto.CursorPage;
+import tqs.msev.backend.dto.StartCursor;
+import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.index.ReservationCalendar;
+import tqs.msev.backend.repository.ChargerRepository;
 import tqs.msev.backend.repository.ReservationRepository;
+import tqs.msev.backend.repository.StationRepository;
+import tqs.msev.backend.util.EntityStreams;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class ReservationService {
     private final ReservationRepository reservationRepository;
+    private final ChargerRepository chargerRepository;
+    private final StationRepository stationRepository;
+    private final ReservationCalendar reservationCalendar;
+    private final EntityStreams entityStreams;
+    private final ReservationExpiryService reservationExpiry;
     private static final String RESERVATION_NOT_FOUND = "Reservation not found";
+    private static final int DEFAULT_WINDOW_DAYS = 5;
+    private static final int MAX_AVAILABILITY_DAYS = 31;
 
-    public ReservationService(ReservationRepository reservationRepository) {
+    public ReservationService(ReservationRepository reservationRepository, ChargerRepository chargerRepository,
+                              StationRepository stationRepository, ReservationCalendar reservationCalendar,
+                              EntityStreams entityStreams, ReservationExpiryService reservationExpiry) {
         this.reservationRepository = reservationRepository;
+        this.chargerRepository = chargerRepository;
+        this.stationRepository = stationRepository;
+        this.reservationCalendar = reservationCalendar;
+        this.entityStreams = entityStreams;
+        this.reservationExpiry = reservationExpiry;
     }
 
     public List<Reservation> getUserReservations(UUID userId) {
         return reservationRepository.findByUserId(userId);
     }
 
-    public List<Reservation> getFutureReservationsOnCharger(UUID chargerId) {
-        List<Reservation> reservations = reservationRepository.findByChargerId(chargerId);
-        LocalDateTime now = LocalDateTime.now();
-        LocalDateTime fiveDaysFromNow = now.plusDays(5);
-        return reservations.stream()
-                .filter(reservation -> reservation.getStartTimestamp().isAfter(now))
-                .filter(reservation -> reservation.getStartTimestamp().isBefore(fiveDaysFromNow))
+    public CursorPage<Reservation> getUserReservations(UUID userId, String cursor, Integer limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        StartCursor after = StartCursor.after(cursor);
+
+        return CursorPage.of(reservationRepository.findPageByUserId(userId, after.startTimestamp(), after.id(), Limit.of(pageSize + 1)),
+                pageSize, ReservationService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamUserReservations(UUID userId, Consumer<? super Reservation> action) {
+        entityStreams.forEach(reservationRepository.streamByUserId(userId), action);
+    }
+
+    public List<Reservation> getReservationsOnCharger(UUID chargerId, LocalDateTime from, LocalDateTime to) {
+        LocalDateTime start = from != null ? from : LocalDateTime.now();
+        LocalDateTime end = to != null ? to : start.plusDays(DEFAULT_WINDOW_DAYS);
+
+        if (!end.isAfter(start)) {
+            throw new IllegalArgumentException("End of the window must be after its start");
+        }
+        if (Duration.between(start, end).toDays() >= MAX_AVAILABILITY_DAYS) {
+            throw new IllegalArgumentException("Window cannot be longer than " + MAX_AVAILABILITY_DAYS + " days");
+        }
+
+        return reservationRepository.findByChargerIdAndStartTimestampAfterAndStartTimestampBeforeOrderByStartTimestampAsc(chargerId, start, end);
+    }
+
+    public List<AvailableSlot> getChargerAvailability(UUID chargerId, LocalDateTime from, LocalDateTime to,
+                                                      Integer granularityMinutes, Integer durationMinutes) {
+        AvailabilityQuery query = AvailabilityQuery.of(from, to, granularityMinutes, durationMinutes);
+
+        return reservationCalendar.freeSlots(chargerId, query.from(), query.to(), query.step(), query.length());
+    }
+
+    public List<ChargerAvailability> getStationAvailability(UUID stationId, LocalDateTime from, LocalDateTime to,
+                                                            Integer granularityMinutes, Integer durationMinutes) {
+        AvailabilityQuery query = AvailabilityQuery.of(from, to, granularityMinutes, durationMinutes);
+
+        if (!stationRepository.existsById(stationId)) {
+            throw new NoSuchElementException("Invalid station id");
+        }
+
+        List<UUID> usable = chargerRepository.findByStationId(stationId).stream()
+                .filter(charger -> charger.getStatus() != Charger.ChargerStatus.OUT_OF_ORDER
+                        && charger.getStatus() != Charger.ChargerStatus.TEMPORARILY_DISABLED)
+                .map(Charger::getId)
                 .toList();
-        
+        List<ChargerAvailability> availability = new ArrayList<>();
+
+        reservationCalendar.freeSlots(usable, query.from(), query.to(), query.step(), query.length()).forEach((chargerId, slots) -> {
+            if (!slots.isEmpty()) availability.add(new ChargerAvailability(chargerId, slots));
+        });
+
+        return availability;
     }
 
     public Reservation createReservation(Reservation reservation) {
@@ -43,14 +120,23 @@ public class ReservationService {
         if (reservation.getStartTimestamp().isAfter(reservation.getEndTimestamp())) {
             throw new IllegalArgumentException("Start timestamp must be before end timestamp");
         }
-        List<Reservation> existingReservations = reservationRepository.findByChargerId(reservation.getCharger().getId());
-        for (Reservation existingReservation : existingReservations) {
-            if (reservation.getStartTimestamp().isBefore(existingReservation.getEndTimestamp()) &&
-                reservation.getEndTimestamp().isAfter(existingReservation.getStartTimestamp())) {
-                throw new IllegalArgumentException("Reservation overlaps with an existing reservation");
+        Reservation saved = reservationCalendar.reserve(reservation, this::insert);
+        reservationExpiry.schedule(saved);
+        return saved;
+    }
+
+    // Another instance may have booked the slot without this one knowing, in which case the database constraint rejects it
+    private Reservation insert(Reservation reservation) {
+        try {
+            return reservationRepository.save(reservation);
+        } catch (DataIntegrityViolationException e) {
+            if (NestedExceptionUtils.getMostSpecificCause(e) instanceof SQLException sqlException
+                    && ReservationOverlapConstraint.EXCLUSION_VIOLATION.equals(sqlException.getSQLState())) {
+                throw new IllegalArgumentException(ReservationCalendar.OVERLAP_MESSAGE, e);
             }
+
+            throw e;
         }
-        return reservationRepository.save(reservation);
     }
 
     public Reservation cancelReservation(UUID reservationId) {
@@ -58,6 +144,7 @@ public class ReservationService {
                 .orElseThrow(() -> new NoSuchElementException(RESERVATION_NOT_FOUND));
         reservationRepository.delete(reservation);
         reservationRepository.flush();
+        reservationCalendar.release(reservation);
         return reservation;
     }
 
@@ -87,5 +174,45 @@ public class ReservationService {
     public List<Reservation> getChargerReservations(UUID chargerId) {
         return reservationRepository.findByChargerId(chargerId);
     }
-    
+
+    public CursorPage<Reservation> getChargerReservations(UUID chargerId, String cursor, Integer limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+        StartCursor after = StartCursor.after(cursor);
+
+        return CursorPage.of(reservationRepository.findPageByChargerId(chargerId, after.startTimestamp(), after.id(), Limit.of(pageSize + 1)),
+                pageSize, ReservationService::cursorOf);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamChargerReservations(UUID chargerId, Consumer<? super Reservation> action) {
+        entityStreams.forEach(reservationRepository.streamByChargerId(chargerId), action);
+    }
+
+    private static StartCursor cursorOf(Reservation reservation) {
+        return new StartCursor(reservation.getStartTimestamp(), reservation.getId());
+    }
+
+    private record AvailabilityQuery(LocalDateTime from, LocalDateTime to, Duration step, Duration length) {
+        static AvailabilityQuery of(LocalDateTime from, LocalDateTime to, Integer granularityMinutes, Integer durationMinutes) {
+            LocalDateTime start = from != null ? from : LocalDateTime.now();
+            LocalDateTime end = to != null ? to : start.plusDays(1);
+            Duration step = granularityMinutes != null ? Duration.ofMinutes(granularityMinutes) : ReservationCalendar.QUARTER;
+            Duration length = durationMinutes != null ? Duration.ofMinutes(durationMinutes) : step;
+
+            if (!end.isAfter(start)) {
+                throw new IllegalArgumentException("End of the window must be after its start");
+            }
+            if (Duration.between(start, end).toDays() >= MAX_AVAILABILITY_DAYS) {
+                throw new IllegalArgumentException("Window cannot be longer than " + MAX_AVAILABILITY_DAYS + " days");
+            }
+            if (step.isNegative() || step.isZero() || step.toMinutes() % ReservationCalendar.QUARTER.toMinutes() != 0) {
+                throw new IllegalArgumentException("Granularity must be a positive multiple of 15 minutes");
+            }
+            if (length.isNegative() || length.isZero()) {
+                throw new IllegalArgumentException("Duration must be positive");
+            }
+
+            return new AvailabilityQuery(start, end, step, length);
+        }
+    }
 }
@@ -0,0 +1,206 @@
+package tqs.msev.backend.service;
+
+import jakarta.annotation.PostConstruct;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tqs.msev.backend.dto.SessionTotals;
+import tqs.msev.backend.entity.ChargeSession;
+import tqs.msev.backend.entity.ChargeSessionRollup;
+import tqs.msev.backend.entity.ChargeSessionRollup.Granularity;
+import tqs.msev.backend.repository.ChargeSessionRepository;
+import tqs.msev.backend.repository.ChargeSessionRollupRepository;
+import tqs.msev.backend.util.EntityStreams;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+@Service
+public class SessionRollupService {
+    private static final int BACKFILL_BATCH = 1000;
+
+    // A bucket written by two transactions at once is added up rather than failing on the unique constraint
+    private static final String POSTGRES_UPSERT = """
+            INSERT INTO charge_session_rollup (id, charger_id, station_id, granularity, bucket_start, sessions, energy, revenue, busy_seconds)
+            VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)
+            ON CONFLICT (charger_id, granularity, bucket_start) DO UPDATE SET
+                sessions = charge_session_rollup.sessions + excluded.sessions,
+                energy = charge_session_rollup.energy + excluded.energy,
+                revenue = charge_session_rollup.revenue + excluded.revenue,
+                busy_seconds = charge_session_rollup.busy_seconds + excluded.busy_seconds
+            """;
+
+    // Other databases, like the embedded one the tests run on, only have the standard merge
+    private static final String MERGE_UPSERT = """
+            MERGE INTO charge_session_rollup r
+            USING (VALUES (CAST(? AS UUID), CAST(? AS UUID), CAST(? AS UUID), CAST(? AS SMALLINT), CAST(? AS TIMESTAMP),
+                    CAST(? AS BIGINT), CAST(? AS DOUBLE PRECISION), CAST(? AS DOUBLE PRECISION), CAST(? AS BIGINT)))
+                AS v (id, charger_id, station_id, granularity, bucket_start, sessions, energy, revenue, busy_seconds)
+            ON r.charger_id = v.charger_id AND r.granularity = v.granularity AND r.bucket_start = v.bucket_start
+            WHEN MATCHED THEN UPDATE SET
+                sessions = r.sessions + v.sessions,
+                energy = r.energy + v.energy,
+                revenue = r.revenue + v.revenue,
+                busy_seconds = r.busy_seconds + v.busy_seconds
+            WHEN NOT MATCHED THEN INSERT (id, charger_id, station_id, granularity, bucket_start, sessions, energy, revenue, busy_seconds)
+                VALUES (v.id, v.charger_id, v.station_id, v.granularity, v.bucket_start, v.sessions, v.energy, v.revenue, v.busy_seconds)
+            """;
+
+    private final ChargeSessionRollupRepository rollupRepository;
+    private final ChargeSessionRepository chargeSessionRepository;
+    private final JdbcTemplate jdbcTemplate;
+    private final EntityStreams entityStreams;
+    private String upsert;
+    private boolean postgres;
+
+    public SessionRollupService(ChargeSessionRollupRepository rollupRepository, ChargeSessionRepository chargeSessionRepository,
+                                JdbcTemplate jdbcTemplate, EntityStreams entityStreams) {
+        this.rollupRepository = rollupRepository;
+        this.chargeSessionRepository = chargeSessionRepository;
+        this.jdbcTemplate = jdbcTemplate;
+        this.entityStreams = entityStreams;
+    }
+
+    @PostConstruct
+    public void init() {
+        String database = jdbcTemplate.execute((ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        postgres = "PostgreSQL".equals(database);
+        upsert = postgres ? POSTGRES_UPSERT : MERGE_UPSERT;
+    }
+
+    @Transactional
+    public void record(ChargeSession session) {
+        if (session.getEndTimestamp() == null) return;
+
+        Map<List<Object>, ChargeSessionRollup> rollups = new HashMap<>();
+        add(rollups, session);
+        write(rollups.values());
+    }
+
+    public SessionTotals sumByStation(UUID stationId, LocalDateTime from, LocalDateTime to) {
+        return sum(from, to, (granularity, start, end) -> rollupRepository.sumByStation(stationId, granularity, start, end));
+    }
+
+    public SessionTotals sumByCharger(UUID chargerId, LocalDateTime from, LocalDateTime to) {
+        return sum(from, to, (granularity, start, end) -> rollupRepository.sumByCharger(chargerId, granularity, start, end));
+    }
+
+    // Rebuilt from scratch whenever the rollups do not count every closed session, which also makes a second run a no-op.
+    // Rows are streamed and the buckets written in batches, so neither the sessions nor the rollups are all held at once
+    @EventListener(ApplicationReadyEvent.class)
+    @Transactional
+    public void backfill() {
+        // Held until commit, so sessions closing meanwhile and other instances starting up wait for the rebuild and see it
+        if (postgres) jdbcTemplate.execute("LOCK TABLE charge_session_rollup IN EXCLUSIVE MODE");
+
+        if (rollupRepository.sumSessions(Granularity.DAILY) == chargeSessionRepository.countByEndTimestampIsNotNull()) return;
+
+        rollupRepository.deleteAllInBatch();
+
+        Map<List<Object>, ChargeSessionRollup> rollups = new HashMap<>();
+        AtomicLong sessions = new AtomicLong();
+
+        entityStreams.forEach(chargeSessionRepository.streamClosed(), session -> {
+            add(rollups, session);
+            sessions.incrementAndGet();
+
+            if (rollups.size() >= BACKFILL_BATCH) {
+                write(rollups.values());
+                rollups.clear();
+            }
+        });
+
+        write(rollups.values());
+
+        if (sessions.get() > 0)
+            log.info("Rebuilt charge session rollups from {} sessions", sessions.get());
+    }
+
+    // Whole days come from daily buckets and only the partial days at both ends from hourly ones
+    private static SessionTotals sum(LocalDateTime from, LocalDateTime to, BucketQuery query) {
+        LocalDateTime firstDay = from.truncatedTo(ChronoUnit.DAYS);
+        if (firstDay.isBefore(from)) firstDay = firstDay.plusDays(1);
+
+        LocalDateTime lastDay = to.truncatedTo(ChronoUnit.DAYS);
+
+        if (!firstDay.isBefore(lastDay))
+            return query.sum(Granularity.HOURLY, from, to);
+
+        return query.sum(Granularity.DAILY, firstDay, lastDay)
+                .plus(query.sum(Granularity.HOURLY, from, firstDay))
+                .plus(query.sum(Granularity.HOURLY, lastDay, to));
+    }
+
+    private static LocalDateTime bucketStart(LocalDateTime timestamp, Granularity granularity) {
+        return timestamp.truncatedTo(granularity == Granularity.HOURLY ? ChronoUnit.HOURS : ChronoUnit.DAYS);
+    }
+
+    private static LocalDateTime bucketEnd(LocalDateTime bucketStart, Granularity granularity) {
+        return granularity == Granularity.HOURLY ? bucketStart.plusHours(1) : bucketStart.plusDays(1);
+    }
+
+    private static ChargeSessionRollup rollupOf(Map<List<Object>, ChargeSessionRollup> rollups, ChargeSession session,
+                                                Granularity granularity, LocalDateTime bucketStart) {
+        return rollups.computeIfAbsent(
+                List.of(session.getCharger().getId(), granularity, bucketStart),
+                key -> ChargeSessionRollup.builder()
+                        .chargerId(session.getCharger().getId())
+                        .stationId(session.getCharger().getStation().getId())
+                        .granularity(granularity)
+                        .bucketStart(bucketStart)
+                        .build());
+    }
+
+    // Busy time, energy and revenue are split over every bucket the session overlaps, the session itself counts where it ends
+    private static void add(Map<List<Object>, ChargeSessionRollup> rollups, ChargeSession session) {
+        LocalDateTime end = session.getEndTimestamp();
+        LocalDateTime start = session.getStartTimestamp().isAfter(end) ? end : session.getStartTimestamp();
+        long duration = Duration.between(start, end).toNanos();
+        double revenue = session.getConsumption() * session.getCharger().getPrice();
+
+        for (Granularity granularity : Granularity.values()) {
+            LocalDateTime bucketStart = bucketStart(start, granularity);
+            boolean last = false;
+
+            while (!last) {
+                LocalDateTime bucketEnd = bucketEnd(bucketStart, granularity);
+                LocalDateTime from = start.isAfter(bucketStart) ? start : bucketStart;
+                LocalDateTime to = end.isBefore(bucketEnd) ? end : bucketEnd;
+                double share = duration == 0 ? 1 : (double) Duration.between(from, to).toNanos() / duration;
+                last = !bucketEnd.isBefore(end);
+
+                ChargeSessionRollup rollup = rollupOf(rollups, session, granularity, bucketStart);
+
+                rollup.setEnergy(rollup.getEnergy() + session.getConsumption() * share);
+                rollup.setRevenue(rollup.getRevenue() + revenue * share);
+                rollup.setBusySeconds(rollup.getBusySeconds() + Duration.between(from, to).toSeconds());
+                if (last) rollup.setSessions(rollup.getSessions() + 1);
+
+                bucketStart = bucketEnd;
+            }
+        }
+    }
+
+    // The granularity column holds the enum ordinal
+    private void write(Collection<ChargeSessionRollup> rollups) {
+        if (rollups.isEmpty()) return;
+
+        jdbcTemplate.batchUpdate(upsert, rollups.stream()
+                .map(rollup -> new Object[]{
+                        UUID.randomUUID(), rollup.getChargerId(), rollup.getStationId(), rollup.getGranularity().ordinal(),
+                        rollup.getBucketStart(), rollup.getSessions(), rollup.getEnergy(), rollup.getRevenue(), rollup.getBusySeconds()})
+                .toList());
+    }
+
+    private interface BucketQuery {
+        SessionTotals sum(Granularity granularity, LocalDateTime from, LocalDateTime to);
+    }
+}
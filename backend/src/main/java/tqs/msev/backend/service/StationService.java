@@ -1,57 +1,165 @@
 package tqs.msev.backend.service;
 
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import tqs.msev.backend.dto.CursorPage;
 import tqs.msev.backend.dto.Coordinates;
+import tqs.msev.backend.dto.StationCluster;
+import tqs.msev.backend.dto.StationViewport;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.index.StationNameIndex;
+import tqs.msev.backend.index.StationSpatialIndex;
+import tqs.msev.backend.index.StationTrigramIndex;
 import tqs.msev.backend.repository.StationRepository;
-import tqs.msev.backend.util.Util;
+import tqs.msev.backend.util.EntityStreams;
 
-import java.util.Comparator;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.function.Consumer;
 
 @Service
 public class StationService {
+    static final int MAX_ZOOM = 22;
+    static final int MAX_CLUSTER_ZOOM = 14;
+    // Roughly one cluster per 64px square of a 256px map tile
+    private static final int CLUSTER_CELLS_PER_TILE = 4;
+    // The grid over the viewport is at most this many cells wide, so the response stays bounded whatever the zoom
+    static final int MAX_CELLS_PER_SIDE = 32;
+    // Past this many stations even a zoomed in viewport is clustered
+    static final int MAX_UNCLUSTERED = 500;
+    private static final int DEFAULT_FUZZY_LIMIT = 20;
+
     private final StationRepository stationRepository;
     private final GeocodingService geocodingService;
     private final ChargerService chargerService;
+    private final StationSpatialIndex stationSpatialIndex;
+    private final StationNameIndex stationNameIndex;
+    private final StationTrigramIndex stationTrigramIndex;
+    private final EntityStreams entityStreams;
 
-    public StationService(StationRepository stationRepository, GeocodingService geocodingService, ChargerService chargerService) {
+    public StationService(StationRepository stationRepository, GeocodingService geocodingService,
+                          ChargerService chargerService, StationSpatialIndex stationSpatialIndex,
+                          StationNameIndex stationNameIndex, StationTrigramIndex stationTrigramIndex,
+                          EntityStreams entityStreams) {
         this.stationRepository = stationRepository;
         this.geocodingService = geocodingService;
         this.chargerService = chargerService;
+        this.stationSpatialIndex = stationSpatialIndex;
+        this.stationNameIndex = stationNameIndex;
+        this.stationTrigramIndex = stationTrigramIndex;
+        this.entityStreams = entityStreams;
     }
 
     public List<Station> getAllStations() {
         return stationRepository.findAll();
     }
 
+    public CursorPage<Station> getStations(UUID cursor, Integer limit) {
+        int pageSize = CursorPage.checkLimit(limit);
+
+        return CursorPage.of(stationRepository.findByIdGreaterThanOrderByIdAsc(CursorPage.after(cursor), Limit.of(pageSize + 1)),
+                pageSize, Station::getId);
+    }
+
+    @Transactional(readOnly = true)
+    public void streamStations(Consumer<? super Station> action) {
+        entityStreams.forEach(stationRepository.streamAllBy(), action);
+    }
+
     public Station getStationById(UUID id) {
         return stationRepository.findById(id).orElseThrow(() -> new NoSuchElementException("Invalid station id"));
     }
 
     public List<Station> searchByName(String query) {
-        List<Station> stations = stationRepository.findAll();
+        return searchByName(query, null);
+    }
+
+    public List<Station> searchByName(String query, Integer limit) {
+        if (limit != null && limit <= 0)
+            throw new IllegalArgumentException("Limit must be greater than 0");
 
-        return stations.stream()
-                .filter(station -> station.getName().toLowerCase().startsWith(query.toLowerCase()))
-                .toList();
+        List<Station> matches = stationNameIndex.findByPrefix(query, limit == null ? Integer.MAX_VALUE : limit);
+
+        if (!matches.isEmpty()) return matches;
+
+        // Nothing starts with the query, so it is probably mistyped
+        return stationTrigramIndex.search(query, limit == null ? DEFAULT_FUZZY_LIMIT : limit);
     }
 
     public List<Station> searchByAddress(String address) {
+        return searchByAddress(address, null, null);
+    }
+
+    public List<Station> searchByAddress(String address, Integer limit, Double maxDistanceKm) {
+        if (limit != null && limit <= 0)
+            throw new IllegalArgumentException("Limit must be greater than 0");
+
+        if (maxDistanceKm != null && (maxDistanceKm.isNaN() || maxDistanceKm < 0))
+            throw new IllegalArgumentException("Max distance must not be negative");
+
         Coordinates coordinates = geocodingService.getCoordinatesForAddress(address);
 
         if (coordinates == null) return List.of();
 
-        List<Station> stations = stationRepository.findAll();
+        return stationSpatialIndex.nearest(coordinates.getLat(), coordinates.getLon(),
+                limit == null ? Integer.MAX_VALUE : limit,
+                maxDistanceKm == null ? Double.POSITIVE_INFINITY : maxDistanceKm);
+    }
+    public StationViewport getStationsInViewport(double minLat, double minLon, double maxLat, double maxLon, int zoom) {
+        if (minLat < -90 || maxLat > 90 || minLat > maxLat)
+            throw new IllegalArgumentException("Invalid latitude bounds");
+
+        if (minLon < -180 || minLon > 180 || maxLon < -180 || maxLon > 180)
+            throw new IllegalArgumentException("Invalid longitude bounds");
 
-        return stations.stream().sorted(Comparator.comparingDouble(station ->
-            Util.distanceBetweenCoordinates(coordinates.getLat(), coordinates.getLon(),
-                    station.getLatitude(), station.getLongitude())
-        )).toList();
+        if (zoom < 0 || zoom > MAX_ZOOM)
+            throw new IllegalArgumentException("Zoom must be between 0 and " + MAX_ZOOM);
+
+        List<Station> stations = stationSpatialIndex.withinBounds(minLat, minLon, maxLat, maxLon);
+
+        if (zoom >= MAX_CLUSTER_ZOOM && stations.size() <= MAX_UNCLUSTERED) return new StationViewport(stations, List.of());
+
+        // The zoom comes from the client, so the cells are never smaller than the viewport itself allows
+        double lonSpan = minLon <= maxLon ? maxLon - minLon : 360 - (minLon - maxLon);
+        double viewportCell = Math.max(maxLat - minLat, lonSpan) / MAX_CELLS_PER_SIDE;
+        double zoomCell = 360.0 / (1L << zoom) / CLUSTER_CELLS_PER_TILE;
+
+        return clusterStations(stations, Math.max(zoomCell, viewportCell));
     }
+
+    private static StationViewport clusterStations(List<Station> stations, double cellSize) {
+        Map<Long, List<Station>> cells = new LinkedHashMap<>();
+
+        for (Station station : stations) {
+            long latIdx = (long) Math.floor((station.getLatitude() + 90) / cellSize);
+            long lonIdx = (long) Math.floor((station.getLongitude() + 180) / cellSize);
+
+            cells.computeIfAbsent((latIdx << 32) | lonIdx, key -> new ArrayList<>()).add(station);
+        }
+
+        List<Station> singles = new ArrayList<>();
+        List<StationCluster> clusters = new ArrayList<>();
+
+        for (List<Station> cell : cells.values()) {
+            if (cell.size() == 1) {
+                singles.add(cell.get(0));
+                continue;
+            }
+
+            double lat = cell.stream().mapToDouble(Station::getLatitude).average().orElse(0);
+            double lon = cell.stream().mapToDouble(Station::getLongitude).average().orElse(0);
+            clusters.add(new StationCluster(lat, lon, cell.size()));
+        }
+
+        return new StationViewport(singles, clusters);
+    }
+
     public void disableStation(Station station) {
         // put all chargers of the station out of order
         List<Charger> chargers = station.getChargers();
@@ -0,0 +1,20 @@
+package tqs.msev.backend.service;
+
+import jakarta.persistence.PostRemove;
+import jakarta.persistence.PostUpdate;
+import org.springframework.beans.factory.ObjectProvider;
+import tqs.msev.backend.entity.User;
+
+public class UserCacheListener {
+    private final ObjectProvider<UserService> userService;
+
+    public UserCacheListener(ObjectProvider<UserService> userService) {
+        this.userService = userService;
+    }
+
+    @PostUpdate
+    @PostRemove
+    public void onChange(User user) {
+        userService.ifAvailable(service -> service.evict(user));
+    }
+}
@@ -1,21 +1,43 @@
 package tqs.msev.backend.service;
 
-import org.springframework.security.core.Authentication;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.stereotype.Service;
+import tqs.msev.backend.configuration.CacheConfig;
 import tqs.msev.backend.entity.User;
 import tqs.msev.backend.repository.UserRepository;
 
+import java.util.Objects;
+
 @Service
 public class UserService {
     private final UserRepository userRepository;
+    private final Cache users;
 
-    public UserService(UserRepository userRepository) {this.userRepository = userRepository;}
+    public UserService(UserRepository userRepository, CacheManager cacheManager) {
+        this.userRepository = userRepository;
+        this.users = Objects.requireNonNull(cacheManager.getCache(CacheConfig.USERS_CACHE));
+    }
 
-    public User getCurrentUser(Authentication authentication) {
-        String username = authentication.getName();
+    // Every authenticated request looks its user up by email, so those lookups are served from the cache
+    public User getUserByEmail(String email) {
+        User user = users.get(email, User.class);
+        if (user != null) return user;
 
-        return userRepository.findUserByEmail(username)
+        user = userRepository.findUserByEmail(email)
                 .orElseThrow(() -> new UsernameNotFoundException("User not found"));
+        users.put(email, user);
+        return user;
+    }
+
+    // The email may have changed, so entries are also matched by id
+    public void evict(User user) {
+        users.evict(user.getEmail());
+
+        if (users.getNativeCache() instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> nativeCache) {
+            nativeCache.asMap().values().removeIf(cached -> cached instanceof User cachedUser
+                    && cachedUser.getId() != null && cachedUser.getId().equals(user.getId()));
+        }
     }
 }
@@ -0,0 +1,110 @@
+package tqs.msev.backend.util;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.lang.NonNull;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tqs.msev.backend.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+// Runs the hashing on its own bounded pool so a burst of logins cannot occupy every request thread
+public class BoundedPasswordEncoder implements PasswordEncoder, MeterBinder {
+    private static final String SATURATED_MESSAGE = "Too many sign in attempts at the moment, please try again shortly";
+
+    private final PasswordEncoder delegate;
+    private final ThreadPoolExecutor executor;
+    private final Duration timeout;
+
+    private volatile Timer encodeTimer;
+    private volatile Timer matchesTimer;
+    private volatile Counter rejectedCounter;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, int maxConcurrent, int queueSize, Duration timeout) {
+        this.delegate = delegate;
+        this.timeout = timeout;
+
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(maxConcurrent, maxConcurrent, 0, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(queueSize),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "password-hash-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return run(() -> delegate.encode(rawPassword), encodeTimer);
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return run(() -> delegate.matches(rawPassword, encodedPassword), matchesTimer);
+    }
+
+    @Override
+    public boolean upgradeEncoding(String encodedPassword) {
+        return delegate.upgradeEncoding(encodedPassword);
+    }
+
+    public int getQueueDepth() {
+        return executor.getQueue().size();
+    }
+
+    @Override
+    public void bindTo(@NonNull MeterRegistry registry) {
+        encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode")
+                .description("Time spent hashing a password").register(registry);
+        matchesTimer = Timer.builder("auth.password.hash").tag("operation", "matches")
+                .description("Time spent hashing a password").register(registry);
+        rejectedCounter = Counter.builder("auth.password.rejected")
+                .description("Password checks refused because the pool was saturated").register(registry);
+        Gauge.builder("auth.password.queue.depth", executor, pool -> pool.getQueue().size())
+                .description("Password checks waiting for a hashing thread").register(registry);
+    }
+
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private <T> T run(Supplier<T> task, Timer timer) {
+        Future<T> future;
+
+        try {
+            future = executor.submit(() -> timer != null ? timer.record(task) : task.get());
+        } catch (RejectedExecutionException e) {
+            throw saturated();
+        }
+
+        try {
+            return future.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A check still waiting in the queue is dropped, so no thread hashes for a caller that already gave up
+            future.cancel(false);
+            executor.purge();
+            throw saturated();
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while hashing the password", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException cause ? cause : new IllegalStateException(e.getCause());
+        }
+    }
+
+    private TooManyRequestsException saturated() {
+        Counter counter = rejectedCounter;
+        if (counter != null) counter.increment();
+
+        return new TooManyRequestsException(SATURATED_MESSAGE, timeout);
+    }
+}
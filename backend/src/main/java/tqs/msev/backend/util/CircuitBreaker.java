@@ -0,0 +1,56 @@
+package tqs.msev.backend.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+public class CircuitBreaker {
+    private final int failureThreshold;
+    private final Duration openDuration;
+    private final Clock clock;
+
+    private int consecutiveFailures = 0;
+    private Instant openedAt = null;
+    private boolean trialInProgress = false;
+
+    public CircuitBreaker(int failureThreshold, Duration openDuration, Clock clock) {
+        if (failureThreshold <= 0) throw new IllegalArgumentException("Failure threshold must be greater than 0");
+
+        this.failureThreshold = failureThreshold;
+        this.openDuration = openDuration;
+        this.clock = clock;
+    }
+
+    public synchronized boolean tryAcquire() {
+        if (openedAt == null) return true;
+        if (clock.instant().isBefore(openedAt.plus(openDuration)) || trialInProgress) return false;
+
+        // Half open: let a single call through to probe the upstream
+        trialInProgress = true;
+        return true;
+    }
+
+    public synchronized void recordSuccess() {
+        consecutiveFailures = 0;
+        openedAt = null;
+        trialInProgress = false;
+    }
+
+    public synchronized void recordFailure() {
+        consecutiveFailures++;
+
+        if (trialInProgress || consecutiveFailures >= failureThreshold)
+            openedAt = clock.instant();
+
+        trialInProgress = false;
+    }
+
+    // For calls that never reached the upstream, a probe is handed back without counting for or against it
+    public synchronized void release() {
+        trialInProgress = false;
+    }
+
+    public synchronized boolean isOpen() {
+        return openedAt != null;
+    }
+}
@@ -0,0 +1,26 @@
+package tqs.msev.backend.util;
+
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Component;
+
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+@Component
+public class EntityStreams {
+    private final EntityManager entityManager;
+
+    public EntityStreams(EntityManager entityManager) {
+        this.entityManager = entityManager;
+    }
+
+    // Must run inside a transaction, entities are detached once consumed so the persistence context does not grow with the result
+    public <T> void forEach(Stream<T> stream, Consumer<? super T> action) {
+        try (stream) {
+            stream.forEach(entity -> {
+                action.accept(entity);
+                entityManager.detach(entity);
+            });
+        }
+    }
+}
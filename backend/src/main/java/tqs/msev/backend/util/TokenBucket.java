@@ -0,0 +1,53 @@
+package tqs.msev.backend.util;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+
+public class TokenBucket {
+    private final int capacity;
+    private final Duration refillPeriod;
+    private final Clock clock;
+
+    private double tokens;
+    private Instant updatedAt;
+
+    // Starts full and gains one token every refill period, up to the capacity
+    public TokenBucket(int capacity, Duration refillPeriod, Clock clock) {
+        if (capacity <= 0) throw new IllegalArgumentException("Capacity must be greater than 0");
+        if (refillPeriod.isNegative() || refillPeriod.isZero()) throw new IllegalArgumentException("Refill period must be positive");
+
+        this.capacity = capacity;
+        this.refillPeriod = refillPeriod;
+        this.clock = clock;
+        this.tokens = capacity;
+        this.updatedAt = clock.instant();
+    }
+
+    public synchronized boolean tryConsume() {
+        refill();
+
+        if (tokens < 1) return false;
+
+        tokens--;
+        return true;
+    }
+
+    public synchronized Duration timeUntilNextToken() {
+        refill();
+
+        if (tokens >= 1) return Duration.ZERO;
+
+        return Duration.ofNanos((long) Math.ceil((1 - tokens) * refillPeriod.toNanos()));
+    }
+
+    private void refill() {
+        Instant now = clock.instant();
+        long elapsed = Duration.between(updatedAt, now).toNanos();
+
+        if (elapsed <= 0) return;
+
+        tokens = Math.min(capacity, tokens + (double) elapsed / refillPeriod.toNanos());
+        updatedAt = now;
+    }
+}
@@ -0,0 +1,55 @@
+package tqs.msev.backend.benchmark;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tqs.msev.backend.configuration.CacheConfig;
+import tqs.msev.backend.dto.Coordinates;
+import tqs.msev.backend.geocoding.StubGeocodingClient;
+import tqs.msev.backend.service.GeocodingService;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 5)
+@Threads(32)
+@Fork(1)
+public class GeocodingBenchmark {
+    @Param({"20", "500"})
+    private long latencyMs;
+
+    @Param({"0", "0.3"})
+    private double failureRate;
+
+    @Param({"1000"})
+    private int distinctAddresses;
+
+    private GeocodingService service;
+
+    @Setup
+    public void setup() {
+        service = new GeocodingService(new StubGeocodingClient(Duration.ofMillis(latencyMs), failureRate),
+                new CacheConfig().cacheManager(distinctAddresses / 2, Duration.ofMinutes(10), 100, Duration.ofMinutes(10)),
+                Duration.ofMillis(200), 8, 32, 5, Duration.ofSeconds(1));
+    }
+
+    @TearDown
+    public void teardown() {
+        service.shutdown();
+    }
+
+    @Benchmark
+    public Coordinates lookup() {
+        return service.getCoordinatesForAddress("Rua " + ThreadLocalRandom.current().nextInt(distinctAddresses) + ", Aveiro");
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(GeocodingBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package tqs.msev.backend.benchmark;
+
+import io.jsonwebtoken.Claims;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.io.Decoders;
+import io.jsonwebtoken.security.Keys;
+import jakarta.servlet.http.Cookie;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.test.util.ReflectionTestUtils;
+import tqs.msev.backend.configuration.JwtAuthFilter;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.service.JwtService;
+
+import java.util.Date;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 2, time = 2)
+@Measurement(iterations = 3, time = 3)
+@Fork(1)
+public class JwtAuthFilterBenchmark {
+    private static final String SECRET = "f9924db12318f6a0f1bcfa6e5d0342b65a51022a48a8246cdaa3b1a45493b6b4";
+
+    private JwtAuthFilter filter;
+    private JwtService jwtService;
+    private User user;
+    private String token;
+
+    @Setup
+    public void setup() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", SECRET);
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3600000L);
+
+        user = User.builder().id(UUID.randomUUID()).name("Bench").email("bench@gmail.com").password("pw").build();
+        token = jwtService.generateToken(user);
+        filter = new JwtAuthFilter(jwtService, username -> user, (request, response, handler, exception) -> null);
+    }
+
+    @Benchmark
+    public Object filterRequest() throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/stations");
+        request.setCookies(new Cookie("accessToken", token));
+        MockFilterChain chain = new MockFilterChain();
+
+        filter.doFilter(request, new MockHttpServletResponse(), chain);
+        Object principal = SecurityContextHolder.getContext().getAuthentication().getPrincipal();
+        SecurityContextHolder.clearContext();
+
+        return principal;
+    }
+
+    // What the filter used to do: derive the key and verify the signature once for the username and twice more for the validity check
+    @Benchmark
+    public boolean previousFilterPath() {
+        String username = parseWithFreshKey(token).getSubject();
+        return parseWithFreshKey(token).getSubject().equals(username)
+                && !parseWithFreshKey(token).getExpiration().before(new Date());
+    }
+
+    private static Claims parseWithFreshKey(String token) {
+        return Jwts.parser()
+                .verifyWith(Keys.hmacShaKeyFor(Decoders.BASE64.decode(SECRET)))
+                .build()
+                .parseSignedClaims(token)
+                .getPayload();
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(JwtAuthFilterBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,113 @@
+package tqs.msev.backend.benchmark;
+
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tqs.msev.backend.dto.AvailableSlot;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.index.ReservationCalendar;
+import tqs.msev.backend.repository.ReservationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationAvailabilityBenchmark {
+    private static final int CHARGERS_PER_STATION = 12;
+    private static final int DAYS = 30;
+
+    private final Map<UUID, List<Reservation>> reservationsByCharger = new HashMap<>();
+    private ReservationCalendar calendar;
+    private LocalDateTime start;
+    private LocalDateTime[] queries;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        start = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusHours(1);
+
+        // Every charger is busy most of the month, with 30 to 120 minute reservations and short random gaps
+        for (int c = 0; c < CHARGERS_PER_STATION; c++) {
+            Charger charger = Charger.builder().id(UUID.randomUUID()).build();
+            List<Reservation> reservations = new ArrayList<>();
+            LocalDateTime cursor = start;
+
+            while (cursor.isBefore(start.plusDays(DAYS))) {
+                LocalDateTime end = cursor.plusMinutes(30 + 15L * random.nextInt(7));
+                reservations.add(Reservation.builder().id(UUID.randomUUID()).charger(charger).startTimestamp(cursor).endTimestamp(end).build());
+                cursor = end.plusMinutes(15L * random.nextInt(5));
+            }
+
+            reservationsByCharger.put(charger.getId(), reservations);
+        }
+
+        queries = new LocalDateTime[1024];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = start.plusMinutes(15L * random.nextInt(DAYS * 96 - 16));
+        }
+
+        ReservationRepository repository = Mockito.mock(ReservationRepository.class);
+        Mockito.when(repository.findByChargerIdAndEndTimestampAfter(ArgumentMatchers.any(), ArgumentMatchers.any()))
+                .thenAnswer(invocation -> reservationsByCharger.get(invocation.<UUID>getArgument(0)));
+
+        calendar = new ReservationCalendar(repository);
+        reservationsByCharger.keySet().forEach(id -> calendar.overlaps(id, start, start));
+    }
+
+    // Any charger of the station free for an hour starting in the three hours after a random moment of the month
+    @Benchmark
+    public UUID occupancyBitmap() {
+        LocalDateTime from = nextQuery();
+
+        for (UUID chargerId : reservationsByCharger.keySet()) {
+            List<AvailableSlot> slots = calendar.freeSlots(chargerId, from, from.plusHours(4), Duration.ofMinutes(15), Duration.ofHours(1));
+            if (!slots.isEmpty()) return chargerId;
+        }
+
+        return null;
+    }
+
+    @Benchmark
+    public UUID scanReservations() {
+        LocalDateTime from = nextQuery();
+        LocalDateTime end = from.plusHours(4);
+
+        for (Map.Entry<UUID, List<Reservation>> entry : reservationsByCharger.entrySet()) {
+            for (LocalDateTime slot = from; !slot.plusHours(1).isAfter(end); slot = slot.plusMinutes(15)) {
+                if (isFree(entry.getValue(), slot, slot.plusHours(1))) return entry.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    private LocalDateTime nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    private static boolean isFree(List<Reservation> reservations, LocalDateTime from, LocalDateTime to) {
+        for (Reservation reservation : reservations) {
+            if (from.isBefore(reservation.getEndTimestamp()) && to.isAfter(reservation.getStartTimestamp())) return false;
+        }
+
+        return true;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReservationAvailabilityBenchmark.class.getSimpleName()).build()).run();
+    }
+}
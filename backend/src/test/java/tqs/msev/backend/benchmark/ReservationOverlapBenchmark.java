@@ -0,0 +1,95 @@
+package tqs.msev.backend.benchmark;
+
+import org.mockito.ArgumentMatchers;
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.index.ReservationCalendar;
+import tqs.msev.backend.repository.ReservationRepository;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ReservationOverlapBenchmark {
+    @Param({"1000", "100000"})
+    private int reservationCount;
+
+    private List<Reservation> reservations;
+    private ReservationCalendar calendar;
+    private UUID chargerId;
+    private LocalDateTime[] starts;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        Charger charger = Charger.builder().id(UUID.randomUUID()).build();
+        chargerId = charger.getId();
+        LocalDateTime base = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusDays(1);
+
+        // One hour reservations with a free hour between each pair
+        reservations = new ArrayList<>(reservationCount);
+        for (int i = 0; i < reservationCount; i++) {
+            LocalDateTime start = base.plusHours(2L * i);
+            reservations.add(Reservation.builder().id(UUID.randomUUID()).charger(charger)
+                    .startTimestamp(start).endTimestamp(start.plusHours(1)).build());
+        }
+
+        starts = new LocalDateTime[1024];
+        for (int i = 0; i < starts.length; i++) {
+            starts[i] = base.plusMinutes(30L * random.nextInt(4 * reservationCount));
+        }
+
+        ReservationRepository repository = Mockito.mock(ReservationRepository.class);
+        Mockito.when(repository.findByChargerIdAndEndTimestampAfter(ArgumentMatchers.eq(chargerId), ArgumentMatchers.any()))
+                .thenReturn(reservations);
+
+        calendar = new ReservationCalendar(repository);
+        calendar.overlaps(chargerId, base, base);
+    }
+
+    @Benchmark
+    public boolean linearScan() {
+        LocalDateTime start = nextStart();
+        LocalDateTime end = start.plusMinutes(45);
+
+        for (Reservation reservation : reservations) {
+            if (start.isBefore(reservation.getEndTimestamp()) && end.isAfter(reservation.getStartTimestamp())) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    @Benchmark
+    public boolean calendar() {
+        LocalDateTime start = nextStart();
+
+        return calendar.overlaps(chargerId, start, start.plusMinutes(45));
+    }
+
+    private LocalDateTime nextStart() {
+        next = (next + 1) & (starts.length - 1);
+        return starts[next];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ReservationOverlapBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,104 @@
+package tqs.msev.backend.benchmark;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.index.StationCatalog;
+import tqs.msev.backend.index.StationNameIndex;
+import tqs.msev.backend.index.StationTrigramIndex;
+import tqs.msev.backend.repository.StationRepository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StationNameSearchBenchmark {
+    private static final String[] CITIES = {"Aveiro", "Porto", "Lisboa", "Braga", "Coimbra", "Faro", "Viseu", "Leiria"};
+
+    @Param({"1000", "10000", "50000"})
+    private int stationCount;
+
+    private List<Station> stations;
+    private StationNameIndex index;
+    private StationTrigramIndex trigramIndex;
+    private String[] queries;
+    private String[] typos;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        stations = new ArrayList<>(stationCount);
+
+        for (int i = 0; i < stationCount; i++) {
+            String name = CITIES[random.nextInt(CITIES.length)] + " " + random.nextInt(stationCount);
+            stations.add(Station.builder().id(UUID.randomUUID()).name(name).address(name).build());
+        }
+
+        queries = new String[1024];
+        for (int i = 0; i < queries.length; i++) {
+            String name = stations.get(random.nextInt(stationCount)).getName();
+            queries[i] = name.substring(0, 1 + random.nextInt(name.length()));
+        }
+
+        typos = new String[1024];
+        for (int i = 0; i < typos.length; i++) {
+            StringBuilder name = new StringBuilder(stations.get(random.nextInt(stationCount)).getName());
+            name.deleteCharAt(1 + random.nextInt(name.length() - 2));
+            typos[i] = name.toString();
+        }
+
+        StationRepository repository = Mockito.mock(StationRepository.class);
+        Mockito.when(repository.findAll()).thenReturn(stations);
+
+        StationCatalog catalog = new StationCatalog(repository);
+        index = new StationNameIndex(catalog);
+        index.findByPrefix("", 1);
+        trigramIndex = new StationTrigramIndex(catalog);
+        trigramIndex.search("warmup", 1);
+    }
+
+    @Benchmark
+    public List<Station> streamFilter() {
+        String query = nextQuery();
+
+        return stations.stream()
+                .filter(station -> station.getName().toLowerCase().startsWith(query.toLowerCase()))
+                .toList();
+    }
+
+    @Benchmark
+    public List<Station> prefixIndex() {
+        return index.findByPrefix(nextQuery(), Integer.MAX_VALUE);
+    }
+
+    @Benchmark
+    public List<Station> prefixIndexAutocomplete() {
+        return index.findByPrefix(nextQuery(), 10);
+    }
+
+    @Benchmark
+    public List<Station> trigramIndexFuzzy() {
+        return trigramIndex.search(typos[next = (next + 1) & (typos.length - 1)], 10);
+    }
+
+    private String nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StationNameSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,94 @@
+package tqs.msev.backend.benchmark;
+
+import org.mockito.Mockito;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.index.StationCatalog;
+import tqs.msev.backend.index.StationSpatialIndex;
+import tqs.msev.backend.repository.StationRepository;
+import tqs.msev.backend.util.Util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StationSearchBenchmark {
+    @Param({"1000", "10000", "50000"})
+    private int stationCount;
+
+    private List<Station> stations;
+    private StationSpatialIndex index;
+    private double[][] queries;
+    private int next;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        stations = new ArrayList<>(stationCount);
+
+        for (int i = 0; i < stationCount; i++) {
+            stations.add(Station.builder()
+                    .id(UUID.randomUUID())
+                    .name("Station " + i)
+                    .address("Street " + i)
+                    .latitude(36 + random.nextDouble() * 24)
+                    .longitude(-10 + random.nextDouble() * 40)
+                    .build());
+        }
+
+        queries = new double[1024][];
+        for (int i = 0; i < queries.length; i++) {
+            queries[i] = new double[]{36 + random.nextDouble() * 24, -10 + random.nextDouble() * 40};
+        }
+
+        StationRepository repository = Mockito.mock(StationRepository.class);
+        Mockito.when(repository.findAll()).thenReturn(stations);
+
+        index = new StationSpatialIndex(new StationCatalog(repository));
+        index.nearest(0, 0, 1);
+    }
+
+    @Benchmark
+    public List<Station> fullSort() {
+        double[] query = nextQuery();
+
+        return stations.stream().sorted(Comparator.comparingDouble(station ->
+                Util.distanceBetweenCoordinates(query[0], query[1], station.getLatitude(), station.getLongitude())
+        )).limit(10).toList();
+    }
+
+    @Benchmark
+    public List<Station> spatialIndex() {
+        double[] query = nextQuery();
+
+        return index.nearest(query[0], query[1], 10);
+    }
+
+    @Benchmark
+    public List<Station> spatialIndexRadius() {
+        double[] query = nextQuery();
+
+        return index.withinRadius(query[0], query[1], 20);
+    }
+
+    private double[] nextQuery() {
+        next = (next + 1) & (queries.length - 1);
+        return queries[next];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(StationSearchBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,82 @@
+package tqs.msev.backend.configuration;
+
+import jakarta.servlet.http.Cookie;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.GrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.servlet.HandlerExceptionResolver;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.service.JwtService;
+
+import java.util.HashMap;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class JwtAuthFilterTest {
+    @Mock
+    private UserDetailsService userDetailsService;
+
+    @Mock
+    private HandlerExceptionResolver handlerExceptionResolver;
+
+    private JwtService jwtService;
+    private JwtAuthFilter filter;
+    private User operator;
+
+    @BeforeEach
+    void setup() {
+        jwtService = new JwtService();
+        ReflectionTestUtils.setField(jwtService, "secretKey", "f9924db12318f6a0f1bcfa6e5d0342b65a51022a48a8246cdaa3b1a45493b6b4");
+        ReflectionTestUtils.setField(jwtService, "jwtExpiration", 3600000L);
+
+        filter = new JwtAuthFilter(jwtService, userDetailsService, handlerExceptionResolver);
+        operator = User.builder().id(UUID.randomUUID()).name("Operator").email("operator@gmail.com").password("pw").isOperator(true).build();
+    }
+
+    @AfterEach
+    void teardown() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    void whenTokenCarriesIdAndRole_thenAuthenticateWithoutLoadingUser() throws Exception {
+        filter(jwtService.generateToken(operator));
+
+        Authentication authentication = SecurityContextHolder.getContext().getAuthentication();
+        assertThat(authentication.getPrincipal()).isEqualTo(new AuthenticatedUser(operator.getId(), "operator@gmail.com", true));
+        assertThat(authentication.getName()).isEqualTo("operator@gmail.com");
+        assertThat(authentication.getAuthorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_OPERATOR");
+        verifyNoInteractions(userDetailsService);
+    }
+
+    @Test
+    void whenTokenOnlyCarriesEmail_thenLoadUser() throws Exception {
+        when(userDetailsService.loadUserByUsername("operator@gmail.com")).thenReturn(operator);
+
+        filter(jwtService.generateToken(new HashMap<>(), operator));
+
+        assertThat(AuthenticatedUser.current()).isEqualTo(AuthenticatedUser.of(operator));
+        verify(userDetailsService).loadUserByUsername("operator@gmail.com");
+    }
+
+    private void filter(String token) throws Exception {
+        MockHttpServletRequest request = new MockHttpServletRequest("GET", "/api/v1/chargers");
+        request.setCookies(new Cookie("accessToken", token));
+
+        filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+    }
+}
@@ -10,6 +10,7 @@ import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
 
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import tqs.msev.backend.dto.ChargerStatistics;
 import tqs.msev.backend.entity.ChargeSession;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.exception.GlobalExceptionHandler;
@@ -22,6 +23,7 @@ import java.util.List;
 import java.util.UUID;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.when;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
@@ -100,4 +102,20 @@ class ChargeSessionControllerTest {
                 .andExpect(jsonPath("$", hasSize(2)));
 
     }
+
+    @WithUserDetails("test_operator")
+    @Test
+    @Requirement("MSEV-25")
+    void whenGetChargerSummary_thenReturnAggregatedStatistics() throws Exception {
+        UUID chargerId = UUID.randomUUID();
+
+        when(chargerService.getChargerSummary(Mockito.eq(chargerId), Mockito.any(), Mockito.any()))
+                .thenReturn(ChargerStatistics.builder().chargerId(chargerId).sessions(3).energy(21).build());
+
+        mockMvc.perform(get("/api/v1/charge-sessions/stats/{chargerId}/summary", chargerId)
+                        .param("from", "2025-05-01T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions", is(3)))
+                .andExpect(jsonPath("$.energy", is(21.0)));
+    }
 }
@@ -2,6 +2,9 @@ package tqs.msev.backend.controller;
 
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.when;
+import java.time.LocalDateTime;
+import tqs.msev.backend.dto.AvailableSlot;
+import tqs.msev.backend.dto.ChargerAvailability;
 import java.util.List;
 import java.util.NoSuchElementException;
 
@@ -12,12 +15,15 @@ import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import tqs.msev.backend.configuration.TestSecurityConfig;
+import tqs.msev.backend.service.ChargerEventBroadcaster;
 import tqs.msev.backend.service.ChargerService;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.exception.GlobalExceptionHandler;
 import java.util.UUID;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 import org.springframework.test.web.servlet.MockMvc;
 
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
@@ -29,6 +35,8 @@ import static org.springframework.test.web.servlet.request.MockMvcRequestBuilder
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.hamcrest.Matchers.containsString;
 import tqs.msev.backend.entity.Reservation;
 import tqs.msev.backend.service.JwtService;
@@ -49,6 +57,9 @@ class ChargerControllerTest {
     @MockitoBean
     private JwtService jwtService;
 
+    @MockitoBean
+    private ChargerEventBroadcaster chargerEvents;
+
     @Test
     @WithMockUser(username = "test")
     void whenStationExists_thenReturnChargers() throws Exception {
@@ -105,7 +116,7 @@ class ChargerControllerTest {
         UUID chargerId = UUID.randomUUID();
         List<Reservation> mockReservations = List.of();
         
-        when(reservationService.getFutureReservationsOnCharger(chargerId)).thenReturn(mockReservations);
+        when(reservationService.getReservationsOnCharger(chargerId, null, null)).thenReturn(mockReservations);
         
         mockMvc.perform(
             get("/api/v1/chargers/{chargerId}/reservations", chargerId)
@@ -115,13 +126,102 @@ class ChargerControllerTest {
         .andExpect(jsonPath("$").isEmpty());
     }
 
+    @Test
+    @WithMockUser(username = "test")
+    void givenWindow_whenGetChargerReservations_thenReturnReservationsInWindow() throws Exception {
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 2, 0, 0);
+
+        when(reservationService.getReservationsOnCharger(chargerId, from, to)).thenReturn(List.of(new Reservation()));
+
+        mockMvc.perform(
+            get("/api/v1/chargers/{chargerId}/reservations", chargerId)
+                .param("from", "2030-01-01T00:00:00")
+                .param("to", "2030-01-02T00:00:00")
+        )
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$.length()").value(1));
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void givenWindowTooLong_whenGetChargerReservations_thenReturnBadRequest() throws Exception {
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2031, 1, 1, 0, 0);
+
+        when(reservationService.getReservationsOnCharger(chargerId, from, to))
+                .thenThrow(new IllegalArgumentException("Window cannot be longer than 31 days"));
+
+        mockMvc.perform(
+            get("/api/v1/chargers/{chargerId}/reservations", chargerId)
+                .param("from", "2030-01-01T00:00:00")
+                .param("to", "2031-01-01T00:00:00")
+        )
+        .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void whenGetChargerAvailability_thenReturnFreeSlots() throws Exception {
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 8, 0);
+        LocalDateTime to = LocalDateTime.of(2030, 1, 1, 12, 0);
+
+        when(chargerService.getChargerById(chargerId)).thenReturn(new Charger());
+        when(reservationService.getChargerAvailability(chargerId, from, to, 60, null))
+                .thenReturn(List.of(new AvailableSlot(from, from.plusHours(2))));
+
+        mockMvc.perform(
+            get("/api/v1/chargers/{chargerId}/availability", chargerId)
+                .param("from", "2030-01-01T08:00:00")
+                .param("to", "2030-01-01T12:00:00")
+                .param("granularity", "60")
+        )
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].start").value("2030-01-01T08:00:00"))
+        .andExpect(jsonPath("$[0].end").value("2030-01-01T10:00:00"));
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void whenGetStationAvailability_thenReturnFreeSlotsPerCharger() throws Exception {
+        UUID stationId = UUID.randomUUID();
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 8, 0);
+
+        when(reservationService.getStationAvailability(stationId, null, null, null, 60))
+                .thenReturn(List.of(new ChargerAvailability(chargerId, List.of(new AvailableSlot(from, from.plusHours(1))))));
+
+        mockMvc.perform(
+            get("/api/v1/chargers/station/{stationId}/availability", stationId)
+                .param("duration", "60")
+        )
+        .andExpect(status().isOk())
+        .andExpect(jsonPath("$[0].chargerId").value(chargerId.toString()))
+        .andExpect(jsonPath("$[0].slots[0].start").value("2030-01-01T08:00:00"));
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void whenGetAvailabilityOfInvalidStation_thenReturnNotFound() throws Exception {
+        UUID stationId = UUID.randomUUID();
+
+        when(reservationService.getStationAvailability(stationId, null, null, null, null))
+                .thenThrow(new NoSuchElementException("Invalid station id"));
+
+        mockMvc.perform(get("/api/v1/chargers/station/{stationId}/availability", stationId))
+                .andExpect(status().isNotFound());
+    }
+
     @Test
     @WithMockUser(username = "test")
     void whenThereAreCloseReservations__thenReturnList() throws Exception {
         UUID chargerId = UUID.randomUUID();
         List<Reservation> mockReservations = List.of(new Reservation(), new Reservation());
         
-        when(reservationService.getFutureReservationsOnCharger(chargerId)).thenReturn(mockReservations);
+        when(reservationService.getReservationsOnCharger(chargerId, null, null)).thenReturn(mockReservations);
         
         mockMvc.perform(
             get("/api/v1/chargers/{chargerId}/reservations", chargerId)
@@ -208,8 +308,60 @@ class ChargerControllerTest {
         .andExpect(jsonPath("$.price").value(0.7));
     }
 
-    
+    @Test
+    @WithMockUser(username = "test")
+    void whenSubscribeToChargerEvents_thenStreamIsOpen() throws Exception {
+        UUID chargerId = UUID.randomUUID();
 
+        SseEmitter emitter = new SseEmitter();
+        emitter.send(SseEmitter.event().name("status").data("AVAILABLE"));
 
+        when(chargerService.getChargerById(chargerId)).thenReturn(new Charger());
+        when(chargerEvents.subscribeToCharger(Mockito.eq(chargerId), Mockito.any())).thenReturn(emitter);
 
-}
\ No newline at end of file
+        mockMvc.perform(get("/api/v1/chargers/{chargerId}/events", chargerId).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted())
+                .andExpect(header().string("X-Accel-Buffering", "no"))
+                .andExpect(content().string(containsString("event:status")));
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void whenSubscribeToEventsOfInvalidCharger_thenReturnNotFound() throws Exception {
+        UUID chargerId = UUID.randomUUID();
+
+        when(chargerService.getChargerById(chargerId)).thenThrow(new NoSuchElementException("Invalid charger id"));
+
+        mockMvc.perform(get("/api/v1/chargers/{chargerId}/events", chargerId).accept(MediaType.TEXT_EVENT_STREAM))
+                .andExpect(status().isNotFound())
+                .andExpect(content().string(containsString("Invalid charger id")));
+        Mockito.verifyNoInteractions(chargerEvents);
+    }
+
+    @Test
+    @WithUserDetails("test_operator")
+    @Requirement("MSEV-20")
+    void whenChargersSendReadings_thenReturnAccepted() throws Exception {
+        mockMvc.perform(post("/api/v1/chargers/telemetry")
+                        .contentType("application/json")
+                        .content("[{\"chargerId\":\"" + UUID.randomUUID() + "\",\"consumption\":1.5,\"chargingSpeed\":50}]")
+                        .with(csrf()))
+                .andExpect(status().isAccepted());
+
+        Mockito.verify(chargerService).recordReadings(Mockito.argThat(readings -> readings.size() == 1));
+    }
+
+    @Test
+    @WithUserDetails("test_operator")
+    @Requirement("MSEV-20")
+    void whenReadingsAreForUnknownChargers_thenReturnBadRequest() throws Exception {
+        doThrow(new IllegalArgumentException("Unknown charger ids")).when(chargerService).recordReadings(Mockito.any());
+
+        mockMvc.perform(post("/api/v1/chargers/telemetry")
+                        .contentType("application/json")
+                        .content("[{\"chargerId\":\"" + UUID.randomUUID() + "\",\"consumption\":1.5,\"chargingSpeed\":50}]")
+                        .with(csrf()))
+                .andExpect(status().isBadRequest());
+    }
+}
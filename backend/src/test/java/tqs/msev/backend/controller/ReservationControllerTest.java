@@ -6,6 +6,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.MediaType;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import tqs.msev.backend.configuration.TestSecurityConfig;
+import tqs.msev.backend.dto.CursorPage;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.entity.User;
 import tqs.msev.backend.exception.GlobalExceptionHandler;
@@ -22,6 +23,7 @@ import tqs.msev.backend.entity.Reservation;
 import static org.mockito.Mockito.*;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 
@@ -42,6 +44,36 @@ class ReservationControllerTest {
     @MockitoBean
     private JwtService jwtService;
 
+    @Test
+    @WithMockUser(username = "test")
+    void givenLimit_whenGetChargerReservations_thenReturnPageAndNextCursor() throws Exception {
+        UUID chargerId = UUID.randomUUID();
+        String cursor = "2025-05-01T10:00_" + UUID.randomUUID();
+        String nextCursor = "2025-05-01T11:00_" + UUID.randomUUID();
+
+        when(reservationService.getChargerReservations(chargerId, cursor, 1))
+                .thenReturn(new CursorPage<>(List.of(new Reservation()), nextCursor));
+
+        mockMvc.perform(
+            get("/api/v1/reservations")
+                .param("chargerId", chargerId.toString())
+                .param("cursor", cursor)
+                .param("limit", "1")
+        )
+        .andExpect(status().isOk())
+        .andExpect(header().string("X-Next-Cursor", nextCursor))
+        .andExpect(jsonPath("$").isArray());
+
+        verify(reservationService, never()).getChargerReservations(chargerId);
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void givenNoFilter_whenStreamReservations_thenReturnBadRequest() throws Exception {
+        mockMvc.perform(get("/api/v1/reservations").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     @WithMockUser(username = "test")
     @Requirement("MSEV-19")
@@ -4,13 +4,19 @@ import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.WebMvcTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.http.MediaType;
 import org.springframework.security.test.context.support.WithMockUser;
 import org.springframework.security.test.context.support.WithUserDetails;
 import org.springframework.test.context.bean.override.mockito.MockitoBean;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 import tqs.msev.backend.configuration.TestSecurityConfig;
+import tqs.msev.backend.dto.CursorPage;
+import tqs.msev.backend.dto.StationCluster;
+import tqs.msev.backend.dto.StationStatistics;
+import tqs.msev.backend.dto.StationViewport;
 import tqs.msev.backend.entity.ChargeSession;
 import tqs.msev.backend.entity.Charger;
 import tqs.msev.backend.entity.Station;
@@ -23,13 +29,21 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.UUID;
+import java.util.function.Consumer;
 
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.when;
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.springframework.security.test.web.servlet.request.SecurityMockMvcRequestPostProcessors.csrf;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
 @WebMvcTest(StationController.class)
@@ -64,6 +78,66 @@ class StationControllerTest {
                 .andExpect(jsonPath("$[1].name", is(station2.getName())));
     }
 
+    @Test
+    @WithMockUser(username = "test")
+    void givenLimit_whenGetStations_thenReturnPageAndNextCursor() throws Exception {
+        UUID cursor = UUID.randomUUID();
+        Station station1 = new Station();
+        station1.setName("Station 1");
+
+        when(service.getStations(null, 1)).thenReturn(new CursorPage<>(List.of(station1), cursor.toString()));
+
+        mvc.perform(get("/api/v1/stations").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Next-Cursor", cursor.toString()))
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].name", is(station1.getName())));
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void givenLastCursor_whenGetStations_thenReturnNoNextCursor() throws Exception {
+        UUID cursor = UUID.randomUUID();
+
+        when(service.getStations(cursor, null)).thenReturn(new CursorPage<>(List.of(), null));
+
+        mvc.perform(get("/api/v1/stations").param("cursor", cursor.toString()))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist("X-Next-Cursor"))
+                .andExpect(jsonPath("$.length()", is(0)));
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void givenNdjsonAccept_whenGetStations_thenStreamOneStationPerLine() throws Exception {
+        Station station1 = new Station();
+        station1.setName("Station 1");
+
+        Station station2 = new Station();
+        station2.setName("Station 2");
+
+        doAnswer(invocation -> {
+            Consumer<Station> action = invocation.getArgument(0);
+            action.accept(station1);
+            action.accept(station2);
+            return null;
+        }).when(service).streamStations(any());
+
+        MvcResult result = mvc.perform(get("/api/v1/stations").accept(MediaType.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_NDJSON))
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lines = body.split("\n");
+        assertThat(lines).hasSize(2);
+        assertThat(lines[0]).contains("\"name\":\"Station 1\"");
+        assertThat(lines[1]).contains("\"name\":\"Station 2\"");
+    }
+
     @Test
     @WithMockUser(username = "test")
     void givenOneStation_whenGetStation_thenReturnStation() throws Exception {
@@ -96,7 +170,7 @@ class StationControllerTest {
         Station station1 = new Station();
         station1.setName("Station 1");
 
-        when(service.searchByName("Station 1")).thenReturn(List.of(station1));
+        when(service.searchByName("Station 1", null)).thenReturn(List.of(station1));
 
         mvc.perform(get("/api/v1/stations/search-by-name").param("name", "Station 1"))
                 .andExpect(status().isOk())
@@ -110,7 +184,7 @@ class StationControllerTest {
         station1.setName("Station 1");
         station1.setAddress("NY Street 1");
 
-        when(service.searchByAddress("NY S")).thenReturn(List.of(station1));
+        when(service.searchByAddress("NY S", null, null)).thenReturn(List.of(station1));
 
         mvc.perform(get("/api/v1/stations/search-by-address").param("address", "NY S"))
                 .andExpect(status().isOk())
@@ -118,6 +192,54 @@ class StationControllerTest {
 
     }
 
+    @Test
+    @WithMockUser(username = "test")
+    void givenLimitAndMaxDistance_whenSearchStationsByAddress_thenReturnNearestStations() throws Exception {
+        Station station1 = new Station();
+        station1.setName("Station 1");
+
+        when(service.searchByAddress("NY S", 1, 5.0)).thenReturn(List.of(station1));
+
+        mvc.perform(get("/api/v1/stations/search-by-address")
+                        .param("address", "NY S")
+                        .param("limit", "1")
+                        .param("maxDistanceKm", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()", is(1)))
+                .andExpect(jsonPath("$[0].name", is(station1.getName())));
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void givenInvalidLimit_whenSearchStationsByAddress_thenReturnBadRequest() throws Exception {
+        when(service.searchByAddress("NY S", 0, null)).thenThrow(new IllegalArgumentException("Limit must be greater than 0"));
+
+        mvc.perform(get("/api/v1/stations/search-by-address")
+                        .param("address", "NY S")
+                        .param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @WithMockUser(username = "test")
+    void givenViewport_whenGetStationsInViewport_thenReturnStationsAndClusters() throws Exception {
+        Station station1 = new Station();
+        station1.setName("Station 1");
+
+        when(service.getStationsInViewport(39, -9, 41, -7, 8))
+                .thenReturn(new StationViewport(List.of(station1), List.of(new StationCluster(40, -8, 5))));
+
+        mvc.perform(get("/api/v1/stations/viewport")
+                        .param("minLat", "39")
+                        .param("minLon", "-9")
+                        .param("maxLat", "41")
+                        .param("maxLon", "-7")
+                        .param("zoom", "8"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.stations[0].name", is(station1.getName())))
+                .andExpect(jsonPath("$.clusters[0].count", is(5)));
+    }
+
     @Test
     @WithUserDetails("test_operator")
     @Requirement("MSEV-23")
@@ -207,4 +329,25 @@ class StationControllerTest {
                 .andExpect(status().isNotFound());
     }
 
+    @Test
+    @WithUserDetails("test_operator")
+    @Requirement("MSEV-25")
+    void givenDateRange_whenGetStationSummary_thenReturnSummary() throws Exception {
+        UUID stationId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2025, 5, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 5, 2, 0, 0);
+
+        when(service.getStationById(stationId)).thenReturn(new Station());
+        when(chargerService.getStationSummary(stationId, from, to)).thenReturn(StationStatistics.builder()
+                .stationId(stationId).from(from).to(to).chargers(2).sessions(4).energy(40).revenue(10)
+                .averageDurationMinutes(60).utilisation(0.5).build());
+
+        mvc.perform(get("/api/v1/stations/stats/" + stationId + "/summary")
+                        .param("from", "2025-05-01T00:00:00")
+                        .param("to", "2025-05-02T00:00:00"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.sessions", is(4)))
+                .andExpect(jsonPath("$.revenue", is(10.0)))
+                .andExpect(jsonPath("$.utilisation", is(0.5)));
+    }
 }
@@ -0,0 +1,164 @@
+package tqs.msev.backend.index;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import tqs.msev.backend.dto.ChargerStatusEvent;
+import tqs.msev.backend.entity.ChargeSession;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Charger.ChargerStatus;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.repository.ChargerRepository;
+
+import java.util.NoSuchElementException;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import(ChargerStatusTable.class)
+class ChargerStatusTableTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChargerStatusTable chargerStatusTable;
+
+    @Autowired
+    private ChargerRepository chargerRepository;
+
+    private Charger charger;
+
+    @BeforeEach
+    void setup() {
+        // The table outlives each test's rolled back transaction, so start from nothing left to write
+        chargerStatusTable.flush();
+
+        Station station = entityManager.persist(Station.builder().name("Station 1").address("Street 1").latitude(40).longitude(-8).build());
+        charger = entityManager.persistAndFlush(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+        entityManager.clear();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenStatusMoves_thenReadsSeeItBeforeItIsWritten() {
+        assertThat(chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.OUT_OF_ORDER)).isTrue();
+
+        assertThat(storedStatus()).isEqualTo(ChargerStatus.AVAILABLE);
+        Charger loaded = chargerRepository.findById(charger.getId()).orElseThrow();
+        assertThat(loaded.getStatus()).isEqualTo(ChargerStatus.OUT_OF_ORDER);
+
+        // The status shown on load does not make the charger dirty
+        entityManager.flush();
+        entityManager.clear();
+        assertThat(chargerRepository.findById(charger.getId()).orElseThrow().getVersion()).isEqualTo(loaded.getVersion());
+
+        assertThat(chargerStatusTable.flush()).isEqualTo(1);
+        assertThat(storedStatus()).isEqualTo(ChargerStatus.OUT_OF_ORDER);
+        assertThat(chargerStatusTable.flush()).isZero();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenChargerIsSaved_thenItsStatusIsNotOverwritten() {
+        chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.TEMPORARILY_DISABLED);
+        chargerStatusTable.flush();
+        entityManager.clear();
+
+        Charger stale = chargerRepository.findById(charger.getId()).orElseThrow();
+        chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.AVAILABLE);
+        stale.setPrice(0.7);
+        chargerRepository.saveAndFlush(stale);
+        chargerStatusTable.flush();
+        entityManager.clear();
+
+        Charger saved = chargerRepository.findById(charger.getId()).orElseThrow();
+        assertThat(saved.getPrice()).isEqualTo(0.7);
+        assertThat(storedStatus()).isEqualTo(ChargerStatus.AVAILABLE);
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenChargerIsClaimed_thenOtherTransitionsWaitUntilItSettles() {
+        ChargerStatusTable.Claim claim = chargerStatusTable.tryClaim(charger.getId());
+
+        assertThat(claim).isNotNull();
+        assertThat(chargerStatusTable.tryClaim(charger.getId())).isNull();
+        assertThat(chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.OUT_OF_ORDER)).isFalse();
+
+        chargerStatusTable.settle(claim, ChargerStatus.IN_USE);
+        chargerStatusTable.release(claim);
+
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(ChargerStatus.IN_USE);
+        assertThat(chargerStatusTable.tryClaim(charger.getId())).isNotNull();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenStatusChanges_thenItsSequenceGrows() {
+        long initial = chargerStatusTable.eventOf(charger.getId()).getSequence();
+
+        chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.OUT_OF_ORDER);
+        chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.OUT_OF_ORDER);
+        ChargerStatusTable.Claim claim = chargerStatusTable.tryClaim(charger.getId());
+        chargerStatusTable.release(claim);
+
+        ChargerStatusEvent event = chargerStatusTable.eventOf(charger.getId());
+        assertThat(event.getStatus()).isEqualTo(ChargerStatus.OUT_OF_ORDER);
+        assertThat(event.getSequence()).isEqualTo(initial + 1);
+        assertThat(event.getStationId()).isEqualTo(charger.getStation().getId());
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenClaimIsReleased_thenStatusIsUnchanged() {
+        ChargerStatusTable.Claim claim = chargerStatusTable.tryClaim(charger.getId());
+        chargerStatusTable.release(claim);
+
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(ChargerStatus.AVAILABLE);
+        assertThat(chargerStatusTable.flush()).isZero();
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenChargerIsOutOfService_thenItCannotGoInUse() {
+        chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.OUT_OF_ORDER);
+
+        assertThatThrownBy(() -> chargerStatusTable.tryMove(charger.getId(), status -> ChargerStatus.IN_USE))
+                .isInstanceOf(IllegalStateException.class);
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(ChargerStatus.OUT_OF_ORDER);
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenChargerWasLeftAvailableWithOpenSession_thenItIsMarkedInUse() {
+        User user = entityManager.persist(User.builder().name("User").email("user@ua.pt").password("pw").build());
+        entityManager.persistAndFlush(ChargeSession.builder().user(user).charger(chargerRepository.getReferenceById(charger.getId())).build());
+
+        chargerStatusTable.reconcile();
+
+        assertThat(storedStatus()).isEqualTo(ChargerStatus.IN_USE);
+    }
+
+    @Test
+    void whenChargerDoesNotExist_thenThrowException() {
+        UUID id = UUID.randomUUID();
+
+        assertThatThrownBy(() -> chargerStatusTable.statusOf(id))
+                .isInstanceOf(NoSuchElementException.class);
+    }
+
+    // Read as a scalar, so the entity listener does not replace it with the status held in memory
+    private ChargerStatus storedStatus() {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT c.status FROM Charger c WHERE c.id = :id", ChargerStatus.class)
+                .setParameter("id", charger.getId())
+                .getSingleResult();
+    }
+}
@@ -0,0 +1,238 @@
+package tqs.msev.backend.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tqs.msev.backend.dto.AvailableSlot;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.repository.ReservationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class ReservationCalendarTest {
+    @Mock
+    private ReservationRepository repository;
+
+    private ReservationCalendar calendar;
+    private Charger charger;
+    private LocalDateTime base;
+    // What the database holds, which other instances may change behind the calendar
+    private final List<Reservation> database = new ArrayList<>();
+
+    @BeforeEach
+    void setup() {
+        calendar = new ReservationCalendar(repository);
+        charger = Charger.builder().id(UUID.randomUUID()).build();
+        base = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusDays(1);
+
+        lenient().when(repository.findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(any(), any(), any()))
+                .thenAnswer(invocation -> database.stream()
+                        .filter(reservation -> reservation.getCharger().getId().equals(invocation.getArgument(0))
+                                && reservation.getStartTimestamp().isBefore(invocation.getArgument(1))
+                                && reservation.getEndTimestamp().isAfter(invocation.getArgument(2)))
+                        .toList());
+        lenient().when(repository.findByChargerIdInAndStartTimestampBeforeAndEndTimestampAfter(any(), any(), any()))
+                .thenAnswer(invocation -> database.stream()
+                        .filter(reservation -> invocation.<Collection<UUID>>getArgument(0).contains(reservation.getCharger().getId())
+                                && reservation.getStartTimestamp().isBefore(invocation.getArgument(1))
+                                && reservation.getEndTimestamp().isAfter(invocation.getArgument(2)))
+                        .toList());
+    }
+
+    @Test
+    void givenFutureReservations_whenCheckOverlap_thenOnlyIntersectingRangesOverlap() {
+        stored(reservation(10, 11), reservation(13, 15));
+
+        assertThat(calendar.overlaps(charger.getId(), at(10), at(11))).isTrue();
+        assertThat(calendar.overlaps(charger.getId(), at(9), at(10).plusMinutes(1))).isTrue();
+        assertThat(calendar.overlaps(charger.getId(), at(14), at(14).plusMinutes(15))).isTrue();
+        assertThat(calendar.overlaps(charger.getId(), at(8), at(20))).isTrue();
+
+        assertThat(calendar.overlaps(charger.getId(), at(11), at(13))).isFalse();
+        assertThat(calendar.overlaps(charger.getId(), at(9), at(10))).isFalse();
+        assertThat(calendar.overlaps(charger.getId(), at(15), at(16))).isFalse();
+
+        verify(repository, times(1)).findByChargerIdAndEndTimestampAfter(eq(charger.getId()), any());
+    }
+
+    @Test
+    void givenLongReservationBeforeShortOnes_whenCheckOverlap_thenFindLongReservation() {
+        stored(reservation(0, 20), reservation(1, 2), reservation(3, 4));
+
+        assertThat(calendar.overlaps(charger.getId(), at(10), at(11))).isTrue();
+    }
+
+    @Test
+    void whenReserve_thenSaveAndRejectSameSlot() {
+        stored();
+        Reservation first = Reservation.builder().charger(charger).startTimestamp(at(10)).endTimestamp(at(11)).build();
+        Reservation second = Reservation.builder().charger(charger).startTimestamp(at(10).plusMinutes(30)).endTimestamp(at(12)).build();
+
+        Reservation saved = calendar.reserve(first, reservation -> withId(reservation));
+
+        assertThat(saved.getId()).isNotNull();
+        assertThatThrownBy(() -> calendar.reserve(second, reservation -> withId(reservation)))
+                .isInstanceOf(IllegalArgumentException.class)
+                .hasMessage(ReservationCalendar.OVERLAP_MESSAGE);
+    }
+
+    @Test
+    void givenReservationCancelledOnAnotherInstance_whenReserveItsSlot_thenDropItAndSave() {
+        Reservation cancelled = reservation(10, 11);
+        stored(cancelled, reservation(13, 15));
+        assertThat(calendar.overlaps(charger.getId(), at(10), at(11))).isTrue();
+        database.remove(cancelled);
+
+        Reservation saved = calendar.reserve(Reservation.builder().charger(charger).startTimestamp(at(10)).endTimestamp(at(11)).build(),
+                reservation -> withId(reservation));
+
+        assertThat(saved.getId()).isNotNull();
+        assertThat(calendar.overlaps(charger.getId(), at(10), at(11))).isTrue();
+        assertThat(calendar.overlaps(charger.getId(), at(14), at(15))).isTrue();
+    }
+
+    @Test
+    void givenReservationMadeOnAnotherInstance_whenDatabaseRefusesSlot_thenCalendarLearnsIt() {
+        stored();
+        Reservation elsewhere = reservation(10, 11);
+        database.add(elsewhere);
+        Reservation request = Reservation.builder().charger(charger).startTimestamp(at(10)).endTimestamp(at(11)).build();
+
+        assertThatThrownBy(() -> calendar.reserve(request, reservation -> {
+            throw new IllegalArgumentException(ReservationCalendar.OVERLAP_MESSAGE);
+        })).isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(12), Duration.ofMinutes(15), Duration.ofMinutes(15)))
+                .containsExactly(slot(at(8), at(10)), slot(at(11), at(12)));
+    }
+
+    @Test
+    void whenRelease_thenSlotIsFreeAgain() {
+        Reservation existing = reservation(10, 11);
+        stored(existing);
+
+        assertThat(calendar.overlaps(charger.getId(), at(10), at(11))).isTrue();
+
+        calendar.release(existing);
+
+        assertThat(calendar.overlaps(charger.getId(), at(10), at(11))).isFalse();
+    }
+
+    @Test
+    void whenWarmUp_thenLoadEveryChargerWithOneQuery() {
+        Charger other = Charger.builder().id(UUID.randomUUID()).build();
+        Reservation otherReservation = reservation(10, 11);
+        otherReservation.setCharger(other);
+        database.addAll(List.of(reservation(10, 11), otherReservation));
+        when(repository.findByEndTimestampAfter(any())).thenReturn(List.copyOf(database));
+
+        calendar.warmUp();
+
+        assertThat(calendar.overlaps(charger.getId(), at(10), at(11))).isTrue();
+        assertThat(calendar.overlaps(other.getId(), at(10), at(11))).isTrue();
+        verify(repository, never()).findByChargerIdAndEndTimestampAfter(any(), any());
+    }
+
+    @Test
+    void whenFreeSlots_thenReturnGapsBetweenReservationsLongEnough() {
+        stored(reservation(10, 11), reservation(13, 15));
+
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(16), Duration.ofMinutes(15), Duration.ofHours(1)))
+                .containsExactly(slot(at(8), at(10)), slot(at(11), at(13)), slot(at(15), at(16)));
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(16), Duration.ofMinutes(15), Duration.ofMinutes(150)))
+                .isEmpty();
+    }
+
+    @Test
+    void givenReservationOffTheGrid_whenFreeSlots_thenAlignToGranularity() {
+        Reservation offGrid = Reservation.builder().id(UUID.randomUUID()).charger(charger)
+                .startTimestamp(at(10).plusMinutes(20)).endTimestamp(at(11).plusMinutes(10)).build();
+        stored(offGrid);
+
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(16), Duration.ofMinutes(15), Duration.ofMinutes(15)))
+                .containsExactly(slot(at(8), at(10).plusMinutes(15)), slot(at(11).plusMinutes(15), at(16)));
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(16), Duration.ofHours(1), Duration.ofHours(1)))
+                .containsExactly(slot(at(8), at(10)), slot(at(12), at(16)));
+    }
+
+    @Test
+    void whenRelease_thenFreeSlotsIncludeReleasedRange() {
+        Reservation released = reservation(13, 15);
+        stored(reservation(10, 11), released, reservation(15, 16));
+
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(18), Duration.ofMinutes(15), Duration.ofHours(1)))
+                .containsExactly(slot(at(8), at(10)), slot(at(11), at(13)), slot(at(16), at(18)));
+
+        database.remove(released);
+        calendar.release(released);
+
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(18), Duration.ofMinutes(15), Duration.ofHours(1)))
+                .containsExactly(slot(at(8), at(10)), slot(at(11), at(15)), slot(at(16), at(18)));
+    }
+
+    @Test
+    void givenChangesOnAnotherInstance_whenFreeSlots_thenShowWhatTheDatabaseHolds() {
+        Reservation cancelled = reservation(10, 11);
+        stored(cancelled);
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(16), Duration.ofMinutes(15), Duration.ofHours(1)))
+                .containsExactly(slot(at(8), at(10)), slot(at(11), at(16)));
+
+        database.remove(cancelled);
+        database.add(reservation(13, 15));
+
+        assertThat(calendar.freeSlots(charger.getId(), at(8), at(16), Duration.ofMinutes(15), Duration.ofHours(1)))
+                .containsExactly(slot(at(8), at(13)), slot(at(15), at(16)));
+        assertThat(calendar.overlaps(charger.getId(), at(13), at(14))).isTrue();
+    }
+
+    @Test
+    void givenWindowStartingInThePast_whenFreeSlots_thenStartNoEarlierThanNow() {
+        stored();
+        LocalDateTime now = LocalDateTime.now();
+
+        List<AvailableSlot> slots = calendar.freeSlots(charger.getId(), now.minusDays(1), now.plusHours(4),
+                Duration.ofMinutes(15), Duration.ofMinutes(15));
+
+        assertThat(slots).hasSize(1);
+        assertThat(slots.get(0).getStart()).isAfterOrEqualTo(now).isBefore(now.plusMinutes(15));
+    }
+
+    private void stored(Reservation... reservations) {
+        database.addAll(List.of(reservations));
+        when(repository.findByChargerIdAndEndTimestampAfter(eq(charger.getId()), any())).thenReturn(List.of(reservations));
+    }
+
+    private Reservation reservation(int startHour, int endHour) {
+        return Reservation.builder().id(UUID.randomUUID()).charger(charger).startTimestamp(at(startHour)).endTimestamp(at(endHour)).build();
+    }
+
+    private static AvailableSlot slot(LocalDateTime start, LocalDateTime end) {
+        return new AvailableSlot(start, end);
+    }
+
+    private Reservation withId(Reservation reservation) {
+        reservation.setId(UUID.randomUUID());
+        database.add(reservation);
+        return reservation;
+    }
+
+    private LocalDateTime at(int hour) {
+        return base.plusHours(hour);
+    }
+}
@@ -0,0 +1,80 @@
+package tqs.msev.backend.index;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import tqs.msev.backend.entity.Station;
+
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StationCatalogListenerTest {
+    @Mock
+    private StationCatalog catalog;
+
+    @Mock
+    private ObjectProvider<StationCatalog> provider;
+
+    private StationCatalogListener listener;
+    private Station station;
+
+    @BeforeEach
+    void setup() {
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<StationCatalog>>getArgument(0).accept(catalog);
+            return null;
+        }).when(provider).ifAvailable(any());
+
+        listener = new StationCatalogListener(provider);
+        station = Station.builder().id(UUID.randomUUID()).name("Station 1").build();
+    }
+
+    @AfterEach
+    void teardown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive())
+            TransactionSynchronizationManager.clearSynchronization();
+    }
+
+    @Test
+    void givenTransaction_whenStationIsSaved_thenCatalogChangesOnlyOnCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.onSave(station);
+        listener.onRemove(station);
+
+        verifyNoInteractions(catalog);
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        verify(catalog).put(station);
+        verify(catalog).remove(station);
+    }
+
+    @Test
+    void givenTransaction_whenItRollsBack_thenCatalogIsUnchanged() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.onSave(station);
+        TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK));
+
+        verifyNoInteractions(catalog);
+    }
+
+    @Test
+    void givenNoTransaction_whenStationIsSaved_thenCatalogChangesAtOnce() {
+        listener.onSave(station);
+
+        verify(catalog).put(station);
+    }
+}
@@ -0,0 +1,75 @@
+package tqs.msev.backend.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.repository.StationRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class StationNameIndexTest {
+    @Mock
+    private StationRepository repository;
+
+    private StationCatalog catalog;
+    private StationNameIndex index;
+
+    @BeforeEach
+    void setup() {
+        when(repository.findAll()).thenReturn(List.of(
+                station("Aveiro Centro"),
+                station("Aveiro Universidade"),
+                station("Porto Boavista"),
+                station("São João da Madeira"),
+                station("Braga")
+        ));
+
+        catalog = new StationCatalog(repository);
+        index = new StationNameIndex(catalog);
+    }
+
+    @Test
+    void whenFindByPrefix_thenReturnMatchingStationsInNameOrder() {
+        assertThat(index.findByPrefix("aveiro", 10)).extracting(Station::getName)
+                .containsExactly("Aveiro Centro", "Aveiro Universidade");
+        assertThat(index.findByPrefix("AVEIRO U", 10)).extracting(Station::getName)
+                .containsExactly("Aveiro Universidade");
+        assertThat(index.findByPrefix("Lisboa", 10)).isEmpty();
+    }
+
+    @Test
+    void whenFindByPrefixWithLimit_thenStopAtLimit() {
+        assertThat(index.findByPrefix("a", 1)).extracting(Station::getName).containsExactly("Aveiro Centro");
+        assertThat(index.findByPrefix("", 3)).hasSize(3);
+    }
+
+    @Test
+    void whenFindByPrefixWithoutAccents_thenMatchAccentedNames() {
+        assertThat(index.findByPrefix("sao joao", 10)).extracting(Station::getName).containsExactly("São João da Madeira");
+    }
+
+    @Test
+    void whenStationCreated_thenItIsFound() {
+        assertThat(index.findByPrefix("Coimbra", 10)).isEmpty();
+
+        catalog.put(station("Coimbra B"));
+
+        assertThat(index.findByPrefix("Coimbra", 10)).extracting(Station::getName).containsExactly("Coimbra B");
+    }
+
+    private static Station station(String name) {
+        return Station.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .address(name)
+                .build();
+    }
+}
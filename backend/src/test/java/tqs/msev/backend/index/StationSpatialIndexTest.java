@@ -0,0 +1,141 @@
+package tqs.msev.backend.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.repository.StationRepository;
+import tqs.msev.backend.util.Util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class StationSpatialIndexTest {
+    @Mock
+    private StationRepository repository;
+
+    private StationCatalog catalog;
+    private StationSpatialIndex index;
+    private List<Station> stations;
+
+    @BeforeEach
+    void setup() {
+        Random random = new Random(42);
+        stations = new ArrayList<>();
+
+        for (int i = 0; i < 2000; i++) {
+            stations.add(station("Station " + i, 36 + random.nextDouble() * 6, -10 + random.nextDouble() * 7));
+        }
+
+        stations.add(station("Pole", 89.9, 10));
+        stations.add(station("Date line", 10, 179.99));
+
+        when(repository.findAll()).thenReturn(stations);
+
+        catalog = new StationCatalog(repository);
+        index = new StationSpatialIndex(catalog);
+    }
+
+    @Test
+    void whenNearest_thenMatchesFullSort() {
+        double[][] points = {{40.6254255, -8.6514061}, {38.7, -9.1}, {0, 0}, {10, -179.99}, {-60, 100}};
+
+        for (double[] point : points) {
+            List<Station> expected = sortedByDistance(point[0], point[1]);
+
+            assertThat(index.nearest(point[0], point[1], 10)).containsExactlyElementsOf(expected.subList(0, 10));
+            assertThat(index.nearest(point[0], point[1], 1)).containsExactly(expected.get(0));
+            assertThat(index.nearest(point[0], point[1], Integer.MAX_VALUE)).containsExactlyElementsOf(expected);
+        }
+
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    void whenNearestAcrossDateLine_thenReturnStationOnOtherSide() {
+        assertThat(index.nearest(10, -179.99, 1)).extracting(Station::getName).containsExactly("Date line");
+    }
+
+    @Test
+    void whenWithinRadius_thenReturnOnlyStationsInsideRadius() {
+        double lat = 40.6254255;
+        double lon = -8.6514061;
+
+        List<Station> expected = sortedByDistance(lat, lon).stream()
+                .filter(station -> distance(lat, lon, station) <= 25)
+                .toList();
+
+        assertThat(expected).isNotEmpty();
+        assertThat(index.withinRadius(lat, lon, 25)).containsExactlyElementsOf(expected);
+        assertThat(index.withinRadius(0, 0, 25)).isEmpty();
+    }
+
+    @Test
+    void whenWithinBounds_thenReturnOnlyStationsInsideRectangle() {
+        List<Station> expected = stations.stream()
+                .filter(station -> station.getLatitude() >= 38 && station.getLatitude() <= 39.5)
+                .filter(station -> station.getLongitude() >= -9.5 && station.getLongitude() <= -8)
+                .toList();
+
+        assertThat(expected).isNotEmpty();
+        assertThat(index.withinBounds(38, -9.5, 39.5, -8)).containsExactlyInAnyOrderElementsOf(expected);
+        assertThat(index.withinBounds(-90, -180, 90, 180)).containsExactlyInAnyOrderElementsOf(stations);
+    }
+
+    @Test
+    void whenWithinBoundsAcrossDateLine_thenReturnStationOnOtherSide() {
+        assertThat(index.withinBounds(5, 170, 15, -170)).extracting(Station::getName).containsExactly("Date line");
+        assertThat(index.withinBounds(5, -170, 15, 170)).extracting(Station::getName).doesNotContain("Date line");
+    }
+
+    @Test
+    void whenStationSavedOrRemoved_thenIndexIsUpdated() {
+        assertThat(index.nearest(0, 0, 1)).extracting(Station::getName).doesNotContain("Equator");
+
+        Station equator = station("Equator", 0.01, 0.01);
+        catalog.put(equator);
+
+        assertThat(index.nearest(0, 0, 1)).containsExactly(equator);
+
+        catalog.remove(equator);
+
+        assertThat(index.nearest(0, 0, 1)).doesNotContain(equator);
+    }
+
+    @Test
+    void whenNoStations_thenReturnEmptyList() {
+        when(repository.findAll()).thenReturn(List.of());
+        StationSpatialIndex emptyIndex = new StationSpatialIndex(new StationCatalog(repository));
+
+        assertThat(emptyIndex.nearest(40, -8, 5)).isEmpty();
+    }
+
+    private List<Station> sortedByDistance(double lat, double lon) {
+        return stations.stream()
+                .sorted(Comparator.comparingDouble(station -> distance(lat, lon, station)))
+                .toList();
+    }
+
+    private static double distance(double lat, double lon, Station station) {
+        return Util.distanceBetweenCoordinates(lat, lon, station.getLatitude(), station.getLongitude());
+    }
+
+    private static Station station(String name, double lat, double lon) {
+        return Station.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .address(name)
+                .latitude(lat)
+                .longitude(lon)
+                .build();
+    }
+}
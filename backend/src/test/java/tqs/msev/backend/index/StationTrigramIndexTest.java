@@ -0,0 +1,86 @@
+package tqs.msev.backend.index;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.repository.StationRepository;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class StationTrigramIndexTest {
+    @Mock
+    private StationRepository repository;
+
+    private StationCatalog catalog;
+    private StationTrigramIndex index;
+
+    @BeforeEach
+    void setup() {
+        when(repository.findAll()).thenReturn(List.of(
+                station("Aveiro Universidade", "Avenida da Universidade, Aveiro"),
+                station("Aveiro Centro", "Rua Direita, Aveiro"),
+                station("Porto Boavista", "Avenida da Boavista, Porto"),
+                station("São João da Madeira", "Praça Luís Ribeiro, São João da Madeira")
+        ));
+
+        catalog = new StationCatalog(repository);
+        index = new StationTrigramIndex(catalog);
+    }
+
+    @Test
+    void whenSearchWithTypo_thenRankClosestNameFirst() {
+        assertThat(index.search("Aveiro Univrsidade", 10)).extracting(Station::getName)
+                .startsWith("Aveiro Universidade");
+        assertThat(index.search("porto boavsta", 10)).extracting(Station::getName)
+                .startsWith("Porto Boavista");
+    }
+
+    @Test
+    void whenSearchByAddress_thenReturnStationWithMatchingAddress() {
+        assertThat(index.search("rua direita", 10)).extracting(Station::getName).containsExactly("Aveiro Centro");
+        assertThat(index.search("Praca Luis Ribero", 10)).extracting(Station::getName).containsExactly("São João da Madeira");
+    }
+
+    @Test
+    void whenSearchWithLimit_thenReturnAtMostLimitStations() {
+        assertThat(index.search("aveiro", 1)).hasSize(1);
+        assertThat(index.search("aveiro", 10)).hasSizeGreaterThanOrEqualTo(2);
+    }
+
+    @Test
+    void whenNothingSimilar_thenReturnEmptyList() {
+        assertThat(index.search("xyzw", 10)).isEmpty();
+        assertThat(index.search("  ", 10)).isEmpty();
+    }
+
+    @Test
+    void whenStationCreated_thenItIsSearchable() {
+        catalog.put(station("Coimbra B", "Estação de Coimbra B"));
+
+        assertThat(index.search("coimbr", 10)).extracting(Station::getName).containsExactly("Coimbra B");
+    }
+
+    @Test
+    void whenTrigrams_thenPadWordsLikePgTrgm() {
+        assertThat(StationTrigramIndex.trigrams("cat")).containsExactly("  c", " ca", "cat", "at ");
+    }
+
+    private static Station station(String name, String address) {
+        return Station.builder()
+                .id(UUID.randomUUID())
+                .name(name)
+                .address(address)
+                .build();
+    }
+}
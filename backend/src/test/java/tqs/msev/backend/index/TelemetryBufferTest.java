@@ -0,0 +1,144 @@
+package tqs.msev.backend.index;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.TestPropertySource;
+import tqs.msev.backend.dto.ChargerReading;
+import tqs.msev.backend.entity.ChargeSession;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({TelemetryBuffer.class, ChargerStatusTable.class})
+@TestPropertySource(properties = "telemetry.max-readings=4")
+class TelemetryBufferTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private TelemetryBuffer telemetryBuffer;
+
+    private Charger charger;
+    private Charger idleCharger;
+    private ChargeSession session;
+
+    @BeforeEach
+    void setup() {
+        // The buffer outlives each test's rolled back transaction, so start from nothing left to write
+        telemetryBuffer.flush();
+
+        Station station = entityManager.persist(Station.builder().name("Station 1").address("Street 1").latitude(40).longitude(-8).build());
+        User user = entityManager.persist(User.builder().name("User").email("user@ua.pt").password("pw").build());
+        charger = entityManager.persist(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+        idleCharger = entityManager.persist(Charger.builder().station(station).connectorType("Type2").price(0.2).chargingSpeed(11).build());
+        session = entityManager.persistAndFlush(ChargeSession.builder().user(user).charger(charger)
+                .startTimestamp(LocalDateTime.now().minusMinutes(5)).build());
+        entityManager.clear();
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenReadingsAreFlushed_thenOpenSessionHoldsTheNewest() {
+        LocalDateTime now = LocalDateTime.now();
+        telemetryBuffer.ingest(List.of(
+                new ChargerReading(charger.getId(), now.minusSeconds(2), 1.2, 48),
+                new ChargerReading(charger.getId(), now, 1.6, 47.5),
+                new ChargerReading(charger.getId(), now.minusSeconds(1), 1.4, 49)));
+
+        assertThat(storedSession().getConsumption()).isEqualTo(7.0);
+        assertThat(telemetryBuffer.flush()).isEqualTo(1);
+
+        entityManager.flush();
+        entityManager.clear();
+        ChargeSession stored = storedSession();
+        assertThat(stored.getConsumption()).isEqualTo(1.6);
+        assertThat(stored.getChargingSpeed()).isEqualTo(47.5);
+        assertThat(telemetryBuffer.flush()).isZero();
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenReadingIsOlderThanSession_thenItIsNotApplied() {
+        telemetryBuffer.ingest(List.of(new ChargerReading(charger.getId(), LocalDateTime.now().minusHours(1), 30, 50)));
+
+        assertThat(telemetryBuffer.flush()).isZero();
+        assertThat(telemetryBuffer.apply(charger.getId(), storedSession())).isFalse();
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenChargerHasNoOpenSession_thenReadingIsDropped() {
+        telemetryBuffer.ingest(List.of(new ChargerReading(idleCharger.getId(), LocalDateTime.now(), 3, 11)));
+
+        assertThat(telemetryBuffer.flush()).isZero();
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenReadingIsForUnknownCharger_thenRejectTheBatch() {
+        List<ChargerReading> readings = List.of(
+                new ChargerReading(charger.getId(), LocalDateTime.now(), 1, 50),
+                new ChargerReading(UUID.randomUUID(), LocalDateTime.now(), 3, 11));
+
+        assertThatThrownBy(() -> telemetryBuffer.ingest(readings))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(telemetryBuffer.flush()).isZero();
+    }
+
+    @Test
+    void whenReadingIsFromTheFuture_thenThrowException() {
+        List<ChargerReading> readings = List.of(new ChargerReading(charger.getId(), LocalDateTime.now().plusMinutes(1), 1, 50));
+
+        assertThatThrownBy(() -> telemetryBuffer.ingest(readings))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenBatchIsTooLarge_thenThrowException() {
+        List<ChargerReading> readings = List.of(
+                new ChargerReading(charger.getId(), null, 1, 50),
+                new ChargerReading(charger.getId(), null, 2, 50),
+                new ChargerReading(charger.getId(), null, 3, 50),
+                new ChargerReading(charger.getId(), null, 4, 50),
+                new ChargerReading(charger.getId(), null, 5, 50));
+
+        assertThatThrownBy(() -> telemetryBuffer.ingest(readings))
+                .isInstanceOf(IllegalArgumentException.class);
+
+        assertThat(telemetryBuffer.flush()).isZero();
+    }
+
+    @Test
+    void whenReadingHasNoCharger_thenThrowException() {
+        List<ChargerReading> readings = List.of(new ChargerReading(null, LocalDateTime.now(), 1, 50));
+
+        assertThatThrownBy(() -> telemetryBuffer.ingest(readings))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void whenReadingIsNegative_thenThrowException() {
+        List<ChargerReading> readings = List.of(new ChargerReading(charger.getId(), LocalDateTime.now(), -1, 50));
+
+        assertThatThrownBy(() -> telemetryBuffer.ingest(readings))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private ChargeSession storedSession() {
+        return entityManager.find(ChargeSession.class, session.getId());
+    }
+}
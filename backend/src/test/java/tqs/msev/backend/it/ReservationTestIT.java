@@ -4,6 +4,7 @@ import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 import org.json.JSONObject;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.context.annotation.Import;
+import org.springframework.dao.DataIntegrityViolationException;
 import org.springframework.security.test.context.support.WithMockUser;
 
 import tqs.msev.backend.configuration.TestDatabaseConfig;
@@ -21,6 +22,7 @@ import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.delete;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
@@ -115,6 +117,28 @@ class ReservationTestIT {
                 .andExpect(jsonPath("$[0].charger.id").value(charger.getId().toString()));
     }
 
+    @Test
+    @Requirement("MSEV-19")
+    void whenOverlappingReservationSavedDirectly_thenDatabaseRejectsIt() {
+        Station station = stationRepository.saveAndFlush(Station.builder()
+                .name("Test Station").address("Idk St.").latitude(40.7128).longitude(-74.0060).build());
+        Charger charger = chargerRepository.saveAndFlush(Charger.builder()
+                .station(station).connectorType("Type 2").price(0.5).chargingSpeed(22).build());
+        User user = userRepository.saveAndFlush(User.builder()
+                .email("test@gmail.com").password("password").name("test").isOperator(false).build());
+        LocalDateTime start = LocalDateTime.now().plusHours(1);
+
+        reservationRepository.saveAndFlush(Reservation.builder()
+                .charger(charger).user(user).startTimestamp(start).endTimestamp(start.plusHours(1)).build());
+        reservationRepository.saveAndFlush(Reservation.builder()
+                .charger(charger).user(user).startTimestamp(start.plusHours(1)).endTimestamp(start.plusHours(2)).build());
+
+        Reservation overlapping = Reservation.builder()
+                .charger(charger).user(user).startTimestamp(start.plusMinutes(30)).endTimestamp(start.plusMinutes(90)).build();
+
+        assertThrows(DataIntegrityViolationException.class, () -> reservationRepository.saveAndFlush(overlapping));
+    }
+
     @Test
     @Requirement("MSEV-19")
     @WithMockUser(username = "test")
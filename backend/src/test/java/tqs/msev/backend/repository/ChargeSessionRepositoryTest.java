@@ -0,0 +1,105 @@
+package tqs.msev.backend.repository;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import tqs.msev.backend.dto.StartCursor;
+import tqs.msev.backend.entity.ChargeSession;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ChargeSessionRepositoryTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 5, 1, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ChargeSessionRepository chargeSessionRepository;
+
+    private Station station;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        station = entityManager.persist(Station.builder().name("Station 1").address("Street 1").latitude(40).longitude(-8).build());
+        Station otherStation = entityManager.persist(Station.builder().name("Station 2").address("Street 2").latitude(41).longitude(-8).build());
+        user = entityManager.persist(User.builder().name("User").email("user@ua.pt").password("pw").build());
+
+        Charger charger1 = entityManager.persist(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+        Charger charger2 = entityManager.persist(Charger.builder().station(station).connectorType("Type2").price(0.2).chargingSpeed(11).build());
+        Charger otherCharger = entityManager.persist(Charger.builder().station(otherStation).connectorType("CCS").price(1).chargingSpeed(50).build());
+
+        entityManager.persist(session(user, charger1, DAY.plusHours(1), DAY.plusHours(2), 20));
+        entityManager.persist(session(user, charger2, DAY.plusHours(3), DAY.plusHours(3).plusMinutes(30), 10));
+        entityManager.persist(session(user, charger1, DAY.plusHours(5), null, 15));
+        entityManager.persist(session(user, charger1, DAY.minusDays(1), DAY.minusDays(1).plusHours(1), 30));
+        entityManager.persist(session(user, otherCharger, DAY.plusHours(1), DAY.plusHours(2), 40));
+        entityManager.flush();
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenFindClosedSessionsByStation_thenUseSingleQuery() {
+        assertThat(chargeSessionRepository.findAllByChargerStationIdAndEndTimestampIsNotNull(station.getId())).hasSize(3);
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenCountClosedSessions_thenSkipOpenSessions() {
+        assertThat(chargeSessionRepository.countByEndTimestampIsNotNull()).isEqualTo(4);
+    }
+
+    @Test
+    void whenPageThroughClosedSessionsByStation_thenVisitEachSessionOnceInStartOrder() {
+        // Starts with another session, so the id has to order them
+        Charger charger = entityManager.persist(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+        entityManager.persist(session(user, charger, DAY.plusHours(1), DAY.plusHours(4), 5));
+        entityManager.flush();
+
+        List<ChargeSession> visited = new ArrayList<>();
+        StartCursor cursor = StartCursor.after(null);
+
+        while (true) {
+            List<ChargeSession> page = chargeSessionRepository
+                    .findClosedPageByStationId(station.getId(), cursor.startTimestamp(), cursor.id(), Limit.of(2));
+            if (page.isEmpty()) break;
+
+            visited.addAll(page);
+            ChargeSession last = page.get(page.size() - 1);
+            cursor = StartCursor.after(new StartCursor(last.getStartTimestamp(), last.getId()).toString());
+        }
+
+        assertThat(visited).extracting(ChargeSession::getId).doesNotHaveDuplicates()
+                .containsExactlyInAnyOrderElementsOf(chargeSessionRepository.findAllByChargerStationIdAndEndTimestampIsNotNull(station.getId())
+                        .stream().map(ChargeSession::getId).toList());
+        assertThat(visited).extracting(ChargeSession::getStartTimestamp).isSorted();
+    }
+
+    @Test
+    void whenStreamClosedSessionsByStation_thenReturnSameSessionsAsList() {
+        try (Stream<ChargeSession> sessions = chargeSessionRepository.streamByChargerStationIdAndEndTimestampIsNotNull(station.getId())) {
+            assertThat(sessions.map(ChargeSession::getId))
+                    .containsExactlyInAnyOrderElementsOf(chargeSessionRepository.findAllByChargerStationIdAndEndTimestampIsNotNull(station.getId())
+                            .stream().map(ChargeSession::getId).toList());
+        }
+    }
+
+    private static ChargeSession session(User user, Charger charger, LocalDateTime start, LocalDateTime end, double consumption) {
+        return ChargeSession.builder().user(user).charger(charger).startTimestamp(start).endTimestamp(end).consumption(consumption).build();
+    }
+}
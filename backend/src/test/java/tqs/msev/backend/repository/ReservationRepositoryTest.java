@@ -0,0 +1,92 @@
+package tqs.msev.backend.repository;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.data.domain.Limit;
+import tqs.msev.backend.dto.StartCursor;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.entity.User;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@DataJpaTest
+class ReservationRepositoryTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2030, 5, 1, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    private Charger charger;
+    private Charger otherCharger;
+
+    @BeforeEach
+    void setup() {
+        Station station = entityManager.persist(Station.builder().name("Station 1").address("Street 1").latitude(40).longitude(-8).build());
+        User user = entityManager.persist(User.builder().name("User").email("user@ua.pt").password("pw").build());
+        charger = entityManager.persist(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+        otherCharger = entityManager.persist(Charger.builder().station(station).connectorType("Type2").price(0.2).chargingSpeed(11).build());
+
+        entityManager.persist(reservation(user, charger, DAY.minusHours(1)));
+        entityManager.persist(reservation(user, charger, DAY.plusHours(3)));
+        entityManager.persist(reservation(user, charger, DAY.plusHours(1)));
+        entityManager.persist(reservation(user, charger, DAY.plusDays(1)));
+        entityManager.persist(reservation(user, otherCharger, DAY.plusHours(2)));
+        entityManager.flush();
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void whenFindReservationsInWindow_thenReturnOnlyThoseStartingInsideInStartOrder() {
+        assertThat(reservationRepository.findByChargerIdAndStartTimestampAfterAndStartTimestampBeforeOrderByStartTimestampAsc(charger.getId(), DAY, DAY.plusDays(1)))
+                .extracting(Reservation::getStartTimestamp)
+                .containsExactly(DAY.plusHours(1), DAY.plusHours(3));
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void whenFindReservationsOverlappingRange_thenReturnOnlyThoseOnTheChargerCrossingIt() {
+        assertThat(reservationRepository.findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(charger.getId(), DAY.plusHours(3), DAY.minusMinutes(30)))
+                .extracting(Reservation::getStartTimestamp)
+                .containsExactlyInAnyOrder(DAY.plusHours(1));
+        assertThat(reservationRepository.findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(charger.getId(), DAY.plusHours(3), DAY.minusMinutes(45)))
+                .extracting(Reservation::getStartTimestamp)
+                .containsExactlyInAnyOrder(DAY.minusHours(1), DAY.plusHours(1));
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void whenFindReservationsOverlappingRangeOnSeveralChargers_thenReturnThoseOfEach() {
+        assertThat(reservationRepository.findByChargerIdInAndStartTimestampBeforeAndEndTimestampAfter(List.of(charger.getId(), otherCharger.getId()), DAY.plusHours(3), DAY))
+                .extracting(Reservation::getStartTimestamp)
+                .containsExactlyInAnyOrder(DAY.plusHours(1), DAY.plusHours(2));
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenPageThroughChargerReservations_thenReturnThemInStartOrder() {
+        StartCursor start = StartCursor.after(null);
+
+        List<Reservation> first = reservationRepository.findPageByChargerId(charger.getId(), start.startTimestamp(), start.id(), Limit.of(2));
+        Reservation last = first.get(1);
+        List<Reservation> second = reservationRepository.findPageByChargerId(charger.getId(), last.getStartTimestamp(), last.getId(), Limit.of(2));
+
+        assertThat(first).extracting(Reservation::getStartTimestamp).containsExactly(DAY.minusHours(1), DAY.plusHours(1));
+        assertThat(second).extracting(Reservation::getStartTimestamp).containsExactly(DAY.plusHours(3), DAY.plusDays(1));
+    }
+
+    private static Reservation reservation(User user, Charger charger, LocalDateTime start) {
+        return Reservation.builder().user(user).charger(charger).startTimestamp(start).endTimestamp(start.plusMinutes(30)).build();
+    }
+}
@@ -6,10 +6,18 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.security.authentication.AuthenticationManager;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tqs.msev.backend.dto.LoginDTO;
 import tqs.msev.backend.dto.SignupDTO;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.exception.TooManyRequestsException;
 import tqs.msev.backend.repository.UserRepository;
 
+import java.time.Duration;
+import java.util.Optional;
+
 import static org.assertj.core.api.Assertions.assertThatCode;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
@@ -20,11 +28,14 @@ class AuthServiceTest {
     private UserRepository userRepository;
 
     @Mock
-    private BCryptPasswordEncoder passwordEncoder;
+    private PasswordEncoder passwordEncoder;
 
     @Mock
     private AuthenticationManager authenticationManager;
 
+    @Mock
+    private LoginThrottle loginThrottle;
+
     @InjectMocks
     private AuthService service;
 
@@ -32,7 +43,7 @@ class AuthServiceTest {
     void whenCreateValidUser_thenReturnNothing() {
         SignupDTO dto = new SignupDTO("test", "test@gmail.com", "123");
 
-        assertThatCode(() -> service.createUser(dto)).doesNotThrowAnyException();
+        assertThatCode(() -> service.createUser(dto, "127.0.0.1")).doesNotThrowAnyException();
     }
 
     @Test
@@ -41,8 +52,41 @@ class AuthServiceTest {
 
         SignupDTO dto = new SignupDTO("test", "test@gmail.com", "123");
 
-        assertThatThrownBy(() -> service.createUser(dto)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.createUser(dto, "127.0.0.1")).isInstanceOf(IllegalArgumentException.class);
 
         verify(userRepository, times(1)).existsUserByEmail("test@gmail.com");
     }
+
+    @Test
+    void whenLoginIsThrottled_thenThrowWithoutCheckingPassword() {
+        doThrow(new TooManyRequestsException("Too many sign in attempts", Duration.ofSeconds(30)))
+                .when(loginThrottle).checkLogin("test@gmail.com", "127.0.0.1");
+
+        LoginDTO dto = new LoginDTO("test@gmail.com", "123");
+
+        assertThatThrownBy(() -> service.authenticate(dto, "127.0.0.1")).isInstanceOf(TooManyRequestsException.class);
+
+        verify(authenticationManager, never()).authenticate(any(UsernamePasswordAuthenticationToken.class));
+    }
+
+    @Test
+    void whenLoginFails_thenChargeTheAccount() {
+        when(authenticationManager.authenticate(any(UsernamePasswordAuthenticationToken.class)))
+                .thenThrow(new BadCredentialsException("Bad credentials"));
+
+        LoginDTO dto = new LoginDTO("test@gmail.com", "wrong");
+
+        assertThatThrownBy(() -> service.authenticate(dto, "127.0.0.1")).isInstanceOf(BadCredentialsException.class);
+
+        verify(loginThrottle).recordFailure("test@gmail.com");
+    }
+
+    @Test
+    void whenLoginSucceeds_thenDoNotChargeTheAccount() {
+        when(userRepository.findUserByEmail("test@gmail.com")).thenReturn(Optional.of(new User()));
+
+        service.authenticate(new LoginDTO("test@gmail.com", "123"), "127.0.0.1");
+
+        verify(loginThrottle, never()).recordFailure(anyString());
+    }
 }
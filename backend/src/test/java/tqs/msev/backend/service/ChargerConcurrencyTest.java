@@ -0,0 +1,128 @@
+package tqs.msev.backend.service;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.context.annotation.Import;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import tqs.msev.backend.entity.ChargeSession;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.index.ChargerStatusTable;
+import tqs.msev.backend.index.TelemetryBuffer;
+import tqs.msev.backend.repository.*;
+import tqs.msev.backend.util.EntityStreams;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+// Runs without the test transaction so every unlock and lock commits on its own, as it does in production
+@DataJpaTest
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import({ChargerService.class, ChargerStatusTable.class, TelemetryBuffer.class, SessionRollupService.class, EntityStreams.class})
+class ChargerConcurrencyTest {
+    private static final int THREADS = 200;
+    private static final int ROUNDS = 3;
+
+    @Autowired
+    private ChargerService chargerService;
+
+    @Autowired
+    private ChargerStatusTable chargerStatusTable;
+
+    @Autowired
+    private ChargerRepository chargerRepository;
+
+    @Autowired
+    private ChargeSessionRepository chargeSessionRepository;
+
+    @Autowired
+    private ChargeSessionRollupRepository rollupRepository;
+
+    @Autowired
+    private StationRepository stationRepository;
+
+    @Autowired
+    private UserRepository userRepository;
+
+    private Charger charger;
+    private List<User> users;
+
+    @BeforeEach
+    void setup() {
+        Station station = stationRepository.save(Station.builder().name("Station 1").address("Street 1").latitude(40).longitude(-8).build());
+        charger = chargerRepository.save(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+
+        List<User> created = new ArrayList<>();
+        for (int i = 0; i < THREADS; i++)
+            created.add(User.builder().name("User " + i).email("user" + i + "@ua.pt").password("pw").build());
+
+        users = userRepository.saveAll(created);
+    }
+
+    @AfterEach
+    void teardown() {
+        rollupRepository.deleteAll();
+        chargeSessionRepository.deleteAll();
+        chargerRepository.deleteAll();
+        stationRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenManyUsersUnlockSameCharger_thenOnlyOneSessionIsOpenAtATime() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        AtomicInteger unlocked = new AtomicInteger();
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (User user : users) {
+            futures.add(executor.submit(() -> {
+                start.await();
+
+                for (int round = 0; round < ROUNDS; round++) {
+                    try {
+                        chargerService.unlockCharger(charger.getId(), user.getId());
+                    } catch (IllegalStateException e) {
+                        continue;
+                    }
+
+                    unlocked.incrementAndGet();
+                    chargerService.lockCharger(charger.getId(), user.getId());
+                }
+
+                return null;
+            }));
+        }
+
+        start.countDown();
+        for (Future<?> future : futures)
+            future.get(2, TimeUnit.MINUTES);
+        executor.shutdown();
+
+        List<ChargeSession> sessions = new ArrayList<>(chargeSessionRepository.findAllByChargerId(charger.getId()));
+        sessions.sort(Comparator.comparing(ChargeSession::getStartTimestamp));
+
+        assertThat(unlocked.get()).isPositive();
+        assertThat(sessions).hasSize(unlocked.get()).allSatisfy(session -> assertThat(session.getEndTimestamp()).isNotNull());
+
+        for (int i = 1; i < sessions.size(); i++)
+            assertThat(sessions.get(i).getStartTimestamp()).isAfterOrEqualTo(sessions.get(i - 1).getEndTimestamp());
+
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(Charger.ChargerStatus.AVAILABLE);
+
+        chargerStatusTable.flush();
+        assertThat(chargerRepository.findById(charger.getId()).orElseThrow().getStatus()).isEqualTo(Charger.ChargerStatus.AVAILABLE);
+    }
+}
@@ -0,0 +1,261 @@
+package tqs.msev.backend.service;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import com.fasterxml.jackson.databind.json.JsonMapper;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tqs.msev.backend.dto.ChargeSessionEvent;
+import tqs.msev.backend.dto.ChargerStatusEvent;
+import tqs.msev.backend.entity.Charger.ChargerStatus;
+import tqs.msev.backend.index.ChargerStatusTable;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class ChargerEventBroadcasterTest {
+    private final List<RecordingEmitter> emitters = new CopyOnWriteArrayList<>();
+    private CountDownLatch sends;
+    private final ChargerStatusTable chargerStatusTable = mock(ChargerStatusTable.class);
+    private ChargerEventBroadcaster broadcaster;
+
+    @BeforeEach
+    void setup() {
+        broadcaster = new ChargerEventBroadcaster(JsonMapper.builder().findAndAddModules().build(), chargerStatusTable,
+                Duration.ofMinutes(1), 2, 16, 2) {
+            @Override
+            SseEmitter newEmitter() {
+                RecordingEmitter emitter = new RecordingEmitter();
+                emitters.add(emitter);
+                return emitter;
+            }
+        };
+    }
+
+    @AfterEach
+    void teardown() {
+        broadcaster.shutdown();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenSubscribing_thenSnapshotIsSentFirst() {
+        UUID stationId = UUID.randomUUID();
+        List<ChargerStatusEvent> snapshot = List.of(statusEvent(UUID.randomUUID(), stationId), statusEvent(UUID.randomUUID(), stationId));
+
+        broadcaster.subscribeToStation(stationId, () -> snapshot);
+
+        assertThat(emitters.get(0).received).hasSize(2);
+        assertThat(broadcaster.subscriberCount()).isEqualTo(1);
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenStatusChangesWhileSnapshotIsTaken_thenSnapshotIsStillSentFirst() throws InterruptedException {
+        UUID chargerId = UUID.randomUUID();
+        ChargerStatusEvent change = statusEvent(chargerId, null);
+
+        sends = new CountDownLatch(2);
+        broadcaster.subscribeToCharger(chargerId, () -> {
+            broadcaster.onStatusChange(change);
+            return List.of(new ChargerStatusEvent(chargerId, null, ChargerStatus.IN_USE, 2, LocalDateTime.now()));
+        });
+
+        assertThat(sends.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitters.get(0).received).hasSize(2);
+        assertThat(textOf(emitters.get(0).received.get(0))).contains("\"sequence\":2");
+        assertThat(textOf(emitters.get(0).received.get(1))).contains("\"sequence\":1");
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenStatusChanges_thenOneEventIsSharedByEverySubscriber() throws InterruptedException {
+        UUID stationId = UUID.randomUUID();
+        UUID chargerId = UUID.randomUUID();
+        broadcaster.subscribeToStation(stationId, List::of);
+        broadcaster.subscribeToStation(stationId, List::of);
+        broadcaster.subscribeToCharger(chargerId, List::of);
+        broadcaster.subscribeToStation(UUID.randomUUID(), List::of);
+
+        sends = new CountDownLatch(3);
+        broadcaster.onStatusChange(statusEvent(chargerId, stationId));
+
+        assertThat(sends.await(5, TimeUnit.SECONDS)).isTrue();
+        Set<ResponseBodyEmitter.DataWithMediaType> event = emitters.get(0).received.get(0);
+        assertThat(emitters.get(1).received).singleElement().isSameAs(event);
+        assertThat(emitters.get(2).received).singleElement().isSameAs(event);
+        assertThat(emitters.get(3).received).isEmpty();
+        assertThat(event.iterator().next().getData().toString()).contains("event:status");
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenSessionIsUpdated_thenChargerAndStationSubscribersGetIt() throws InterruptedException {
+        UUID stationId = UUID.randomUUID();
+        UUID chargerId = UUID.randomUUID();
+        when(chargerStatusTable.stationOf(chargerId)).thenReturn(stationId);
+        broadcaster.subscribeToStation(stationId, List::of);
+        broadcaster.subscribeToCharger(chargerId, List::of);
+        broadcaster.subscribeToStation(UUID.randomUUID(), List::of);
+
+        sends = new CountDownLatch(2);
+        broadcaster.onSessionUpdate(new ChargeSessionEvent(UUID.randomUUID(), chargerId, LocalDateTime.now(), null, 1.5, 50));
+
+        assertThat(sends.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(emitters.get(0).received).singleElement()
+                .satisfies(event -> assertThat(event.iterator().next().getData().toString()).contains("event:session"));
+        assertThat(emitters.get(1).received).singleElement().isSameAs(emitters.get(0).received.get(0));
+        assertThat(emitters.get(2).received).isEmpty();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenSubscriberFallsBehind_thenItIsEvictedAndOthersKeepUp() throws InterruptedException {
+        UUID chargerId = UUID.randomUUID();
+        broadcaster.subscribeToCharger(chargerId, List::of);
+        broadcaster.subscribeToCharger(chargerId, List::of);
+        RecordingEmitter stalled = emitters.get(0);
+        stalled.stall = new CountDownLatch(1);
+
+        // One at a time, so only the stalled subscriber has events piling up
+        for (int i = 0; i < 5; i++) {
+            sends = new CountDownLatch(1);
+            broadcaster.onStatusChange(statusEvent(chargerId, null));
+            assertThat(sends.await(5, TimeUnit.SECONDS)).isTrue();
+        }
+
+        assertThat(emitters.get(1).received).hasSize(5);
+        awaitSubscribers(1);
+
+        stalled.stall.countDown();
+        assertThat(stalled.completed.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(stalled.received).hasSizeLessThan(5);
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenDispatcherIsFullAndSubscriberFallsBehind_thenItIsCompletedAtOnce() throws InterruptedException {
+        // Both dispatcher threads stuck on a stalled client, and every queued drain slot taken
+        UUID stalledCharger = UUID.randomUUID();
+        broadcaster.subscribeToCharger(stalledCharger, List::of);
+        broadcaster.subscribeToCharger(stalledCharger, List::of);
+        CountDownLatch stall = new CountDownLatch(1);
+        emitters.get(0).stall = stall;
+        emitters.get(1).stall = stall;
+        broadcaster.onStatusChange(statusEvent(stalledCharger, null));
+        awaitStalled(emitters.get(0), emitters.get(1));
+
+        UUID busyCharger = UUID.randomUUID();
+        for (int i = 0; i < 16; i++)
+            broadcaster.subscribeToCharger(busyCharger, List::of);
+        broadcaster.onStatusChange(statusEvent(busyCharger, null));
+
+        UUID chargerId = UUID.randomUUID();
+        broadcaster.subscribeToCharger(chargerId, List::of);
+        RecordingEmitter behind = emitters.get(emitters.size() - 1);
+        for (int i = 0; i < 3; i++)
+            broadcaster.onStatusChange(statusEvent(chargerId, null));
+
+        assertThat(behind.completed.getCount()).isZero();
+        assertThat(behind.received).isEmpty();
+        stall.countDown();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenSubscriberHasGone_thenItIsDropped() throws InterruptedException {
+        UUID chargerId = UUID.randomUUID();
+        broadcaster.subscribeToCharger(chargerId, List::of);
+        broadcaster.subscribeToCharger(chargerId, List::of);
+        emitters.get(0).broken = true;
+
+        sends = new CountDownLatch(2);
+        broadcaster.onStatusChange(statusEvent(chargerId, null));
+
+        assertThat(sends.await(5, TimeUnit.SECONDS)).isTrue();
+        awaitSubscribers(1);
+        assertThat(emitters.get(1).received).hasSize(1);
+    }
+
+    @Test
+    void whenThereAreNoSubscribers_thenNothingIsBuilt() {
+        broadcaster.onStatusChange(statusEvent(UUID.randomUUID(), UUID.randomUUID()));
+        broadcaster.heartbeat();
+
+        assertThat(broadcaster.subscriberCount()).isZero();
+        assertThat(emitters).isEmpty();
+    }
+
+    private static void awaitStalled(RecordingEmitter... stalled) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (Arrays.stream(stalled).anyMatch(emitter -> !emitter.stalled) && System.nanoTime() < deadline)
+            LockSupport.parkNanos(1_000_000);
+
+        assertThat(stalled).allMatch(emitter -> emitter.stalled);
+    }
+
+    private void awaitSubscribers(int expected) {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (broadcaster.subscriberCount() != expected && System.nanoTime() < deadline)
+            LockSupport.parkNanos(1_000_000);
+
+        assertThat(broadcaster.subscriberCount()).isEqualTo(expected);
+    }
+
+    private static String textOf(Set<ResponseBodyEmitter.DataWithMediaType> event) {
+        StringBuilder text = new StringBuilder();
+        event.forEach(part -> text.append(part.getData()));
+        return text.toString();
+    }
+
+    private static ChargerStatusEvent statusEvent(UUID chargerId, UUID stationId) {
+        return new ChargerStatusEvent(chargerId, stationId, ChargerStatus.IN_USE, 1, LocalDateTime.now());
+    }
+
+    private class RecordingEmitter extends SseEmitter {
+        private final List<Set<ResponseBodyEmitter.DataWithMediaType>> received = new CopyOnWriteArrayList<>();
+        private final CountDownLatch completed = new CountDownLatch(1);
+        private volatile boolean broken;
+        private volatile CountDownLatch stall;
+        private volatile boolean stalled;
+
+        @Override
+        public void send(Set<ResponseBodyEmitter.DataWithMediaType> items) throws IOException {
+            // A stalled client takes its events without counting them, as a full socket would
+            if (stall != null) {
+                stalled = true;
+                try {
+                    stall.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                received.add(items);
+                return;
+            }
+
+            try {
+                if (broken) throw new IOException("Broken pipe");
+                received.add(items);
+            } finally {
+                if (sends != null) sends.countDown();
+            }
+        }
+
+        @Override
+        public void complete() {
+            completed.countDown();
+        }
+    }
+}
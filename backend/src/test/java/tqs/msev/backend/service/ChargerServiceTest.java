@@ -1,16 +1,31 @@
 package tqs.msev.backend.service;
 
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.msev.backend.dto.ChargeSessionEvent;
+import tqs.msev.backend.dto.ChargerReading;
+import tqs.msev.backend.dto.ChargerStatistics;
+import tqs.msev.backend.dto.ChargerStatusEvent;
+import tqs.msev.backend.dto.SessionTotals;
+import tqs.msev.backend.dto.StationStatistics;
 import tqs.msev.backend.entity.ChargeSession;
 import tqs.msev.backend.entity.Reservation;
 import tqs.msev.backend.entity.User;
+import tqs.msev.backend.index.ChargerStatusTable;
+import tqs.msev.backend.index.TelemetryBuffer;
 import tqs.msev.backend.repository.*;
+import tqs.msev.backend.util.EntityStreams;
 import tqs.msev.backend.entity.Charger;
 
 import tqs.msev.backend.entity.Station;
@@ -19,8 +34,11 @@ import static org.assertj.core.api.Assertions.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.mockito.Mockito.*;
 
+import java.sql.SQLException;
+import java.time.Duration;
 import java.time.LocalDateTime;
 import java.util.*;
+import java.util.function.Consumer;
 
 @ExtendWith(MockitoExtension.class)
 class ChargerServiceTest {
@@ -40,9 +58,39 @@ class ChargerServiceTest {
     @Mock
     private StationRepository stationRepository;
 
-    @InjectMocks
+    @Mock
+    private SessionRollupService sessionRollupService;
+
+    @Mock
+    private TransactionTemplate transactionTemplate;
+
+    @Mock
+    private EntityStreams entityStreams;
+
+    @Mock
+    private ApplicationEventPublisher eventPublisher;
+
+    private ChargerStatusTable chargerStatusTable;
+
+    private TelemetryBuffer telemetryBuffer;
+
     private ChargerService chargerService;
 
+    @BeforeEach
+    void setup() {
+        lenient().doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+        lenient().doAnswer(invocation -> {
+            invocation.<Consumer<TransactionStatus>>getArgument(0).accept(null);
+            return null;
+        }).when(transactionTemplate).executeWithoutResult(any());
+
+        chargerStatusTable = new ChargerStatusTable(chargerRepository, transactionTemplate, eventPublisher);
+        telemetryBuffer = new TelemetryBuffer(chargeSessionRepository, chargerStatusTable, transactionTemplate, eventPublisher, 16, 100, Duration.ofSeconds(5));
+        chargerService = new ChargerService(chargerRepository, reservationRepository, chargeSessionRepository, userRepository,
+                stationRepository, sessionRollupService, entityStreams, transactionTemplate, chargerStatusTable, eventPublisher, telemetryBuffer);
+    }
+
     @Test
     @Requirement("MSEV-18")
     void whenChargerExists_thenReturnCharger() {
@@ -183,12 +231,16 @@ class ChargerServiceTest {
         when(reservationRepository
                 .findByUserIdAndStartTimestampBeforeAndEndTimestampAfter(eq(user.getId()), Mockito.any(), Mockito.any()))
                 .thenReturn(reservation);
+        when(reservationRepository
+                .findLockedByUserIdAndStartTimestampBeforeAndEndTimestampAfter(eq(user.getId()), Mockito.any(), Mockito.any()))
+                .thenReturn(reservation);
         when(chargeSessionRepository.findByChargerIdAndEndTimestamp(charger.getId(), null)).thenReturn(oldSession);
 
         assertThatCode(() -> chargerService.unlockCharger(charger.getId(), user.getId())).doesNotThrowAnyException();
 
         verify(chargerRepository, times(1)).findById(charger.getId());
         verify(reservationRepository, times(1)).save(Mockito.any());
+        verify(sessionRollupService, times(1)).record(oldSession);
     }
 
     @Test
@@ -211,7 +263,7 @@ class ChargerServiceTest {
 
         when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
         when(reservationRepository
-                .findByUserIdAndStartTimestampBeforeAndEndTimestampAfter(eq(user.getId()), Mockito.any(), Mockito.any()))
+                .findLockedByUserIdAndStartTimestampBeforeAndEndTimestampAfter(eq(user.getId()), Mockito.any(), Mockito.any()))
                 .thenReturn(reservation);
 
         assertThatCode(() -> chargerService.unlockCharger(charger.getId(), user.getId())).doesNotThrowAnyException();
@@ -252,16 +304,23 @@ class ChargerServiceTest {
                 .id(UUID.randomUUID())
                 .build();
 
+        Charger charger = Charger.builder()
+                .id(UUID.randomUUID())
+                .status(Charger.ChargerStatus.IN_USE)
+                .build();
+
         ChargeSession session = ChargeSession.builder()
                 .user(user)
                 .build();
 
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
         when(chargeSessionRepository.findByChargerIdAndEndTimestamp(Mockito.any(), Mockito.any())).thenReturn(session);
 
         UUID id = UUID.randomUUID();
 
-        assertThatThrownBy(() -> chargerService.lockCharger(id, id))
+        assertThatThrownBy(() -> chargerService.lockCharger(charger.getId(), id))
                 .isInstanceOf(IllegalStateException.class);
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(Charger.ChargerStatus.IN_USE);
     }
 
     @Test
@@ -281,13 +340,18 @@ class ChargerServiceTest {
                 .charger(charger)
                 .build();
 
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
         when(chargeSessionRepository.findByChargerIdAndEndTimestamp(Mockito.any(), Mockito.any())).thenReturn(session);
 
         assertThatCode(() -> chargerService.lockCharger(charger.getId(), user.getId())).doesNotThrowAnyException();
 
         verify(chargeSessionRepository, times(1)).save(Mockito.any());
-        verify(chargerRepository, times(1)).save(Mockito.any());
-
+        verify(sessionRollupService, times(1)).record(session);
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(Charger.ChargerStatus.AVAILABLE);
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof ChargeSessionEvent sessionEvent
+                && charger.getId().equals(sessionEvent.getChargerId()) && sessionEvent.getEndTimestamp() != null));
+        verify(eventPublisher).publishEvent(argThat((Object event) -> event instanceof ChargerStatusEvent statusEvent
+                && statusEvent.getStatus() == Charger.ChargerStatus.AVAILABLE));
     }
 
     @Test
@@ -418,6 +482,54 @@ class ChargerServiceTest {
         verify(chargeSessionRepository, times(1)).findByChargerIdAndEndTimestamp(id, null);
     }
 
+    @Test
+    @Requirement("MSEV-20")
+    void whenChargerSentReadings_thenStatisticsShowTheNewestWithoutWriting() {
+        UUID id = UUID.randomUUID();
+        ChargeSession open = ChargeSession.builder()
+                .startTimestamp(LocalDateTime.now().minusMinutes(10))
+                .build();
+
+        when(chargeSessionRepository.findByChargerIdAndEndTimestamp(id, null)).thenReturn(open);
+        when(chargerRepository.findAllById(Set.of(id))).thenReturn(List.of(Charger.builder().id(id).status(Charger.ChargerStatus.IN_USE).build()));
+
+        chargerService.recordReadings(List.of(new ChargerReading(id, LocalDateTime.now(), 4.2, 22)));
+        ChargeSession session = chargerService.getChargeSessionByChargerId(id);
+
+        assertThat(session.getConsumption()).isEqualTo(4.2);
+        assertThat(session.getChargingSpeed()).isEqualTo(22);
+        verify(chargeSessionRepository, never()).saveAndFlush(any());
+        verify(chargeSessionRepository, never()).save(any());
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenLockChargerWithPendingReadings_thenSessionEndsWithTheNewest() {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .build();
+
+        Charger charger = Charger.builder()
+                .id(UUID.randomUUID())
+                .status(Charger.ChargerStatus.IN_USE)
+                .build();
+
+        ChargeSession session = ChargeSession.builder()
+                .user(user)
+                .charger(charger)
+                .startTimestamp(LocalDateTime.now().minusMinutes(30))
+                .build();
+
+        when(chargerRepository.findAllById(Set.of(charger.getId()))).thenReturn(List.of(charger));
+        when(chargeSessionRepository.findByChargerIdAndEndTimestamp(charger.getId(), null)).thenReturn(session);
+
+        chargerService.recordReadings(List.of(new ChargerReading(charger.getId(), LocalDateTime.now(), 12.5, 0)));
+        chargerService.lockCharger(charger.getId(), user.getId());
+
+        assertThat(session.getConsumption()).isEqualTo(12.5);
+        verify(sessionRollupService).record(argThat(recorded -> recorded.getConsumption() == 12.5 && recorded.getEndTimestamp() != null));
+    }
+
     @Test
     @Requirement("MSEV-20")
     void whenGetChargeSessionByChargerId_WithNoChargerSession_thenReturnChargeSession() {
@@ -515,13 +627,13 @@ class ChargerServiceTest {
         ChargeSession session2 = ChargeSession.builder().charger(charger2).startTimestamp(LocalDateTime.now().minusHours(2)).endTimestamp(LocalDateTime.now().minusHours(1)).build();
         
         when(chargerRepository.findByStationId(stationId)).thenReturn(List.of(charger1, charger2));
-        when(chargeSessionRepository.findAllByChargerId(charger1.getId())).thenReturn(List.of(session1));
-        when(chargeSessionRepository.findAllByChargerId(charger2.getId())).thenReturn(List.of(session2));
+        when(chargeSessionRepository.findAllByChargerStationIdAndEndTimestampIsNotNull(stationId)).thenReturn(List.of(session1, session2));
         
         List<ChargeSession> stats = chargerService.getStationStats(stationId);
         
         assertThat(stats).hasSize(2)
                 .contains(session1, session2);
+        verify(chargeSessionRepository, never()).findAllByChargerId(Mockito.any());
     }
 
     @Test
@@ -537,4 +649,220 @@ class ChargerServiceTest {
         
         verify(chargeSessionRepository, never()).findAllByChargerId(Mockito.any());
     }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenGetStationSummary_thenComputeTotalsFromAggregate() {
+        UUID stationId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2025, 5, 1, 0, 0);
+        LocalDateTime to = LocalDateTime.of(2025, 5, 2, 0, 0);
+
+        when(chargerRepository.countByStationId(stationId)).thenReturn(2L);
+        when(sessionRollupService.sumByStation(stationId, from, to))
+                .thenReturn(new SessionTotals(4, 40.0, 10.0, 4 * 3600));
+
+        StationStatistics stats = chargerService.getStationSummary(stationId, from, to);
+
+        assertThat(stats.getSessions()).isEqualTo(4);
+        assertThat(stats.getEnergy()).isEqualTo(40.0);
+        assertThat(stats.getRevenue()).isEqualTo(10.0);
+        assertThat(stats.getAverageDurationMinutes()).isEqualTo(60.0);
+        assertThat(stats.getUtilisation()).isCloseTo(4.0 / 48, within(1e-9));
+        verify(chargeSessionRepository, never()).findAllByChargerId(Mockito.any());
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenGetStationSummaryWithoutSessions_thenReturnZeros() {
+        UUID stationId = UUID.randomUUID();
+
+        when(chargerRepository.countByStationId(stationId)).thenReturn(0L);
+        when(sessionRollupService.sumByStation(Mockito.eq(stationId), Mockito.any(), Mockito.any()))
+                .thenReturn(new SessionTotals(0, 0, 0, 0));
+
+        StationStatistics stats = chargerService.getStationSummary(stationId, null, null);
+
+        assertThat(stats.getSessions()).isZero();
+        assertThat(stats.getAverageDurationMinutes()).isZero();
+        assertThat(stats.getUtilisation()).isZero();
+        assertThat(stats.getFrom()).isEqualTo(stats.getTo().minusDays(30));
+        assertThat(stats.getFrom().getMinute()).isZero();
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenGetChargerSummary_thenAlignRangeToWholeHours() {
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2025, 5, 1, 10, 15);
+        LocalDateTime to = LocalDateTime.of(2025, 5, 1, 11, 45);
+
+        when(sessionRollupService.sumByCharger(chargerId, from.withMinute(0), to.withMinute(0).plusHours(1)))
+                .thenReturn(new SessionTotals(2, 20.0, 5.0, 3600));
+
+        ChargerStatistics stats = chargerService.getChargerSummary(chargerId, from, to);
+
+        assertThat(stats.getSessions()).isEqualTo(2);
+        assertThat(stats.getAverageDurationMinutes()).isEqualTo(30.0);
+        assertThat(stats.getUtilisation()).isCloseTo(0.5, within(1e-9));
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenGetStationSummaryWithInvalidRange_thenThrowException() {
+        LocalDateTime now = LocalDateTime.now();
+
+        assertThatThrownBy(() -> chargerService.getStationSummary(UUID.randomUUID(), now, now.minusDays(1)))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenUnlockConflictsWithConcurrentUpdate_thenRetry() {
+        UUID userId = UUID.randomUUID();
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.AVAILABLE).build();
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+        doThrow(new ObjectOptimisticLockingFailureException(Charger.class, charger.getId()))
+                .doAnswer(invocation -> invocation.<TransactionCallback<?>>getArgument(0).doInTransaction(null))
+                .when(transactionTemplate).execute(any());
+
+        assertThatCode(() -> chargerService.unlockCharger(charger.getId(), userId)).doesNotThrowAnyException();
+
+        verify(transactionTemplate, times(2)).execute(any());
+        verify(chargeSessionRepository, times(1)).save(Mockito.any());
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(Charger.ChargerStatus.IN_USE);
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenLockKeepsConflicting_thenGiveUp() {
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.IN_USE).build();
+        UUID userId = UUID.randomUUID();
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+        doThrow(new ObjectOptimisticLockingFailureException(ChargeSession.class, charger.getId()))
+                .when(transactionTemplate).execute(any());
+
+        assertThatThrownBy(() -> chargerService.lockCharger(charger.getId(), userId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("The charger is being updated by another request, please try again");
+
+        verify(transactionTemplate, times(5)).execute(any());
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(Charger.ChargerStatus.IN_USE);
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenUnlockHitsOpenSessionIndex_thenChargerIsInUse() {
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.AVAILABLE).build();
+        UUID userId = UUID.randomUUID();
+        SQLException duplicate = new SQLException(
+                "duplicate key value violates unique constraint \"charge_session_open_per_charger\"", "23505");
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+        doThrow(new DataIntegrityViolationException("could not execute statement", duplicate))
+                .when(transactionTemplate).execute(any());
+
+        assertThatThrownBy(() -> chargerService.unlockCharger(charger.getId(), userId))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Charger is in use");
+
+        verify(transactionTemplate, times(1)).execute(any());
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(Charger.ChargerStatus.IN_USE);
+    }
+
+    @Test
+    void whenUnlockHitsOtherIntegrityViolation_thenPropagate() {
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.AVAILABLE).build();
+        UUID userId = UUID.randomUUID();
+        SQLException missingUser = new SQLException("violates foreign key constraint", "23503");
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+        doThrow(new DataIntegrityViolationException("could not execute statement", missingUser))
+                .when(transactionTemplate).execute(any());
+
+        assertThatThrownBy(() -> chargerService.unlockCharger(charger.getId(), userId))
+                .isInstanceOf(DataIntegrityViolationException.class);
+
+        verify(transactionTemplate, times(1)).execute(any());
+        assertThat(chargerStatusTable.statusOf(charger.getId())).isEqualTo(Charger.ChargerStatus.AVAILABLE);
+    }
+
+    @Test
+    @Requirement("MSEV-20")
+    void whenChargerIsClaimed_thenStatusChangeWaitsForIt() {
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.AVAILABLE).build();
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+        ChargerStatusTable.Claim claim = chargerStatusTable.tryClaim(charger.getId());
+
+        assertThatThrownBy(() -> chargerService.disableCharger(charger))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("The charger is being updated by another request, please try again");
+
+        chargerStatusTable.release(claim);
+        chargerService.disableCharger(charger);
+
+        assertThat(charger.getStatus()).isEqualTo(Charger.ChargerStatus.TEMPORARILY_DISABLED);
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenOperatorChangesStatus_thenOnlyWriteItBehind() {
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.AVAILABLE).build();
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+
+        chargerService.outOfOrderCharger(charger);
+        chargerService.disableCharger(charger);
+
+        verify(chargerRepository, never()).save(any());
+        verify(chargerRepository, never()).updateStatus(any(), any());
+
+        assertThat(chargerStatusTable.flush()).isEqualTo(1);
+        verify(chargerRepository).updateStatus(List.of(charger.getId()), Charger.ChargerStatus.TEMPORARILY_DISABLED);
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenEnableChargerInUse_thenKeepItInUse() {
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.IN_USE).build();
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+        when(chargeSessionRepository.existsByChargerIdAndEndTimestampIsNull(charger.getId())).thenReturn(true);
+
+        chargerService.enableCharger(charger);
+
+        assertThat(charger.getStatus()).isEqualTo(Charger.ChargerStatus.IN_USE);
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenChargerIsDisabledAndEnabledDuringSession_thenItIsBackInUse() {
+        Charger charger = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.IN_USE).build();
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+        when(chargeSessionRepository.existsByChargerIdAndEndTimestampIsNull(charger.getId())).thenReturn(true);
+
+        chargerService.disableCharger(charger);
+        assertThat(charger.getStatus()).isEqualTo(Charger.ChargerStatus.TEMPORARILY_DISABLED);
+
+        chargerService.enableCharger(charger);
+        assertThat(charger.getStatus()).isEqualTo(Charger.ChargerStatus.IN_USE);
+        assertThatThrownBy(() -> chargerService.unlockCharger(charger.getId(), UUID.randomUUID()))
+                .isInstanceOf(IllegalStateException.class)
+                .hasMessage("Charger is in use");
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenOperatorPutsChargerInUse_thenThrowException() {
+        Station station = Station.builder().status(Station.StationStatus.ENABLED).build();
+        Charger charger = Charger.builder().id(UUID.randomUUID()).station(station).build();
+
+        when(chargerRepository.findById(charger.getId())).thenReturn(Optional.of(charger));
+
+        assertThatThrownBy(() -> chargerService.updateChargerStatus(charger.getId(), Charger.ChargerStatus.IN_USE))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
 }
@@ -1,18 +1,34 @@
 package tqs.msev.backend.service;
 
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
+import tqs.msev.backend.configuration.CacheConfig;
 import tqs.msev.backend.dto.Coordinates;
+import tqs.msev.backend.geocoding.GeoapifyGeocodingClient;
+import tqs.msev.backend.geocoding.GeocodingClient;
+import tqs.msev.backend.geocoding.StubGeocodingClient;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.mockito.Mockito.*;
 import static org.mockito.Mockito.when;
 
@@ -21,11 +37,20 @@ class GeocodingServiceTest {
     @Mock
     private RestTemplate restTemplate;
 
-    @InjectMocks
     private GeocodingService service;
 
     private static final String MOCK_RESPONSE = "{\"results\":[{\"datasource\":{\"sourcename\":\"openstreetmap\",\"attribution\":\"© OpenStreetMap contributors\",\"license\":\"Open Database License\",\"url\":\"https://www.openstreetmap.org/copyright\"},\"name\":\"Avenida da Universidade\",\"ref\":\"EN 235\",\"country\":\"Portugal\",\"country_code\":\"pt\",\"county\":\"Aveiro\",\"city\":\"Aveiro\",\"village\":\"Aradas\",\"hamlet\":\"Quinta do Casal\",\"postcode\":\"3810-489\",\"street\":\"Avenida da Universidade\",\"iso3166_2\":\"PT-01\",\"lon\":-8.6514061,\"lat\":40.6254255,\"result_type\":\"street\",\"formatted\":\"Avenida da Universidade, 3810-489 Aveiro, Portugal\",\"address_line1\":\"Avenida da Universidade\",\"address_line2\":\"3810-489 Aveiro, Portugal\",\"timezone\":{\"name\":\"Europe/Lisbon\",\"offset_STD\":\"+00:00\",\"offset_STD_seconds\":0,\"offset_DST\":\"+01:00\",\"offset_DST_seconds\":3600,\"abbreviation_STD\":\"WET\",\"abbreviation_DST\":\"WEST\"},\"plus_code\":\"8CGHJ8GX+5C\",\"plus_code_short\":\"J8GX+5C Aveiro, Portugal\",\"rank\":{\"importance\":0.4633433333333333,\"popularity\":5.547977036397171,\"confidence\":1,\"confidence_city_level\":1,\"confidence_street_level\":1,\"match_type\":\"full_match\"},\"place_id\":\"516fd4af19854d21c059cf4a5af10d504440f00102f9011d3fb70800000000c002049203174176656e69646120646120556e69766572736964616465\",\"bbox\":{\"lon1\":-8.6518619,\"lat1\":40.6249893,\"lon2\":-8.650676,\"lat2\":40.6260056}},{\"datasource\":{\"sourcename\":\"openstreetmap\",\"attribution\":\"© OpenStreetMap contributors\",\"license\":\"Open Database License\",\"url\":\"https://www.openstreetmap.org/copyright\"},\"name\":\"Avenida da Universidade\",\"ref\":\"EN 235\",\"country\":\"Portugal\",\"country_code\":\"pt\",\"county\":\"Aveiro\",\"city\":\"Aveiro\",\"postcode\":\"3810-193\",\"district\":\"Glória e Vera Cruz\",\"suburb\":\"Glória\",\"street\":\"Avenida da Universidade\",\"iso3166_2\":\"PT-01\",\"lon\":-8.6548105,\"lat\":40.6315476,\"result_type\":\"street\",\"formatted\":\"Avenida da Universidade, 3810-193 Aveiro, Portugal\",\"address_line1\":\"Avenida da Universidade\",\"address_line2\":\"3810-193 Aveiro, Portugal\",\"timezone\":{\"name\":\"Europe/Lisbon\",\"offset_STD\":\"+00:00\",\"offset_STD_seconds\":0,\"offset_DST\":\"+01:00\",\"offset_DST_seconds\":3600,\"abbreviation_STD\":\"WET\",\"abbreviation_DST\":\"WEST\"},\"plus_code\":\"8CGHJ8JW+J3\",\"plus_code_short\":\"JW+J3 Aveiro, Portugal\",\"rank\":{\"importance\":0.4633433333333333,\"popularity\":6.246459893126748,\"confidence\":1,\"confidence_city_level\":1,\"confidence_street_level\":1,\"match_type\":\"full_match\"},\"place_id\":\"51a2276552434f21c05903ef3f8dd6504440f00102f9017cf4661d00000000c002049203174176656e69646120646120556e69766572736964616465\",\"bbox\":{\"lon1\":-8.6557701,\"lat1\":40.6308209,\"lon2\":-8.6543825,\"lat2\":40.6331453}},{\"datasource\":{\"sourcename\":\"openstreetmap\",\"attribution\":\"© OpenStreetMap contributors\",\"license\":\"Open Database License\",\"url\":\"https://www.openstreetmap.org/copyright\"},\"name\":\"Avenida da Universidade\",\"ref\":\"EN 235\",\"country\":\"Portugal\",\"country_code\":\"pt\",\"county\":\"Aveiro\",\"city\":\"Aveiro\",\"hamlet\":\"Pêga\",\"postcode\":\"3810-074\",\"district\":\"Glória e Vera Cruz\",\"street\":\"Avenida da Universidade\",\"iso3166_2\":\"PT-01\",\"lon\":-8.6559809,\"lat\":40.6348907,\"result_type\":\"street\",\"formatted\":\"Avenida da Universidade, 3810-074 Aveiro, Portugal\",\"address_line1\":\"Avenida da Universidade\",\"address_line2\":\"3810-074 Aveiro, Portugal\",\"timezone\":{\"name\":\"Europe/Lisbon\",\"offset_STD\":\"+00:00\",\"offset_STD_seconds\":0,\"offset_DST\":\"+01:00\",\"offset_DST_seconds\":3600,\"abbreviation_STD\":\"WET\",\"abbreviation_DST\":\"WEST\"},\"plus_code\":\"8CGHJ8MV+XJ\",\"plus_code_short\":\"MV+XJ Aveiro, Portugal\",\"rank\":{\"importance\":0.4633433333333333,\"popularity\":6.170725657914504,\"confidence\":1,\"confidence_city_level\":1,\"confidence_street_level\":1,\"match_type\":\"full_match\"},\"place_id\":\"51ee9980badc4f21c0596c84341944514440f00102f90101b32c5000000000c002049203174176656e69646120646120556e69766572736964616465\",\"bbox\":{\"lon1\":-8.6561655,\"lat1\":40.6347212,\"lon2\":-8.6558369,\"lat2\":40.6351758}},{\"datasource\":{\"sourcename\":\"openstreetmap\",\"attribution\":\"© OpenStreetMap contributors\",\"license\":\"Open Database License\",\"url\":\"https://www.openstreetmap.org/copyright\"},\"name\":\"Avenida da Universidade\",\"ref\":\"EN 235\",\"country\":\"Portugal\",\"country_code\":\"pt\",\"county\":\"Aveiro\",\"city\":\"Aveiro\",\"hamlet\":\"Pêga\",\"postcode\":\"3814-506\",\"district\":\"Glória e Vera Cruz\",\"street\":\"Avenida da Universidade\",\"iso3166_2\":\"PT-01\",\"lon\":-8.6563829,\"lat\":40.6341511,\"result_type\":\"street\",\"formatted\":\"Avenida da Universidade, 3814-506 Aveiro, Portugal\",\"address_line1\":\"Avenida da Universidade\",\"address_line2\":\"3814-506 Aveiro, Portugal\",\"timezone\":{\"name\":\"Europe/Lisbon\",\"offset_STD\":\"+00:00\",\"offset_STD_seconds\":0,\"offset_DST\":\"+01:00\",\"offset_DST_seconds\":3600,\"abbreviation_STD\":\"WET\",\"abbreviation_DST\":\"WEST\"},\"plus_code\":\"8CGHJ8MV+MC\",\"plus_code_short\":\"MV+MC Aveiro, Portugal\",\"rank\":{\"importance\":0.4633433333333333,\"popularity\":6.117852992400655,\"confidence\":1,\"confidence_city_level\":1,\"confidence_street_level\":1,\"match_type\":\"full_match\"},\"place_id\":\"51aa4e626b115021c059789cfddc2b514440f00102f901676e4d0200000000c002049203174176656e69646120646120556e69766572736964616465\",\"bbox\":{\"lon1\":-8.6564109,\"lat1\":40.6336053,\"lon2\":-8.6560551,\"lat2\":40.6347212}}],\"query\":{\"text\":\"Avenida da Universidade Aveiro\",\"parsed\":{\"street\":\"avenida da universidade\",\"city\":\"aveiro\",\"expected_type\":\"street\"}}}";
 
+    @BeforeEach
+    void setup() {
+        service = createService(new GeoapifyGeocodingClient(restTemplate, "key"), Duration.ofSeconds(2));
+    }
+
+    @AfterEach
+    void teardown() {
+        service.shutdown();
+    }
+
     @Test
     @Requirement("MSEV-16")
     void whenGetWeather_thenReturnWeatherData() {
@@ -38,4 +63,154 @@ class GeocodingServiceTest {
 
         verify(restTemplate, times(1)).getForEntity(Mockito.anyString(), Mockito.eq(String.class));
     }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenGetSameAddressTwice_thenCallApiOnce() {
+        when(restTemplate.getForEntity(Mockito.anyString(), Mockito.eq(String.class))).thenReturn(new ResponseEntity<>(MOCK_RESPONSE, HttpStatus.OK));
+
+        Coordinates first = service.getCoordinatesForAddress("Avenida da Universidade Aveiro");
+        Coordinates second = service.getCoordinatesForAddress("  avenida da   UNIVERSIDADE aveiro ");
+
+        assertThat(second).isEqualTo(first);
+        verify(restTemplate, times(1)).getForEntity(Mockito.anyString(), Mockito.eq(String.class));
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenConcurrentLookupsOfSameAddress_thenCallApiOnce() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+
+        when(restTemplate.getForEntity(Mockito.anyString(), Mockito.eq(String.class))).thenAnswer(invocation -> {
+            release.await(5, TimeUnit.SECONDS);
+            return new ResponseEntity<>(MOCK_RESPONSE, HttpStatus.OK);
+        });
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<Coordinates>> futures = new ArrayList<>();
+
+        try {
+            for (int i = 0; i < 8; i++)
+                futures.add(executor.submit(() -> service.getCoordinatesForAddress("Avenida da Universidade Aveiro")));
+
+            Thread.sleep(100);
+            release.countDown();
+
+            for (Future<Coordinates> future : futures)
+                assertThat(future.get(5, TimeUnit.SECONDS).getLat()).isEqualTo(40.6254255);
+        } finally {
+            executor.shutdownNow();
+        }
+
+        verify(restTemplate, times(1)).getForEntity(Mockito.anyString(), Mockito.eq(String.class));
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenApiFails_thenFallbackToCachedPrefixMatch() {
+        when(restTemplate.getForEntity(Mockito.anyString(), Mockito.eq(String.class)))
+                .thenReturn(new ResponseEntity<>(MOCK_RESPONSE, HttpStatus.OK))
+                .thenThrow(new ResourceAccessException("Read timed out"));
+
+        service.getCoordinatesForAddress("Avenida da Universidade Aveiro");
+        Coordinates coordinates = service.getCoordinatesForAddress("Avenida da Universidade");
+
+        assertThat(coordinates.getLat()).isEqualTo(40.6254255);
+        assertThat(coordinates.getLon()).isEqualTo(-8.6514061);
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenApiFailsWithoutFallback_thenReturnNullAndDoNotCache() {
+        when(restTemplate.getForEntity(Mockito.anyString(), Mockito.eq(String.class)))
+                .thenThrow(new ResourceAccessException("Read timed out"))
+                .thenReturn(new ResponseEntity<>(MOCK_RESPONSE, HttpStatus.OK));
+
+        assertThat(service.getCoordinatesForAddress("Avenida da Universidade Aveiro")).isNull();
+        assertThat(service.getCoordinatesForAddress("Avenida da Universidade Aveiro")).isNotNull();
+
+        verify(restTemplate, times(2)).getForEntity(Mockito.anyString(), Mockito.eq(String.class));
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenApiKeepsFailing_thenOpenCircuit() {
+        when(restTemplate.getForEntity(Mockito.anyString(), Mockito.eq(String.class)))
+                .thenThrow(new ResourceAccessException("Connection refused"));
+
+        for (int i = 0; i < 5; i++)
+            assertThat(service.getCoordinatesForAddress("Address " + i)).isNull();
+
+        verify(restTemplate, times(3)).getForEntity(Mockito.anyString(), Mockito.eq(String.class));
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenBulkheadIsFull_thenRejectWithoutOpeningCircuit() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        Coordinates aveiro = new Coordinates(40.6254255, -8.6514061);
+
+        service.shutdown();
+        service = new GeocodingService(address -> {
+            if (address.startsWith("slow")) {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                throw new IllegalStateException("Upstream error");
+            }
+            return aveiro;
+        }, new CacheConfig().cacheManager(100, Duration.ofMinutes(5), 100, Duration.ofMinutes(5)),
+                Duration.ofSeconds(5), 1, 1, 3, Duration.ofMinutes(1));
+
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        try {
+            // One lookup runs and one waits in the queue, so the bulkhead is full. Both fail upstream, one short of opening the circuit
+            Future<Coordinates> running = executor.submit(() -> service.getCoordinatesForAddress("slow 1"));
+            Thread.sleep(100);
+            Future<Coordinates> queued = executor.submit(() -> service.getCoordinatesForAddress("slow 2"));
+            Thread.sleep(100);
+
+            for (int i = 0; i < 5; i++)
+                assertThat(service.getCoordinatesForAddress("Address " + i)).isNull();
+
+            release.countDown();
+            assertThat(running.get(5, TimeUnit.SECONDS)).isNull();
+            assertThat(queued.get(5, TimeUnit.SECONDS)).isNull();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        assertThat(service.getCoordinatesForAddress("Avenida da Universidade Aveiro")).isEqualTo(aveiro);
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenApiIsSlow_thenTimeoutAndFallback() {
+        service.shutdown();
+        service = createService(new StubGeocodingClient(Duration.ofSeconds(2), 0), Duration.ofMillis(100));
+
+        long start = System.nanoTime();
+        Coordinates coordinates = service.getCoordinatesForAddress("Avenida da Universidade Aveiro");
+
+        assertThat(coordinates).isNull();
+        assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofSeconds(1));
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenStubGeocoding_thenReturnStableCoordinates() {
+        StubGeocodingClient stub = new StubGeocodingClient(Duration.ZERO, 0);
+
+        assertThat(stub.geocode("Avenida da Universidade")).isEqualTo(stub.geocode("Avenida da Universidade"));
+        assertThat(stub.geocode(" ")).isNull();
+        assertThatThrownBy(() -> new StubGeocodingClient(Duration.ZERO, 1).geocode("Aveiro")).isInstanceOf(IllegalStateException.class);
+    }
+
+    private static GeocodingService createService(GeocodingClient client, Duration timeout) {
+        return new GeocodingService(client, new CacheConfig().cacheManager(100, Duration.ofMinutes(5), 100, Duration.ofMinutes(5)),
+                timeout, 4, 8, 3, Duration.ofMinutes(1));
+    }
 }
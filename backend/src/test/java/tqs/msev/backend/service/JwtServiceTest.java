@@ -1,8 +1,13 @@
 package tqs.msev.backend.service;
 
+import io.jsonwebtoken.Claims;
 import io.jsonwebtoken.ExpiredJwtException;
+import io.jsonwebtoken.Jwts;
+import io.jsonwebtoken.security.SignatureException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
+import org.springframework.security.core.GrantedAuthority;
+import tqs.msev.backend.configuration.AuthenticatedUser;
 import tqs.msev.backend.entity.User;
 
 import java.lang.reflect.Field;
@@ -65,4 +70,71 @@ class JwtServiceTest {
 
         assertThatThrownBy(() -> service.isTokenValid(EXPIRED_TOKEN, user)).isInstanceOf(ExpiredJwtException.class);
     }
+
+    @Test
+    void whenParseSameTokenTwice_thenReuseVerifiedClaims() {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("test@gmail.com")
+                .password("123")
+                .build();
+
+        String token = service.generateToken(user);
+        Claims claims = service.parseToken(token);
+
+        assertThat(service.parseToken(token)).isSameAs(claims);
+        assertThat(service.isTokenValid(claims, user)).isTrue();
+    }
+
+    @Test
+    void whenTokenSignatureIsTampered_thenThrowException() {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("test@gmail.com")
+                .password("123")
+                .build();
+
+        String token = service.generateToken(user);
+        service.parseToken(token);
+
+        int signature = token.lastIndexOf('.') + 1;
+        char first = token.charAt(signature);
+        String tampered = token.substring(0, signature) + (first == 'A' ? 'B' : 'A') + token.substring(signature + 1);
+
+        assertThatThrownBy(() -> service.parseToken(tampered)).isInstanceOf(SignatureException.class);
+    }
+
+    @Test
+    void whenGenerateTokenForOperator_thenCarryIdAndRole() {
+        User operator = User.builder()
+                .id(UUID.randomUUID())
+                .email("operator@gmail.com")
+                .password("123")
+                .isOperator(true)
+                .build();
+
+        AuthenticatedUser principal = service.extractPrincipal(service.parseToken(service.generateToken(operator)));
+
+        assertThat(principal).isEqualTo(new AuthenticatedUser(operator.getId(), "operator@gmail.com", true));
+        assertThat(principal.authorities()).extracting(GrantedAuthority::getAuthority).containsExactly("ROLE_OPERATOR");
+    }
+
+    @Test
+    void whenGenerateTokenForUser_thenCarryNoRole() {
+        User user = User.builder()
+                .id(UUID.randomUUID())
+                .email("test@gmail.com")
+                .password("123")
+                .build();
+
+        AuthenticatedUser principal = service.extractPrincipal(service.parseToken(service.generateToken(user)));
+
+        assertThat(principal.id()).isEqualTo(user.getId());
+        assertThat(principal.authorities()).isEmpty();
+    }
+
+    @Test
+    void whenTokenHasNoIdOrRoleClaims_thenReturnNoPrincipal() {
+        assertThat(service.extractPrincipal(Jwts.claims().subject("test@gmail.com").build())).isNull();
+    }
 }
@@ -0,0 +1,83 @@
+package tqs.msev.backend.service;
+
+import org.junit.jupiter.api.Test;
+import tqs.msev.backend.exception.TooManyRequestsException;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneId;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatCode;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class LoginThrottleTest {
+    private final MutableClock clock = new MutableClock();
+    private final LoginThrottle throttle = new LoginThrottle(3, Duration.ofMinutes(1), 10, Duration.ofSeconds(1), clock);
+
+    @Test
+    void whenAccountBucketIsEmpty_thenRejectUntilRefilled() {
+        for (int i = 0; i < 3; i++) {
+            throttle.checkLogin("test@gmail.com", "10.0.0." + i);
+            throttle.recordFailure("test@gmail.com");
+        }
+
+        assertThatThrownBy(() -> throttle.checkLogin("Test@Gmail.com ", "10.0.0.9"))
+                .isInstanceOfSatisfying(TooManyRequestsException.class,
+                        e -> assertThat(e.getRetryAfter()).isEqualTo(Duration.ofMinutes(1)));
+
+        clock.advance(Duration.ofMinutes(1));
+
+        assertThatCode(() -> throttle.checkLogin("test@gmail.com", "10.0.0.9")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void whenLoginsSucceed_thenAccountIsNeverThrottled() {
+        for (int i = 0; i < 10; i++)
+            assertThatCode(() -> throttle.checkLogin("test@gmail.com", "10.0.0.1")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void whenAddressSpraysAccounts_thenRejectAddress() {
+        for (int i = 0; i < 10; i++)
+            throttle.checkLogin("user" + i + "@gmail.com", "10.0.0.1");
+
+        assertThatThrownBy(() -> throttle.checkLogin("other@gmail.com", "10.0.0.1")).isInstanceOf(TooManyRequestsException.class);
+        assertThatCode(() -> throttle.checkLogin("other@gmail.com", "10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    @Test
+    void whenAddressIsThrottled_thenAccountBucketIsUntouched() {
+        for (int i = 0; i < 10; i++)
+            throttle.checkAddress("10.0.0.1");
+
+        for (int i = 0; i < 5; i++)
+            assertThatThrownBy(() -> throttle.checkLogin("test@gmail.com", "10.0.0.1")).isInstanceOf(TooManyRequestsException.class);
+
+        assertThatCode(() -> throttle.checkLogin("test@gmail.com", "10.0.0.2")).doesNotThrowAnyException();
+    }
+
+    private static final class MutableClock extends Clock {
+        private Instant now = Instant.parse("2025-05-01T10:00:00Z");
+
+        void advance(Duration duration) {
+            now = now.plus(duration);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneId.of("UTC");
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return now;
+        }
+    }
+}
@@ -0,0 +1,174 @@
+package tqs.msev.backend.service;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.transaction.TestTransaction;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.support.TransactionCallback;
+import org.springframework.transaction.support.TransactionTemplate;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Reservation;
+import tqs.msev.backend.entity.ReservationHistory;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.index.ReservationCalendar;
+import tqs.msev.backend.repository.ReservationHistoryRepository;
+import tqs.msev.backend.repository.ReservationRepository;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@DataJpaTest
+@Import({ReservationExpiryService.class, ReservationCalendar.class})
+class ReservationExpiryServiceTest {
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private ReservationExpiryService reservationExpiryService;
+
+    @Autowired
+    private ReservationCalendar reservationCalendar;
+
+    @Autowired
+    private ReservationRepository reservationRepository;
+
+    @Autowired
+    private ReservationHistoryRepository historyRepository;
+
+    private Charger charger;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        Station station = entityManager.persist(Station.builder().name("Station 1").address("Street 1").latitude(40).longitude(-8).build());
+        user = entityManager.persist(User.builder().name("User").email("user@ua.pt").password("pw").build());
+        charger = entityManager.persist(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenUnusedReservationPassesGracePeriod_thenExpireAndReleaseSlot() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Reservation noShow = reservation(now.minusHours(1), now.plusHours(1), false);
+        Reservation used = reservation(now.minusHours(3), now.minusHours(2), true);
+        Reservation upcoming = reservation(now.plusHours(2), now.plusHours(3), false);
+
+        int queued = reservationExpiryService.pendingCount();
+        reservationExpiryService.schedule(noShow);
+        reservationExpiryService.schedule(used);
+        reservationExpiryService.schedule(upcoming);
+
+        assertThat(reservationCalendar.overlaps(charger.getId(), now, now.plusMinutes(30))).isTrue();
+        assertThat(reservationExpiryService.pendingCount()).isEqualTo(queued + 2);
+
+        assertThat(reservationExpiryService.expireNoShows()).isEqualTo(1);
+
+        // The slot is only freed in memory once the deletes are committed; until then an overlap with it is checked against the database
+        TestTransaction.flagForCommit();
+        TestTransaction.end();
+        TestTransaction.start();
+        TestTransaction.flagForCommit();
+
+        assertThat(reservationRepository.findAll()).extracting(Reservation::getId).containsExactlyInAnyOrder(used.getId(), upcoming.getId());
+        assertThat(historyRepository.findByUserId(user.getId())).singleElement()
+                .satisfies(history -> {
+                    assertThat(history.getId()).isEqualTo(noShow.getId());
+                    assertThat(history.getChargerId()).isEqualTo(charger.getId());
+                    assertThat(history.isUsed()).isFalse();
+                });
+        assertThat(reservationCalendar.overlaps(charger.getId(), now, now.plusMinutes(30))).isFalse();
+        assertThat(reservationExpiryService.pendingCount()).isEqualTo(queued + 1);
+
+        historyRepository.deleteAll();
+        reservationRepository.deleteAll();
+        Charger stored = entityManager.find(Charger.class, charger.getId());
+        entityManager.remove(stored);
+        entityManager.remove(stored.getStation());
+        entityManager.remove(entityManager.find(User.class, user.getId()));
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenExpiryFails_thenReservationsAreQueuedAgain() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Reservation noShow = reservation(now.minusHours(1), now.plusHours(1), false);
+        TransactionTemplate unavailable = new TransactionTemplate() {
+            @Override
+            public <T> T execute(TransactionCallback<T> action) {
+                throw new CannotCreateTransactionException("Database unavailable");
+            }
+        };
+        ReservationExpiryService failing = new ReservationExpiryService(reservationRepository, historyRepository, reservationCalendar,
+                unavailable, Duration.ofMinutes(15), Duration.ofDays(7));
+        failing.schedule(noShow);
+
+        assertThatThrownBy(failing::expireNoShows).isInstanceOf(CannotCreateTransactionException.class);
+
+        assertThat(failing.pendingCount()).isEqualTo(1);
+        assertThat(reservationCalendar.overlaps(charger.getId(), now, now.plusMinutes(30))).isTrue();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenReservationUsedBeforeExpiry_thenKeepIt() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Reservation reservation = reservation(now.minusHours(1), now.plusHours(1), false);
+        reservationExpiryService.schedule(reservation);
+
+        reservation.setUsed(true);
+        entityManager.persistAndFlush(reservation);
+
+        assertThat(reservationExpiryService.expireNoShows()).isZero();
+        assertThat(reservationRepository.findById(reservation.getId())).isPresent();
+        assertThat(historyRepository.count()).isZero();
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenLoad_thenQueueUnusedLiveReservations() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        reservation(now.plusHours(1), now.plusHours(2), false);
+        reservation(now.plusHours(3), now.plusHours(4), true);
+        reservation(now.minusHours(4), now.minusHours(3), false);
+        int queued = reservationExpiryService.pendingCount();
+
+        reservationExpiryService.load();
+
+        assertThat(reservationExpiryService.pendingCount()).isEqualTo(queued + 1);
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenArchiveEnded_thenMoveOldReservationsToHistory() {
+        LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        Reservation old = reservation(now.minusDays(10), now.minusDays(10).plusHours(1), true);
+        Reservation recent = reservation(now.minusDays(1), now.minusDays(1).plusHours(1), true);
+        Reservation upcoming = reservation(now.plusHours(1), now.plusHours(2), false);
+
+        assertThat(reservationExpiryService.archiveEnded()).isEqualTo(1);
+        entityManager.clear();
+
+        assertThat(reservationRepository.findAll()).extracting(Reservation::getId).containsExactlyInAnyOrder(recent.getId(), upcoming.getId());
+
+        ReservationHistory history = historyRepository.findById(old.getId()).orElseThrow();
+        assertThat(history.getUserId()).isEqualTo(user.getId());
+        assertThat(history.getStartTimestamp()).isEqualTo(old.getStartTimestamp());
+        assertThat(history.isUsed()).isTrue();
+        assertThat(history.getArchivedAt()).isAfterOrEqualTo(now);
+    }
+
+    private Reservation reservation(LocalDateTime start, LocalDateTime end, boolean used) {
+        return entityManager.persistAndFlush(Reservation.builder()
+                .user(user).charger(charger).startTimestamp(start).endTimestamp(end).used(used).build());
+    }
+}
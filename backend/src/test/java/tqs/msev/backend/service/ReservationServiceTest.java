@@ -1,20 +1,35 @@
 package tqs.msev.backend.service;
 
-import org.mockito.InjectMocks;
+import org.mockito.ArgumentCaptor;
 import org.mockito.Mock;
 import org.mockito.junit.jupiter.MockitoExtension;
+import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import tqs.msev.backend.index.ReservationCalendar;
+import tqs.msev.backend.repository.ChargerRepository;
 import tqs.msev.backend.repository.ReservationRepository;
+import tqs.msev.backend.repository.StationRepository;
+import tqs.msev.backend.util.EntityStreams;
 import tqs.msev.backend.entity.Reservation;
+import org.springframework.dao.DataIntegrityViolationException;
 import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.dto.AvailableSlot;
+import tqs.msev.backend.dto.ChargerAvailability;
 
+import java.sql.SQLException;
 import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.NoSuchElementException;
 import java.util.UUID;
 import java.util.List;
 
@@ -24,9 +39,26 @@ class ReservationServiceTest {
     @Mock
     ReservationRepository reservationRepository;
 
-    @InjectMocks
+    @Mock
+    ChargerRepository chargerRepository;
+
+    @Mock
+    StationRepository stationRepository;
+
+    @Mock
+    EntityStreams entityStreams;
+
+    @Mock
+    ReservationExpiryService reservationExpiry;
+
     private  ReservationService reservationService;
 
+    @BeforeEach
+    void setup() {
+        reservationService = new ReservationService(reservationRepository, chargerRepository, stationRepository, new ReservationCalendar(reservationRepository), entityStreams,
+                reservationExpiry);
+    }
+
     @Test
     @Requirement("MSEV-17")
     void whenReservationsExist_thenReturnReservations() {
@@ -37,9 +69,10 @@ class ReservationServiceTest {
         mockReservation2.setStartTimestamp(LocalDateTime.now().plusHours(3));
         List<Reservation> mockReservations = List.of(mockReservation, mockReservation2);
         
-        when(reservationRepository.findByChargerId(chargerId)).thenReturn(mockReservations);
+        when(reservationRepository.findByChargerIdAndStartTimestampAfterAndStartTimestampBeforeOrderByStartTimestampAsc(eq(chargerId), any(), any()))
+                .thenReturn(mockReservations);
         
-        List<Reservation> reservations = reservationService.getFutureReservationsOnCharger(chargerId);
+        List<Reservation> reservations = reservationService.getReservationsOnCharger(chargerId, null, null);
         
         assertEquals(mockReservations, reservations);
     }
@@ -48,18 +81,97 @@ class ReservationServiceTest {
     @Requirement("MSEV-17")
     void whenReservationsNotInCloseFuture_thenReturnEmptyList() {
         UUID chargerId = UUID.randomUUID();
+        LocalDateTime before = LocalDateTime.now();
+        ArgumentCaptor<LocalDateTime> from = ArgumentCaptor.forClass(LocalDateTime.class);
+        ArgumentCaptor<LocalDateTime> to = ArgumentCaptor.forClass(LocalDateTime.class);
 
-        Reservation mockReservation = new Reservation();
-        mockReservation.setStartTimestamp(LocalDateTime.now().minusHours(1));
-        Reservation mockReservation2 = new Reservation();
-        mockReservation2.setStartTimestamp(LocalDateTime.now().plusDays(10));
-        List<Reservation> mockReservations = List.of(mockReservation, mockReservation2);
+        when(reservationRepository.findByChargerIdAndStartTimestampAfterAndStartTimestampBeforeOrderByStartTimestampAsc(eq(chargerId), from.capture(), to.capture()))
+                .thenReturn(List.of());
         
-        when(reservationRepository.findByChargerId(chargerId)).thenReturn(mockReservations);
-        
-        List<Reservation> reservations = reservationService.getFutureReservationsOnCharger(chargerId);
+        List<Reservation> reservations = reservationService.getReservationsOnCharger(chargerId, null, null);
         
         assertEquals(0, reservations.size());
+        assertTrue(!from.getValue().isBefore(before) && !from.getValue().isAfter(LocalDateTime.now()));
+        assertEquals(from.getValue().plusDays(5), to.getValue());
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void givenWindow_whenGetReservationsOnCharger_thenQueryOnlyThatWindow() {
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+        LocalDateTime to = from.plusDays(1);
+        Reservation mockReservation = new Reservation();
+
+        when(reservationRepository.findByChargerIdAndStartTimestampAfterAndStartTimestampBeforeOrderByStartTimestampAsc(chargerId, from, to))
+                .thenReturn(List.of(mockReservation));
+
+        assertEquals(List.of(mockReservation), reservationService.getReservationsOnCharger(chargerId, from, to));
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void givenEmptyWindow_whenGetReservationsOnCharger_thenThrowException() {
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> reservationService.getReservationsOnCharger(chargerId, from, from));
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void givenWindowTooLong_whenGetReservationsOnCharger_thenThrowException() {
+        UUID chargerId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.of(2030, 1, 1, 0, 0);
+
+        assertThrows(IllegalArgumentException.class, () -> reservationService.getReservationsOnCharger(chargerId, from, from.plusDays(365)));
+        verify(reservationRepository, never()).findByChargerIdAndStartTimestampAfterAndStartTimestampBeforeOrderByStartTimestampAsc(any(), any(), any());
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void whenGetStationAvailability_thenSkipUnusableChargersAndChargersWithoutSlots() {
+        UUID stationId = UUID.randomUUID();
+        LocalDateTime from = LocalDateTime.now().truncatedTo(ChronoUnit.HOURS).plusDays(1);
+        Charger free = Charger.builder().id(UUID.randomUUID()).build();
+        Charger booked = Charger.builder().id(UUID.randomUUID()).build();
+        Charger broken = Charger.builder().id(UUID.randomUUID()).status(Charger.ChargerStatus.OUT_OF_ORDER).build();
+        Reservation bookedAllDay = Reservation.builder().id(UUID.randomUUID()).charger(booked)
+                .startTimestamp(from).endTimestamp(from.plusHours(4)).build();
+
+        when(stationRepository.existsById(stationId)).thenReturn(true);
+        when(chargerRepository.findByStationId(stationId)).thenReturn(List.of(free, booked, broken));
+        when(reservationRepository.findByChargerIdAndEndTimestampAfter(eq(free.getId()), any())).thenReturn(List.of());
+        when(reservationRepository.findByChargerIdAndEndTimestampAfter(eq(booked.getId()), any())).thenReturn(List.of(bookedAllDay));
+        when(reservationRepository.findByChargerIdInAndStartTimestampBeforeAndEndTimestampAfter(eq(List.of(free.getId(), booked.getId())), any(), any()))
+                .thenReturn(List.of(bookedAllDay));
+
+        List<ChargerAvailability> availability = reservationService.getStationAvailability(stationId, from, from.plusHours(4), 15, 60);
+
+        assertEquals(1, availability.size());
+        assertEquals(free.getId(), availability.get(0).getChargerId());
+        assertEquals(List.of(new AvailableSlot(from, from.plusHours(4))), availability.get(0).getSlots());
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void givenUnknownStation_whenGetStationAvailability_thenThrowException() {
+        UUID stationId = UUID.randomUUID();
+        when(stationRepository.existsById(stationId)).thenReturn(false);
+
+        assertThrows(NoSuchElementException.class, () -> reservationService.getStationAvailability(stationId, null, null, null, null));
+        verify(chargerRepository, never()).findByStationId(any());
+    }
+
+    @Test
+    @Requirement("MSEV-17")
+    void givenInvalidGranularity_whenGetChargerAvailability_thenThrowException() {
+        UUID chargerId = UUID.randomUUID();
+
+        assertThrows(IllegalArgumentException.class, () -> reservationService.getChargerAvailability(chargerId, null, null, 20, null));
+        assertThrows(IllegalArgumentException.class, () -> reservationService.getChargerAvailability(chargerId, null, null, null, 0));
+        assertThrows(IllegalArgumentException.class, () -> reservationService.getChargerAvailability(chargerId,
+                LocalDateTime.now(), LocalDateTime.now().plusDays(40), null, null));
     }
 
     @Test
@@ -71,11 +183,12 @@ class ReservationServiceTest {
         Charger mockCharger = new Charger();
         mockCharger.setId(UUID.randomUUID());
         mockReservation.setCharger(mockCharger);
-        when(reservationRepository.findByChargerId(any())).thenReturn(List.of());
+        when(reservationRepository.findByChargerIdAndEndTimestampAfter(any(), any())).thenReturn(List.of());
         when(reservationRepository.save(mockReservation)).thenReturn(mockReservation);
         Reservation reservation = reservationService.createReservation(mockReservation);
         
         assertEquals(mockReservation, reservation);
+        verify(reservationExpiry).schedule(mockReservation);
     }
 
     @Test
@@ -96,12 +209,11 @@ class ReservationServiceTest {
     @Requirement("MSEV-19")
     void whenReservationStartAfterEnd_thenThrowException() {
         Reservation mockReservation = new Reservation();
-        mockReservation.setStartTimestamp(LocalDateTime.now().plusHours(1));
-        mockReservation.setEndTimestamp(LocalDateTime.now().plusHours(2));
+        mockReservation.setStartTimestamp(LocalDateTime.now().plusHours(2));
+        mockReservation.setEndTimestamp(LocalDateTime.now().plusHours(1));
         Charger mockCharger = new Charger();
         mockCharger.setId(UUID.randomUUID());
         mockReservation.setCharger(mockCharger);
-        when(reservationRepository.findByChargerId(any())).thenReturn(List.of());
         
         try {
             reservationService.createReservation(mockReservation);
@@ -120,17 +232,70 @@ class ReservationServiceTest {
         mockCharger.setId(UUID.randomUUID());
         mockReservation.setCharger(mockCharger);
         Reservation existingReservation = new Reservation();
+        existingReservation.setId(UUID.randomUUID());
 
         existingReservation.setStartTimestamp(LocalDateTime.now().plusMinutes(30));
         existingReservation.setEndTimestamp(LocalDateTime.now().plusHours(90));
 
-        when(reservationRepository.findByChargerId(any())).thenReturn(List.of(existingReservation));
-        
-        try {
-            reservationService.createReservation(mockReservation);
-        } catch (IllegalArgumentException e) {
-            assertEquals("Reservation overlaps with an existing reservation", e.getMessage());
-        }
+        when(reservationRepository.findByChargerIdAndEndTimestampAfter(any(), any())).thenReturn(List.of(existingReservation));
+        when(reservationRepository.findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(any(), any(), any())).thenReturn(List.of(existingReservation));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> reservationService.createReservation(mockReservation));
+        assertEquals("Reservation overlaps with an existing reservation", e.getMessage());
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenDatabaseRejectsOverlap_thenThrowOverlapException() {
+        Charger mockCharger = new Charger();
+        mockCharger.setId(UUID.randomUUID());
+        Reservation reservation = Reservation.builder().charger(mockCharger)
+                .startTimestamp(LocalDateTime.now().plusHours(1)).endTimestamp(LocalDateTime.now().plusHours(2)).build();
+
+        when(reservationRepository.findByChargerIdAndEndTimestampAfter(any(), any())).thenReturn(List.of());
+        when(reservationRepository.save(reservation)).thenThrow(new DataIntegrityViolationException("conflict",
+                new SQLException("conflicting key value violates exclusion constraint", "23P01")));
+
+        IllegalArgumentException e = assertThrows(IllegalArgumentException.class, () -> reservationService.createReservation(reservation));
+        assertEquals("Reservation overlaps with an existing reservation", e.getMessage());
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenDatabaseRejectsOtherwise_thenPropagate() {
+        Charger mockCharger = new Charger();
+        mockCharger.setId(UUID.randomUUID());
+        Reservation reservation = Reservation.builder().charger(mockCharger)
+                .startTimestamp(LocalDateTime.now().plusHours(1)).endTimestamp(LocalDateTime.now().plusHours(2)).build();
+
+        when(reservationRepository.findByChargerIdAndEndTimestampAfter(any(), any())).thenReturn(List.of());
+        when(reservationRepository.save(reservation)).thenThrow(new DataIntegrityViolationException("not null",
+                new SQLException("null value in column", "23502")));
+
+        assertThrows(DataIntegrityViolationException.class, () -> reservationService.createReservation(reservation));
+    }
+
+    @Test
+    @Requirement("MSEV-19")
+    void whenReservationCancelled_thenSlotCanBeBookedAgain() {
+        Charger mockCharger = new Charger();
+        mockCharger.setId(UUID.randomUUID());
+        Reservation existingReservation = Reservation.builder().id(UUID.randomUUID()).charger(mockCharger)
+                .startTimestamp(LocalDateTime.now().plusHours(1)).endTimestamp(LocalDateTime.now().plusHours(2)).build();
+        Reservation newReservation = Reservation.builder().charger(mockCharger)
+                .startTimestamp(existingReservation.getStartTimestamp()).endTimestamp(existingReservation.getEndTimestamp()).build();
+
+        when(reservationRepository.findByChargerIdAndEndTimestampAfter(any(), any())).thenReturn(List.of(existingReservation));
+        when(reservationRepository.findByChargerIdAndStartTimestampBeforeAndEndTimestampAfter(any(), any(), any())).thenReturn(List.of(existingReservation));
+        when(reservationRepository.findById(existingReservation.getId())).thenReturn(java.util.Optional.of(existingReservation));
+        when(reservationRepository.save(newReservation)).thenReturn(newReservation);
+
+        assertThrows(IllegalArgumentException.class, () -> reservationService.createReservation(newReservation));
+
+        reservationService.cancelReservation(existingReservation.getId());
+
+        assertEquals(newReservation, reservationService.createReservation(newReservation));
+        verify(reservationRepository).delete(existingReservation);
     }
 
     @Test
@@ -0,0 +1,182 @@
+package tqs.msev.backend.service;
+
+import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.context.annotation.Import;
+import tqs.msev.backend.dto.SessionTotals;
+import tqs.msev.backend.entity.ChargeSession;
+import tqs.msev.backend.entity.ChargeSessionRollup;
+import tqs.msev.backend.entity.Charger;
+import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.repository.ChargeSessionRollupRepository;
+import tqs.msev.backend.util.EntityStreams;
+
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+@DataJpaTest
+@Import({SessionRollupService.class, EntityStreams.class})
+class SessionRollupServiceTest {
+    private static final LocalDateTime DAY = LocalDateTime.of(2025, 5, 1, 0, 0);
+
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @Autowired
+    private SessionRollupService sessionRollupService;
+
+    @Autowired
+    private ChargeSessionRollupRepository rollupRepository;
+
+    private Station station;
+    private Charger charger1;
+    private Charger charger2;
+    private User user;
+
+    @BeforeEach
+    void setup() {
+        station = entityManager.persist(Station.builder().name("Station 1").address("Street 1").latitude(40).longitude(-8).build());
+        user = entityManager.persist(User.builder().name("User").email("user@ua.pt").password("pw").build());
+        charger1 = entityManager.persist(Charger.builder().station(station).connectorType("CCS").price(0.5).chargingSpeed(50).build());
+        charger2 = entityManager.persist(Charger.builder().station(station).connectorType("Type2").price(0.2).chargingSpeed(11).build());
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenRecordSessions_thenSplitThemOverHourlyAndDailyBuckets() {
+        sessionRollupService.record(session(charger1, DAY.plusHours(1).plusMinutes(30), DAY.plusHours(2).plusMinutes(30), 20));
+        sessionRollupService.record(session(charger1, DAY.plusHours(2), DAY.plusHours(2).plusMinutes(30), 10));
+        sessionRollupService.record(session(charger2, DAY.plusHours(3), DAY.plusHours(4), 5));
+
+        assertThat(rollupRepository.count()).isEqualTo(5);
+
+        ChargeSessionRollup first = hourlyRollup(charger1, DAY.plusHours(1));
+
+        assertThat(first.getSessions()).isZero();
+        assertThat(first.getEnergy()).isEqualTo(10.0);
+        assertThat(first.getBusySeconds()).isEqualTo(1800);
+
+        ChargeSessionRollup second = hourlyRollup(charger1, DAY.plusHours(2));
+
+        assertThat(second.getSessions()).isEqualTo(2);
+        assertThat(second.getEnergy()).isEqualTo(20.0);
+        assertThat(second.getBusySeconds()).isEqualTo(3600);
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenSessionSpansMidnight_thenEachDayGetsItsShare() {
+        sessionRollupService.record(session(charger1, DAY.minusHours(1), DAY.plusHours(1), 20));
+
+        SessionTotals today = sessionRollupService.sumByStation(station.getId(), DAY, DAY.plusDays(1));
+        SessionTotals yesterday = sessionRollupService.sumByStation(station.getId(), DAY.minusDays(1), DAY);
+
+        assertThat(today.getSessions()).isEqualTo(1);
+        assertThat(today.getEnergy()).isEqualTo(10.0);
+        assertThat(today.getBusySeconds()).isEqualTo(3600);
+        assertThat(yesterday.getSessions()).isZero();
+        assertThat(yesterday.getRevenue()).isCloseTo(10 * 0.5, within(1e-9));
+        assertThat(yesterday.getBusySeconds()).isEqualTo(3600);
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenSumByStation_thenCombineDailyAndHourlyBuckets() {
+        sessionRollupService.record(session(charger1, DAY.plusHours(1), DAY.plusHours(3), 20));
+        sessionRollupService.record(session(charger2, DAY.plusDays(1).plusHours(5), DAY.plusDays(1).plusHours(6), 10));
+        sessionRollupService.record(session(charger1, DAY.plusDays(2).plusHours(10), DAY.plusDays(2).plusHours(11), 30));
+        sessionRollupService.record(session(charger1, DAY.plusDays(5), DAY.plusDays(5).plusHours(1), 40));
+
+        SessionTotals totals = sessionRollupService.sumByStation(station.getId(), DAY.plusHours(2), DAY.plusDays(2).plusHours(12));
+
+        assertThat(totals.getSessions()).isEqualTo(3);
+        assertThat(totals.getEnergy()).isEqualTo(50.0);
+        assertThat(totals.getRevenue()).isCloseTo(10 * 0.5 + 10 * 0.2 + 30 * 0.5, within(1e-9));
+        assertThat(totals.getBusySeconds()).isEqualTo(3 * 3600);
+
+        totals = sessionRollupService.sumByStation(station.getId(), DAY.plusHours(3), DAY.plusDays(2).plusHours(12));
+
+        assertThat(totals.getSessions()).isEqualTo(2);
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenSumByCharger_thenOnlyCountThatCharger() {
+        sessionRollupService.record(session(charger1, DAY.plusHours(1), DAY.plusHours(2), 20));
+        sessionRollupService.record(session(charger2, DAY.plusHours(1), DAY.plusHours(2), 10));
+
+        SessionTotals totals = sessionRollupService.sumByCharger(charger2.getId(), DAY, DAY.plusDays(1));
+
+        assertThat(totals.getSessions()).isEqualTo(1);
+        assertThat(totals.getEnergy()).isEqualTo(10.0);
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void whenBackfill_thenBuildRollupsFromClosedSessions() {
+        entityManager.persist(session(charger1, DAY.plusHours(1), DAY.plusHours(2), 20));
+        entityManager.persist(session(charger1, DAY.plusHours(1), DAY.plusHours(1).plusMinutes(30), 10));
+        entityManager.persist(session(charger2, DAY.plusHours(3), null, 10));
+        entityManager.flush();
+
+        sessionRollupService.backfill();
+
+        SessionTotals totals = sessionRollupService.sumByStation(station.getId(), DAY, DAY.plusDays(1));
+
+        assertThat(rollupRepository.count()).isEqualTo(2);
+        assertThat(totals.getSessions()).isEqualTo(2);
+        assertThat(totals.getEnergy()).isEqualTo(30.0);
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void givenRollupsCountingEverySession_whenBackfill_thenLeaveThemAlone() {
+        ChargeSession closed = entityManager.persist(session(charger1, DAY.plusHours(1), DAY.plusHours(2), 20));
+        entityManager.flush();
+        sessionRollupService.record(closed);
+
+        sessionRollupService.backfill();
+
+        assertThat(sessionRollupService.sumByCharger(charger1.getId(), DAY, DAY.plusDays(1)).getSessions()).isEqualTo(1);
+    }
+
+    @Test
+    @Requirement("MSEV-25")
+    void givenSessionCountedTwice_whenBackfill_thenRebuildRollups() {
+        ChargeSession closed = entityManager.persist(session(charger1, DAY.plusHours(1), DAY.plusHours(2), 20));
+        entityManager.persist(session(charger2, DAY.plusHours(3), DAY.plusHours(4), 10));
+        entityManager.flush();
+        sessionRollupService.record(closed);
+        sessionRollupService.record(closed);
+        sessionRollupService.record(closed);
+
+        sessionRollupService.backfill();
+
+        SessionTotals totals = sessionRollupService.sumByStation(station.getId(), DAY, DAY.plusDays(1));
+
+        assertThat(totals.getSessions()).isEqualTo(2);
+        assertThat(totals.getEnergy()).isEqualTo(30.0);
+        assertThat(hourlyRollup(charger1, DAY.plusHours(1)).getSessions()).isEqualTo(1);
+    }
+
+    private ChargeSessionRollup hourlyRollup(Charger charger, LocalDateTime bucketStart) {
+        return entityManager.getEntityManager()
+                .createQuery("SELECT r FROM ChargeSessionRollup r WHERE r.chargerId = :chargerId AND r.granularity = :granularity AND r.bucketStart = :bucketStart",
+                        ChargeSessionRollup.class)
+                .setParameter("chargerId", charger.getId())
+                .setParameter("granularity", ChargeSessionRollup.Granularity.HOURLY)
+                .setParameter("bucketStart", bucketStart)
+                .getSingleResult();
+    }
+
+    private ChargeSession session(Charger charger, LocalDateTime start, LocalDateTime end, double consumption) {
+        return ChargeSession.builder().user(user).charger(charger).startTimestamp(start).endTimestamp(end).consumption(consumption).build();
+    }
+}
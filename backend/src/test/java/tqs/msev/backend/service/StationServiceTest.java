@@ -4,16 +4,25 @@ import app.getxray.xray.junit.customjunitxml.annotations.Requirement;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.mockito.junit.jupiter.MockitoSettings;
 import org.mockito.quality.Strictness;
+import org.springframework.data.domain.Limit;
 import tqs.msev.backend.dto.Coordinates;
+import tqs.msev.backend.dto.CursorPage;
+import tqs.msev.backend.dto.StationCluster;
+import tqs.msev.backend.dto.StationViewport;
 import tqs.msev.backend.entity.Station;
+import tqs.msev.backend.index.StationCatalog;
+import tqs.msev.backend.index.StationNameIndex;
+import tqs.msev.backend.index.StationSpatialIndex;
+import tqs.msev.backend.index.StationTrigramIndex;
 import tqs.msev.backend.repository.StationRepository;
+import tqs.msev.backend.util.EntityStreams;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.NoSuchElementException;
 import java.util.Optional;
@@ -32,7 +41,12 @@ class StationServiceTest {
     @Mock
     private StationRepository repository;
 
-    @InjectMocks
+    @Mock
+    private ChargerService chargerService;
+
+    @Mock
+    private EntityStreams entityStreams;
+
     private StationService service;
 
     @BeforeEach
@@ -46,6 +60,7 @@ class StationServiceTest {
         station1.setAddress("NY Street, 1");
 
         Station station2 = new Station();
+        station2.setId(UUID.fromString("22222222-2222-2222-2222-222222222222"));
         station2.setLatitude(40);
         station2.setLongitude(-8.0);
         station2.setName("Station 2");
@@ -53,6 +68,41 @@ class StationServiceTest {
 
         when(repository.findAll()).thenReturn(List.of(station1, station2));
         when(repository.findById(id1)).thenReturn(Optional.of(station1));
+
+        StationCatalog catalog = new StationCatalog(repository);
+        service = new StationService(repository, geocodingService, chargerService,
+                new StationSpatialIndex(catalog), new StationNameIndex(catalog), new StationTrigramIndex(catalog), entityStreams);
+    }
+
+    @Test
+    void givenLimit_whenGetStations_thenReturnFirstPageAndCursor() {
+        List<Station> all = repository.findAll();
+        when(repository.findByIdGreaterThanOrderByIdAsc(new UUID(0, 0), Limit.of(2))).thenReturn(all);
+
+        CursorPage<Station> page = service.getStations(null, 1);
+
+        assertThat(page.getItems()).extracting(Station::getName).containsExactly("Station 1");
+        assertThat(page.getNextCursor()).isEqualTo(all.get(0).getId().toString());
+    }
+
+    @Test
+    void givenCursorOfLastPage_whenGetStations_thenReturnNoCursor() {
+        UUID cursor = UUID.fromString("11111111-1111-1111-1111-111111111111");
+        Station last = repository.findAll().get(1);
+        when(repository.findByIdGreaterThanOrderByIdAsc(cursor, Limit.of(CursorPage.DEFAULT_LIMIT + 1))).thenReturn(List.of(last));
+
+        CursorPage<Station> page = service.getStations(cursor, null);
+
+        assertThat(page.getItems()).containsExactly(last);
+        assertThat(page.getNextCursor()).isNull();
+    }
+
+    @Test
+    void givenInvalidLimit_whenGetStations_thenThrow() {
+        assertThatThrownBy(() -> service.getStations(null, 0))
+                .isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getStations(null, CursorPage.MAX_LIMIT + 1))
+                .isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
@@ -99,7 +149,27 @@ class StationServiceTest {
 
         assertThat(stations).hasSize(1);
         assertThat(stations).extracting(Station::getName).containsAll(List.of("Station 1"));
-        verify(repository, times(2)).findAll();
+        verify(repository, times(1)).findAll();
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenSearchStationByMistypedName_thenReturnSimilarStations() {
+        List<Station> stations = service.searchByName("Statoin 2");
+
+        assertThat(stations).isNotEmpty();
+        assertThat(stations.get(0)).extracting(Station::getName).isEqualTo("Station 2");
+
+        assertThat(service.searchByName("Idk Stret")).extracting(Station::getName).startsWith("Station 2");
+        assertThat(service.searchByName("zzzz")).isEmpty();
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenSearchStationByNameWithLimit_thenReturnAtMostLimitStations() {
+        assertThat(service.searchByName("STATION", 1)).extracting(Station::getName).containsExactly("Station 1");
+        assertThat(service.searchByName("unknown", 5)).isEmpty();
+        assertThatThrownBy(() -> service.searchByName("Station", 0)).isInstanceOf(IllegalArgumentException.class);
     }
 
     @Test
@@ -116,6 +186,99 @@ class StationServiceTest {
         verify(geocodingService, times(1)).getCoordinatesForAddress(Mockito.anyString());
     }
 
+    @Test
+    @Requirement("MSEV-16")
+    void whenSearchStationByAddressWithLimit_thenReturnOnlyNearestStations() {
+        when(geocodingService.getCoordinatesForAddress(Mockito.anyString())).thenReturn(new Coordinates(40.6254255, -8.6514061));
+
+        List<Station> stations = service.searchByAddress("Avenida da Universidade Aveiro", 1, null);
+
+        assertThat(stations).extracting(Station::getName).containsExactly("Station 2");
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenSearchStationByAddressWithMaxDistance_thenReturnOnlyStationsInRange() {
+        when(geocodingService.getCoordinatesForAddress(Mockito.anyString())).thenReturn(new Coordinates(40.6254255, -8.6514061));
+
+        List<Station> stations = service.searchByAddress("Avenida da Universidade Aveiro", 10, 100.0);
+
+        assertThat(stations).extracting(Station::getName).containsExactly("Station 2");
+
+        stations = service.searchByAddress("Avenida da Universidade Aveiro", 10, 1.0);
+
+        assertThat(stations).isEmpty();
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenSearchStationByAddressWithInvalidLimit_thenThrowException() {
+        assertThatThrownBy(() -> service.searchByAddress("Aveiro", 0, null)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.searchByAddress("Aveiro", null, -1.0)).isInstanceOf(IllegalArgumentException.class);
+        verify(geocodingService, never()).getCoordinatesForAddress(Mockito.anyString());
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenGetStationsInViewportAtHighZoom_thenReturnStationsInside() {
+        StationViewport viewport = service.getStationsInViewport(39, -9, 41, -7, 14);
+
+        assertThat(viewport.getStations()).extracting(Station::getName).containsExactly("Station 2");
+        assertThat(viewport.getClusters()).isEmpty();
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenGetStationsInViewportAtLowZoom_thenClusterNearbyStations() {
+        StationViewport viewport = service.getStationsInViewport(30, -20, 50, 10, 1);
+
+        assertThat(viewport.getStations()).isEmpty();
+        assertThat(viewport.getClusters()).hasSize(1);
+        assertThat(viewport.getClusters().get(0).getCount()).isEqualTo(2);
+        assertThat(viewport.getClusters().get(0).getLatitude()).isEqualTo(40);
+        assertThat(viewport.getClusters().get(0).getLongitude()).isEqualTo(-4.25);
+
+        viewport = service.getStationsInViewport(30, -20, 50, 10, 6);
+
+        assertThat(viewport.getStations()).hasSize(2);
+        assertThat(viewport.getClusters()).isEmpty();
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenGetManyStationsInWideViewportAtHighZoom_thenClusterThemOverTheViewport() {
+        List<Station> many = new ArrayList<>();
+        for (int i = 0; i <= StationService.MAX_UNCLUSTERED; i++) {
+            Station station = new Station();
+            station.setId(new UUID(0, i + 1));
+            station.setLatitude(-80 + (i * 7919 % 160));
+            station.setLongitude(-170 + (i * 104729 % 340));
+            station.setName("Station " + i);
+            many.add(station);
+        }
+        when(repository.findAll()).thenReturn(many);
+
+        StationCatalog catalog = new StationCatalog(repository);
+        service = new StationService(repository, geocodingService, chargerService,
+                new StationSpatialIndex(catalog), new StationNameIndex(catalog), new StationTrigramIndex(catalog), entityStreams);
+
+        StationViewport viewport = service.getStationsInViewport(-90, -180, 90, 180, StationService.MAX_ZOOM);
+
+        assertThat(viewport.getClusters()).isNotEmpty();
+        assertThat(viewport.getStations().size() + viewport.getClusters().size())
+                .isLessThanOrEqualTo(StationService.MAX_CELLS_PER_SIDE * StationService.MAX_CELLS_PER_SIDE);
+        assertThat(viewport.getStations().size() + viewport.getClusters().stream().mapToInt(StationCluster::getCount).sum())
+                .isEqualTo(many.size());
+    }
+
+    @Test
+    @Requirement("MSEV-16")
+    void whenGetStationsInInvalidViewport_thenThrowException() {
+        assertThatThrownBy(() -> service.getStationsInViewport(41, -9, 39, -7, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getStationsInViewport(39, -190, 41, -7, 10)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> service.getStationsInViewport(39, -9, 41, -7, 23)).isInstanceOf(IllegalArgumentException.class);
+    }
+
     @Test
     @Requirement("MSEV-23")
     void whenCreateStation_thenReturnStation() {
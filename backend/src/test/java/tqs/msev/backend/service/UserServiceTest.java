@@ -0,0 +1,67 @@
+package tqs.msev.backend.service;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
+import tqs.msev.backend.configuration.CacheConfig;
+import tqs.msev.backend.entity.User;
+import tqs.msev.backend.repository.UserRepository;
+
+import java.time.Duration;
+import java.util.Optional;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.*;
+
+@ExtendWith(MockitoExtension.class)
+class UserServiceTest {
+    @Mock
+    private UserRepository userRepository;
+
+    private UserService service;
+
+    @BeforeEach
+    void setup() {
+        service = new UserService(userRepository, new CacheConfig().cacheManager(100, Duration.ofMinutes(5), 100, Duration.ofMinutes(5)));
+    }
+
+    @Test
+    void whenLookUpSameUserTwice_thenQueryOnce() {
+        User user = User.builder().id(UUID.randomUUID()).name("Test").email("test@gmail.com").password("pw").build();
+        when(userRepository.findUserByEmail("test@gmail.com")).thenReturn(Optional.of(user));
+
+        assertThat(service.getUserByEmail("test@gmail.com")).isEqualTo(user);
+        assertThat(service.getUserByEmail("test@gmail.com")).isEqualTo(user);
+
+        verify(userRepository, times(1)).findUserByEmail("test@gmail.com");
+    }
+
+    @Test
+    void whenUserDoesNotExist_thenThrowAndDoNotCache() {
+        when(userRepository.findUserByEmail("missing@gmail.com")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getUserByEmail("missing@gmail.com")).isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> service.getUserByEmail("missing@gmail.com")).isInstanceOf(UsernameNotFoundException.class);
+
+        verify(userRepository, times(2)).findUserByEmail("missing@gmail.com");
+    }
+
+    @Test
+    void whenUserChangesEmail_thenEvictOldEntry() {
+        UUID id = UUID.randomUUID();
+        User user = User.builder().id(id).name("Test").email("old@gmail.com").password("pw").build();
+        when(userRepository.findUserByEmail("old@gmail.com")).thenReturn(Optional.of(user));
+        service.getUserByEmail("old@gmail.com");
+
+        User renamed = User.builder().id(id).name("Test").email("new@gmail.com").password("pw").build();
+        service.evict(renamed);
+        when(userRepository.findUserByEmail("old@gmail.com")).thenReturn(Optional.empty());
+
+        assertThatThrownBy(() -> service.getUserByEmail("old@gmail.com")).isInstanceOf(UsernameNotFoundException.class);
+    }
+}
@@ -0,0 +1,116 @@
+package tqs.msev.backend.util;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import tqs.msev.backend.exception.TooManyRequestsException;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class BoundedPasswordEncoderTest {
+    private BoundedPasswordEncoder encoder;
+
+    @AfterEach
+    void teardown() {
+        encoder.shutdown();
+    }
+
+    @Test
+    void whenEncodeAndMatch_thenDelegateAndRecordLatency() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        encoder = new BoundedPasswordEncoder(new BCryptPasswordEncoder(4), 2, 4, Duration.ofSeconds(5));
+        encoder.bindTo(registry);
+
+        String hash = encoder.encode("secret");
+
+        assertThat(encoder.matches("secret", hash)).isTrue();
+        assertThat(encoder.matches("wrong", hash)).isFalse();
+        assertThat(registry.get("auth.password.hash").tag("operation", "matches").timer().count()).isEqualTo(2);
+        assertThat(registry.get("auth.password.queue.depth").gauge().value()).isZero();
+    }
+
+    @Test
+    void whenPoolAndQueueAreFull_thenRejectImmediately() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(started, release), 1, 1, Duration.ofSeconds(5));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        CompletableFuture<String> queued = CompletableFuture.supplyAsync(() -> encoder.encode("b"));
+        waitForQueueDepth(1);
+
+        assertThatThrownBy(() -> encoder.encode("c")).isInstanceOf(TooManyRequestsException.class);
+
+        release.countDown();
+        assertThat(running.get(5, TimeUnit.SECONDS)).isEqualTo("a");
+        assertThat(queued.get(5, TimeUnit.SECONDS)).isEqualTo("b");
+    }
+
+    @Test
+    void whenHashingTakesTooLong_thenReject() {
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(new CountDownLatch(1), new CountDownLatch(1)), 1, 1, Duration.ofMillis(50));
+
+        assertThatThrownBy(() -> encoder.encode("a")).isInstanceOf(TooManyRequestsException.class);
+    }
+
+    @Test
+    void whenQueuedCheckTimesOut_thenItIsDroppedFromTheQueue() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        CountDownLatch started = new CountDownLatch(1);
+        AtomicInteger hashed = new AtomicInteger();
+        encoder = new BoundedPasswordEncoder(new BlockingEncoder(started, release, hashed), 1, 1, Duration.ofMillis(200));
+
+        CompletableFuture<String> running = CompletableFuture.supplyAsync(() -> encoder.encode("a"));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+
+        assertThatThrownBy(() -> encoder.encode("b")).isInstanceOf(TooManyRequestsException.class);
+        assertThat(encoder.getQueueDepth()).isZero();
+
+        release.countDown();
+        assertThatThrownBy(() -> running.get(5, TimeUnit.SECONDS)).hasCauseInstanceOf(TooManyRequestsException.class);
+        encoder.shutdown();
+        assertThat(hashed.get()).isEqualTo(1);
+    }
+
+    private void waitForQueueDepth(int depth) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+
+        while (encoder.getQueueDepth() < depth && System.nanoTime() < deadline)
+            Thread.sleep(5);
+    }
+
+    private record BlockingEncoder(CountDownLatch started, CountDownLatch release, AtomicInteger hashed) implements PasswordEncoder {
+        BlockingEncoder(CountDownLatch started, CountDownLatch release) {
+            this(started, release, new AtomicInteger());
+        }
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            hashed.incrementAndGet();
+            started.countDown();
+
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            return rawPassword.toString();
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            return encode(rawPassword).equals(encodedPassword);
+        }
+    }
+}
@@ -22,7 +22,8 @@ const options = {
 
 export function ChargeSessionCard({ session, endSession }: Props) {
   const [points, setPoints] = useState<number[]>([])
-  const [data, setData] = useState<ChartData<"line"> | null>(null)
+  const [labels, setLabels] = useState<string[]>([])
+  const [consumption, setConsumption] = useState(session.consumption)
   
   async function handleLockCharger(chargerId: string) {
     // make the payment first to strapi
@@ -37,42 +38,37 @@ export function ChargeSessionCard({ session, endSession }: Props) {
     }
   }
 
-  const addPoints = () => {
-    setTimeout(async () => {
-      const response = await ChargerService.getStatistics(session.charger.id)
-      const stats: ChargeSession = response
-      const labels: string[] = []
-      setPoints((prev) => [...prev, stats.consumption])
-      if (points.length > 60) {
-        setPoints((prev) => prev.slice(1, -1))
+  // Readings are pushed by the backend as the charger sends them
+  useEffect(() => {
+    if (session.endTimestamp !== null) {
+      return
+    }
+
+    return ChargerService.subscribeToSessions(session.charger.id, (event) => {
+      if (event.sessionId !== session.id) {
+        return
       }
-      points.map(() => {
-        const d = new Date()
-        labels.push(d.getHours() + ":" + d.getMinutes())
-      })
 
-      const datasets: ChartData<"line"> = {
-        labels: labels,
-        datasets: [
-          {
-            label: "Consumption",
-            data: points,
-            fill: true,
-            borderColor: 'rgb(75, 192, 192)',
-            tension: 0.1
-          }
-        ]
+      const d = new Date()
+      setConsumption(event.consumption)
+      setLabels((prev) => [...prev, d.getHours() + ":" + d.getMinutes() + ":" + d.getSeconds()].slice(-60))
+      setPoints((prev) => [...prev, event.consumption].slice(-60))
+    })
+  }, [session.id, session.charger.id, session.endTimestamp])
+
+  const data: ChartData<"line"> | null = points.length === 0 ? null : {
+    labels: labels,
+    datasets: [
+      {
+        label: "Consumption",
+        data: points,
+        fill: true,
+        borderColor: 'rgb(75, 192, 192)',
+        tension: 0.1
       }
-      setData(datasets)
-    }, 1000)
+    ]
   }
 
-  useEffect(() => {
-    if (session.endTimestamp == null) {
-      addPoints()
-    }
-  }, [data])
-
 
   return (
     <div className=" cursor-pointer transition-all hover:scale-95 w-full flex flex-col p-8 gap-2 rounded-md border-neutral-200 shadow">
@@ -82,11 +78,11 @@ export function ChargeSessionCard({ session, endSession }: Props) {
         session.endTimestamp && <p>End Date: {format(session.endTimestamp, "dd-MM-yyyy HH:mm")}</p>
       }
 
-      <p>Consumption: {session.consumption}</p>
+      <p>Consumption: {consumption}</p>
       {
         session.endTimestamp !== null && <p>Charging Speed: {session.chargingSpeed}</p>
       }
-      <p>{session.endTimestamp === null ? "Estimated " : ""}Price: {session.consumption * session.charger.price} €</p>
+      <p>{session.endTimestamp === null ? "Estimated " : ""}Price: {consumption * session.charger.price} €</p>
 
       <div className="w-full p-2 min-h-[300px]">
         {data !== null && <LineChart options={options} data={data} />}
@@ -1,9 +1,8 @@
-import { useEffect, useState } from "react";
+import { useEffect, useRef, useState } from "react";
 import { ChargerService } from "../requests";
 import type { ChartData } from "chart.js";
 import type { Station } from "../types/Station"
 import type { Charger } from "../types/Charger";
-import type { ChargeSession } from "../types/charge-session";
 import LineChart from "../components/LineChart";
 
 type Props = {
@@ -24,71 +23,65 @@ const options = {
 
 export function StationCard({ station, onClick, onUpdate }: Props) {
   const [chargers, setChargers] = useState<Charger[]>([]);
-  const [chargersOutOfOrder, setChargersOutOfOrder] = useState(0);
   const [labels, setLabels] = useState<string[]>([])
-  const [points, setPoints] = useState<Record<number, number[]>>({})
-  const [data, setData] = useState<ChartData<"line"> | null>(null)
+  const [points, setPoints] = useState<Record<string, number[]>>({})
+  const sequences = useRef<Record<string, number>>({})
 
   useEffect(() => {
     async function loadChargers() {
       const chargersRes = await ChargerService.getChargerByStation(station.id)
       setChargers(chargersRes);
-      console.log(chargersRes)
-
-      setChargersOutOfOrder(chargersRes.filter(c => c.status === "OUT_OF_ORDER").length);
     }
 
     loadChargers();
   }, [station]);
 
+  // Statuses and readings are pushed by the backend, for every charger of the station over one stream
+  useEffect(() => {
+    sequences.current = {}
 
-  const chargerGraphic = async () => {
-    const chargerDatasets = []
-    for (let cIndex = 0; cIndex < chargers.length; cIndex++) {
-      const charger: Charger = chargers[cIndex];
-      if (charger.status !== "IN_USE") {
-        continue
+    return ChargerService.subscribeToStation(station.id, (event) => {
+      // A change the snapshot already holds may still arrive after it
+      if (event.sequence < (sequences.current[event.chargerId] ?? -1)) {
+        return
       }
-      const response = await ChargerService.getStatistics(charger.id)
-      const stats: ChargeSession = response
-      setPoints(prev => {
-        const updated = [...(prev[cIndex] || []), stats.consumption];
-        const trimmed = updated.length > 60 ? updated.slice(-60) : updated;
-        return {
-          ...prev,
-          [cIndex]: trimmed
-        };
-      });
-      const colorDeviation = (cIndex + 1) * 40
+
+      sequences.current[event.chargerId] = event.sequence
+      setChargers((prev) => prev.map(c => c.id === event.chargerId ? { ...c, status: event.status } : c))
+    }, (event) => {
+      if (event.endTimestamp !== null) {
+        return
+      }
+
       const now = new Date();
-      const label = `${now.getHours()}:${now.getMinutes()}:${now.getSeconds()}`;
+      setLabels((prev) => [...prev, `${now.getHours()}:${now.getMinutes()}:${now.getSeconds()}`].slice(-60))
+      setPoints((prev) => ({
+        ...prev,
+        [event.chargerId]: [...(prev[event.chargerId] || []), event.consumption].slice(-60)
+      }))
+    })
+  }, [station.id]);
 
-      setLabels((prev) => {
-        const updated = [...prev, label];
-        const trimmed = updated.length > 60 ? updated.slice(-60) : updated;
-        return trimmed
-      });
+  const chargersOutOfOrder = chargers.filter(c => c.status === "OUT_OF_ORDER").length
 
-      chargerDatasets.push(
-        {
-          label: `Charger nº ${chargerDatasets.length + 1}`,
-          data: points[cIndex],
-          fill: true,
-          borderColor: `rgb(${(150 + colorDeviation) % 255}, ${(200 + colorDeviation) % 255}, ${(100 + colorDeviation) % 255})`,
-          tension: 0.1
-        }
-      )
-    }
-    const datasets: ChartData<"line"> = {
-      labels: labels,
-      datasets: chargerDatasets
-    }
-    setData(datasets)
-  }
+  const chargerDatasets = chargers
+    .map((charger, cIndex) => ({ charger, cIndex }))
+    .filter(({ charger }) => charger.status === "IN_USE" && points[charger.id] !== undefined)
+    .map(({ charger, cIndex }, position) => {
+      const colorDeviation = (cIndex + 1) * 40
+      return {
+        label: `Charger nº ${position + 1}`,
+        data: points[charger.id],
+        fill: true,
+        borderColor: `rgb(${(150 + colorDeviation) % 255}, ${(200 + colorDeviation) % 255}, ${(100 + colorDeviation) % 255})`,
+        tension: 0.1
+      }
+    })
 
-  useEffect(() => {
-    setTimeout(chargerGraphic, 1000)
-  }, [data]);
+  const data: ChartData<"line"> = {
+    labels: labels,
+    datasets: chargerDatasets
+  }
 
   return (
     <div className={`border w-full rounded-md flex flex-col justify-center cursor-pointer bg-base-200 hover:scale-105 duration-75 shadow-xs ${chargersOutOfOrder > 0 ? "border-red-400 shadow-red-600" : "border-zinc-400"}`} data-testid="station-card">
@@ -104,7 +97,7 @@ export function StationCard({ station, onClick, onUpdate }: Props) {
         }
         <br />
       </div>
-      {data !== null && data.datasets.length>0 &&
+      {data.datasets.length > 0 &&
         <div className="w-full p-1 min-h-[300px]">
           <LineChart options={options} data={data} />
         </div>
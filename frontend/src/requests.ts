@@ -3,7 +3,7 @@ import type { LoginDTO, SignupDTO, User } from './types/user';
 import type { Station } from './types/Station';
 import type { Charger } from './types/Charger';
 import type { createReservation, Reservation } from './types/Reservation';
-import type { ChargeSession } from './types/charge-session';
+import type { ChargeSession, ChargeSessionEvent, ChargerStatusEvent } from './types/charge-session';
 
 import { showToast } from "./alerts";
 
@@ -28,6 +28,14 @@ const api = axios.create({
   },
 });
 
+function subscribe(path: string, onStatus: (event: ChargerStatusEvent) => void, onSession: (event: ChargeSessionEvent) => void): () => void {
+  const source = new EventSource(`${import.meta.env.VITE_BACKEND_URL}${path}`, { withCredentials: true });
+  source.addEventListener("status", (event) => onStatus(JSON.parse((event as MessageEvent).data)));
+  source.addEventListener("session", (event) => onSession(JSON.parse((event as MessageEvent).data)));
+
+  return () => source.close();
+}
+
 api.interceptors.response.use(
   (response) => response,
   (error) => {
@@ -263,6 +271,14 @@ export const ChargerService = {
       throw error;
     }
   },
+  // Calls onSession with every update of the charger's sessions until the returned function is called
+  subscribeToSessions: (chargerId: string, onSession: (event: ChargeSessionEvent) => void): (() => void) => {
+    return subscribe(`/chargers/${chargerId}/events`, () => {}, onSession);
+  },
+  // Calls onStatus with the status of every charger of the station and then each change, and onSession with their session updates
+  subscribeToStation: (stationId: string, onStatus: (event: ChargerStatusEvent) => void, onSession: (event: ChargeSessionEvent) => void): (() => void) => {
+    return subscribe(`/chargers/station/${stationId}/events`, onStatus, onSession);
+  },
   disableCharger: async (chargerId: string) => {
     try {
       await api.patch(`/chargers/${chargerId}/disable`);
@@ -10,3 +10,20 @@ export type ChargeSession = {
   user: User;
   charger: Charger;
 }
+
+export type ChargeSessionEvent = {
+  sessionId: string;
+  chargerId: string;
+  startTimestamp: string;
+  endTimestamp: string | null;
+  consumption: number;
+  chargingSpeed: number;
+}
+
+export type ChargerStatusEvent = {
+  chargerId: string;
+  stationId: string | null;
+  status: string;
+  sequence: number;
+  timestamp: string;
+}
@@ -0,0 +1,113 @@
+import http from "k6/http";
+import exec from "k6/execution";
+import { check } from "k6";
+
+// Simulates up to CHARGERS of the registered chargers sending one meter reading per second, grouped in GATEWAYS batches per second.
+// Readings for chargers the backend does not know are rejected, so seed enough chargers to reach the load wanted
+const CHARGERS = parseInt(__ENV.CHARGERS || '2000');
+const GATEWAYS = parseInt(__ENV.GATEWAYS || '20');
+const DURATION = __ENV.DURATION || '5m';
+
+export const options = {
+    scenarios: {
+        telemetry: {
+            executor: 'constant-arrival-rate',
+            rate: GATEWAYS,
+            timeUnit: '1s',
+            duration: DURATION,
+            preAllocatedVUs: GATEWAYS,
+            maxVUs: GATEWAYS * 4,
+        },
+    },
+    thresholds: {
+        http_req_duration: ['p(95)<200'],
+        http_req_failed: ['rate<0.01'],
+        checks: ['rate>0.99'],
+    },
+};
+
+const BASE_URL = __ENV.BASE_URL || "http://localhost/api/v1";
+
+function loginAndGetToken() {
+    const payload = JSON.stringify({
+        email: __ENV.OPERATOR_EMAIL || "operator@gmail.com",
+        password: __ENV.OPERATOR_PASSWORD || "123"
+    });
+
+    const res = http.post(`${BASE_URL}/login`, payload, {
+        headers: { "Content-Type": "application/json" },
+    });
+
+    check(res, {
+        'login status is 204': (r) => r.status === 204,
+    });
+
+    const match = (res.headers['Set-Cookie'] || '').match(/accessToken=([^;]+)/);
+    if (!match) {
+        console.error("Auth token not found in cookies");
+        return null;
+    }
+
+    return match[1];
+}
+
+function getChargerIds(authHeader) {
+    const ids = [];
+    const stations = http.get(`${BASE_URL}/stations`, authHeader);
+
+    if (stations.status === 200) {
+        for (const station of stations.json()) {
+            const chargers = http.get(`${BASE_URL}/chargers/station/${station.id}`, authHeader);
+            if (chargers.status === 200) chargers.json().forEach((charger) => ids.push(charger.id));
+        }
+    }
+
+    if (ids.length === 0) exec.test.abort("No chargers registered to simulate");
+    if (ids.length < CHARGERS) console.warn(`Only ${ids.length} chargers registered, simulating those instead of ${CHARGERS}`);
+
+    return ids.slice(0, CHARGERS);
+}
+
+export function setup() {
+    const token = loginAndGetToken();
+    const authHeader = { headers: { Cookie: `accessToken=${token}` } };
+
+    return { token, chargers: getChargerIds(authHeader), startedAt: Date.now() };
+}
+
+// Readings follow from the elapsed time alone, so any VU can send any gateway's batch.
+// They carry no timestamp and are stamped on arrival, so the server's time zone does not matter
+function reading(chargerId, index, startedAt) {
+    const power = 7 + (index % 8) * 20;
+    const hours = (Date.now() - startedAt) / 3600000;
+
+    return {
+        chargerId,
+        consumption: Math.round(power * hours * 1000) / 1000,
+        chargingSpeed: Math.round((power + Math.random() - 0.5) * 100) / 100,
+    };
+}
+
+export default function (data) {
+    if (!data.token) {
+        console.error("Auth failed. Exiting.");
+        return;
+    }
+
+    const gateway = exec.scenario.iterationInTest % GATEWAYS;
+    const batch = [];
+    for (let i = gateway; i < data.chargers.length; i += GATEWAYS) {
+        batch.push(reading(data.chargers[i], i, data.startedAt));
+    }
+
+    const res = http.post(`${BASE_URL}/chargers/telemetry`, JSON.stringify(batch), {
+        headers: {
+            "Content-Type": "application/json",
+            Cookie: `accessToken=${data.token}`,
+        },
+    });
+
+    check(res, {
+        'readings accepted': (r) => r.status === 202,
+    });
+}
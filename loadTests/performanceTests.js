@@ -127,13 +127,16 @@ function getStationsByAddress(location) {
 
 }
 
-export default function () {
-
+// Sign up and log in once, since repeated logins for one account are throttled by the backend
+export function setup() {
     //Its okay to repeat signup for performance tests, it will just return 400 if user already exists
     signupUser();
 
-    // Authenticate user
-    const token = loginAndGetToken();
+    return { token: loginAndGetToken() };
+}
+
+export default function (data) {
+    const token = data.token;
     if (!token) {
         console.error("Auth failed. Exiting.");
         return;